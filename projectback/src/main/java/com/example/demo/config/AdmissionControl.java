@@ -0,0 +1,69 @@
+package com.example.demo.config;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Niveles del control de admisión. Las agregaciones sobre todo el historial van al nivel "heavy", con pocos
+ * permisos para que nunca ocupen todas las conexiones de Hikari; el resto de la API va al nivel "standard".
+ * /count, /health y el flujo SSE quedan fuera de ambos (ver {@link WebMvcConfig}) y no se ven afectados.
+ */
+@Component
+public class AdmissionControl {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionControl.class);
+
+    private final boolean enabled;
+    private final String[] heavyPaths;
+    private final AdmissionControlInterceptor heavy;
+    private final AdmissionControlInterceptor standard;
+
+    public AdmissionControl(@Value("${app.admission.enabled:true}") boolean enabled,
+                            @Value("${app.admission.heavy-paths:/api/detections/temporal/**,/api/detections/dashboard}") String[] heavyPaths,
+                            @Value("${app.admission.heavy.max-concurrent:6}") int heavyMaxConcurrent,
+                            @Value("${app.admission.heavy.max-wait-ms:2000}") long heavyMaxWaitMillis,
+                            @Value("${app.admission.standard.max-concurrent:32}") int standardMaxConcurrent,
+                            @Value("${app.admission.standard.max-wait-ms:500}") long standardMaxWaitMillis,
+                            @Value("${app.admission.retry-after-seconds:2}") long retryAfterSeconds) {
+        this.enabled = enabled;
+        this.heavyPaths = heavyPaths;
+        this.heavy = new AdmissionControlInterceptor("heavy", heavyMaxConcurrent, heavyMaxWaitMillis, retryAfterSeconds);
+        this.standard = new AdmissionControlInterceptor("standard", standardMaxConcurrent, standardMaxWaitMillis, retryAfterSeconds);
+        if (enabled) {
+            logger.info("🚦 Control de admisión: heavy {} concurrentes ({} ms en cola), standard {} ({} ms)",
+                heavyMaxConcurrent, heavyMaxWaitMillis, standardMaxConcurrent, standardMaxWaitMillis);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String[] getHeavyPaths() {
+        return heavyPaths.clone();
+    }
+
+    public AdmissionControlInterceptor getHeavy() {
+        return heavy;
+    }
+
+    public AdmissionControlInterceptor getStandard() {
+        return standard;
+    }
+
+    /**
+     * Permisos en uso, peticiones en cola, admitidas y rechazadas por nivel
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("enabled", enabled);
+        metrics.put("heavy", heavy.getMetrics());
+        metrics.put("standard", standard.getMetrics());
+        return metrics;
+    }
+}
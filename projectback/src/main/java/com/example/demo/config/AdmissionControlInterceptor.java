@@ -0,0 +1,112 @@
+package com.example.demo.config;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Un nivel del control de admisión: a lo sumo {@code maxConcurrent} peticiones dentro del controlador y una
+ * espera máxima en cola de {@code maxWaitMillis}; pasado ese plazo se responde 503 con Retry-After en vez de
+ * ocupar un hilo de Tomcat hasta el timeout. El permiso se conserva durante el procesamiento asíncrono
+ * (respuestas en streaming) y se libera cuando termina la petición.
+ */
+public class AdmissionControlInterceptor implements AsyncHandlerInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionControlInterceptor.class);
+
+    private static final String PERMIT_ATTRIBUTE = AdmissionControlInterceptor.class.getName() + ".permit";
+
+    private final String tier;
+    private final int maxConcurrent;
+    private final long maxWaitMillis;
+    private final long retryAfterSeconds;
+    private final Semaphore permits;
+
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public AdmissionControlInterceptor(String tier, int maxConcurrent, long maxWaitMillis, long retryAfterSeconds) {
+        this.tier = tier;
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.maxWaitMillis = Math.max(0, maxWaitMillis);
+        this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+        // Justo: con espera acotada, las peticiones que llegaron antes entran antes
+        this.permits = new Semaphore(this.maxConcurrent, true);
+    }
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                             @NonNull Object handler) throws IOException {
+        // Los despachos ASYNC/ERROR de una petición ya admitida siguen usando su permiso
+        if (request.getDispatcherType() != DispatcherType.REQUEST || request.getAttribute(PERMIT_ATTRIBUTE) != null) {
+            return true;
+        }
+        if (!acquire()) {
+            rejected.increment();
+            logger.debug("⚠️ Petición rechazada por sobrecarga ({}): {} {}", tier, request.getMethod(), request.getRequestURI());
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"error\":\"Servicio saturado\",\"tier\":\"" + tier
+                + "\",\"retryAfterSeconds\":" + retryAfterSeconds + "}");
+            return false;
+        }
+        admitted.increment();
+        request.setAttribute(PERMIT_ATTRIBUTE, this);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                @NonNull Object handler, @Nullable Exception ex) {
+        // Con procesamiento asíncrono no se llama al terminar el primer despacho, sino al final del despacho ASYNC
+        if (request.getAttribute(PERMIT_ATTRIBUTE) == this) {
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+            permits.release();
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("maxConcurrent", maxConcurrent);
+        metrics.put("maxWaitMs", maxWaitMillis);
+        metrics.put("active", maxConcurrent - permits.availablePermits());
+        metrics.put("waiting", waiting.get());
+        metrics.put("admitted", admitted.sum());
+        metrics.put("rejected", rejected.sum());
+        return metrics;
+    }
+
+    private boolean acquire() {
+        if (permits.tryAcquire()) {
+            return true;
+        }
+        waiting.incrementAndGet();
+        try {
+            return permits.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            waiting.decrementAndGet();
+        }
+    }
+}
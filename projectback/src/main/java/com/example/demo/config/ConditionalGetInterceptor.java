@@ -0,0 +1,57 @@
+package com.example.demo.config;
+
+import java.util.UUID;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.NonNull;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import com.example.demo.service.ingest.IngestionHub;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * GET condicional para los endpoints de analítica. El ETag combina un identificador del arranque, la versión
+ * de datos de la ingesta, la ruta, los parámetros y el Accept negociado, y Last-Modified es el instante de la
+ * última carga confirmada. Si el cliente ya tiene esa versión se responde 304 aquí mismo, antes de llegar al
+ * controlador y a la base de datos.
+ */
+@Component
+@RequiredArgsConstructor
+public class ConditionalGetInterceptor implements HandlerInterceptor {
+
+    // La versión de datos reinicia en 0 con cada arranque y es distinta en cada nodo: el epoch evita falsos 304
+    private static final String BOOT_EPOCH = Long.toString(System.currentTimeMillis(), 36)
+        + UUID.randomUUID().toString().substring(0, 8);
+
+    private final IngestionHub ingestionHub;
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                             @NonNull Object handler) {
+        if (request.getDispatcherType() != DispatcherType.REQUEST
+                || !("GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod()))) {
+            return true;
+        }
+
+        // La versión se lee antes de calcular: si llega una carga a mitad, la próxima petición trae el ETag nuevo
+        long version = ingestionHub.getDataVersion();
+        String resource = request.getRequestURI() + (request.getQueryString() != null ? "?" + request.getQueryString() : "");
+        // La misma URL puede negociar JSON o binario: el Accept entra en el ETag para no mezclar representaciones
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept != null) {
+            resource += "|" + accept;
+        }
+        String etag = "\"" + BOOT_EPOCH + "-v" + version + "-" + Integer.toHexString(resource.hashCode()) + "\"";
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        return !new ServletWebRequest(request, response).checkNotModified(etag, ingestionHub.getLastCommitMillis());
+    }
+}
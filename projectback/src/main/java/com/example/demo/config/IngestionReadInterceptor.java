@@ -0,0 +1,86 @@
+package com.example.demo.config;
+
+import java.io.IOException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import com.example.demo.service.ingest.IngestionHub;
+
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Retiene las lecturas (GET/HEAD) mientras {@link IngestionHub} reinicia y rellena los receptores, de modo que
+ * ninguna respuesta mezcla estado vacío o parcial de una recarga. Las escrituras no pasan por aquí: POST /load-json
+ * dispara la recarga y no puede esperar a su propia vista. Las respuestas en streaming leen de la base de datos
+ * y sueltan la vista al pasar a asíncrono.
+ */
+@Component
+public class IngestionReadInterceptor implements AsyncHandlerInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(IngestionReadInterceptor.class);
+
+    private static final String VIEW_ATTRIBUTE = IngestionReadInterceptor.class.getName() + ".view";
+
+    private final IngestionHub ingestionHub;
+    private final long maxWaitMillis;
+    private final long retryAfterSeconds;
+
+    public IngestionReadInterceptor(IngestionHub ingestionHub,
+                                    @Value("${app.ingestion.read-wait-ms:5000}") long maxWaitMillis,
+                                    @Value("${app.admission.retry-after-seconds:2}") long retryAfterSeconds) {
+        this.ingestionHub = ingestionHub;
+        this.maxWaitMillis = Math.max(0, maxWaitMillis);
+        this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+    }
+
+    @Override
+    public boolean preHandle(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                             @NonNull Object handler) throws IOException {
+        if (request.getDispatcherType() != DispatcherType.REQUEST
+                || !("GET".equals(request.getMethod()) || "HEAD".equals(request.getMethod()))) {
+            return true;
+        }
+        if (!ingestionHub.acquireReadView(maxWaitMillis)) {
+            logger.debug("⚠️ Lectura rechazada durante una recarga: {} {}", request.getMethod(), request.getRequestURI());
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.getWriter().write("{\"error\":\"Recarga de datos en curso\",\"retryAfterSeconds\":"
+                + retryAfterSeconds + "}");
+            return false;
+        }
+        request.setAttribute(VIEW_ATTRIBUTE, Boolean.TRUE);
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                               @NonNull Object handler) {
+        // El cerrojo de lectura pertenece al hilo de Tomcat: se suelta antes de que el cuerpo siga en otro hilo
+        release(request);
+    }
+
+    @Override
+    public void afterCompletion(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+                                @NonNull Object handler, @Nullable Exception ex) {
+        release(request);
+    }
+
+    private void release(HttpServletRequest request) {
+        if (request.getAttribute(VIEW_ATTRIBUTE) != null) {
+            request.removeAttribute(VIEW_ATTRIBUTE);
+            ingestionHub.releaseReadView();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.demo.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.lang.NonNull;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import lombok.RequiredArgsConstructor;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebMvcConfig implements WebMvcConfigurer {
+
+    private final IngestionReadInterceptor ingestionReadInterceptor;
+    private final ConditionalGetInterceptor conditionalGetInterceptor;
+    private final AdmissionControl admissionControl;
+
+    @Override
+    public void addInterceptors(@NonNull InterceptorRegistry registry) {
+        // Antes del ETag: durante una recarga la versión y los receptores se leen juntos cuando termina
+        registry.addInterceptor(ingestionReadInterceptor)
+                .addPathPatterns("/api/detections/**")
+                .excludePathPatterns(
+                    "/api/detections/test",
+                    "/api/detections/health",
+                    "/api/detections/stream",
+                    "/api/detections/stream/**"
+                )
+                .order(-1);
+
+        // Solo respuestas que dependen únicamente de los datos ingeridos; el resto cambia sin nueva versión
+        registry.addInterceptor(conditionalGetInterceptor)
+                .addPathPatterns("/api/detections/**")
+                .excludePathPatterns(
+                    "/api/detections/test",
+                    "/api/detections/health",
+                    "/api/detections/stream",
+                    "/api/detections/stream/**",
+                    "/api/detections/pipeline/**",
+                    "/api/detections/cluster/**"
+                )
+                .order(0);
+
+        // Después del ETag: un 304 no consume permisos. /count, /health y el flujo SSE nunca se limitan
+        if (admissionControl.isEnabled()) {
+            registry.addInterceptor(admissionControl.getHeavy())
+                    .addPathPatterns(admissionControl.getHeavyPaths())
+                    .order(1);
+            registry.addInterceptor(admissionControl.getStandard())
+                    .addPathPatterns("/api/detections/**")
+                    .excludePathPatterns(admissionControl.getHeavyPaths())
+                    .excludePathPatterns(
+                        "/api/detections/test",
+                        "/api/detections/health",
+                        "/api/detections/count",
+                        "/api/detections/stream",
+                        "/api/detections/stream/**"
+                    )
+                    .order(1);
+        }
+    }
+}
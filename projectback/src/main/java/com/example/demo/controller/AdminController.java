@@ -0,0 +1,88 @@
+package com.example.demo.controller;
+
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.example.demo.config.AdmissionControl;
+import com.example.demo.service.SingleFlight;
+import com.example.demo.service.strategy.AnalysisStrategyRegistry;
+
+import lombok.RequiredArgsConstructor;
+
+@RestController
+@RequestMapping("/api/admin")
+@CrossOrigin(origins = {"http://localhost:3000", "http://127.0.0.1:3000", "http://localhost:3001", "http://127.0.0.1:3001"})
+@RequiredArgsConstructor
+public class AdminController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdminController.class);
+    private final AnalysisStrategyRegistry strategyRegistry;
+    private final SingleFlight singleFlight;
+    private final AdmissionControl admissionControl;
+
+    // Endpoint para listar las estrategias registradas y si están habilitadas
+    @GetMapping("/strategies")
+    public ResponseEntity<List<Map<String, Object>>> getStrategies() {
+        logger.info("🧩 Solicitando estrategias registradas");
+        try {
+            return ResponseEntity.ok(strategyRegistry.describe());
+        } catch (Exception e) {
+            logger.error("❌ Error obteniendo estrategias: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    // Endpoint para habilitar o deshabilitar una estrategia en caliente
+    @PutMapping("/strategies/{name}")
+    public ResponseEntity<Map<String, Object>> setStrategyEnabled(
+            @PathVariable String name,
+            @RequestParam boolean enabled) {
+        logger.info("🧩 Cambiando estado de la estrategia {} a {}", name, enabled);
+        try {
+            Map<String, Object> result = strategyRegistry.setEnabled(name, enabled);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            logger.warn("⚠️ Estrategia inválida: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            logger.error("❌ Error cambiando estado de la estrategia: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    // Endpoint para ver cuántas peticiones analíticas se resolvieron uniéndose a un cálculo en curso
+    @GetMapping("/coalescing")
+    public ResponseEntity<Map<String, Object>> getCoalescing() {
+        logger.info("🔗 Solicitando métricas de coalescencia");
+        try {
+            return ResponseEntity.ok(singleFlight.getMetrics());
+        } catch (Exception e) {
+            logger.error("❌ Error obteniendo métricas de coalescencia: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    // Endpoint para ver permisos en uso, colas y rechazos del control de admisión por nivel
+    @GetMapping("/admission")
+    public ResponseEntity<Map<String, Object>> getAdmission() {
+        logger.info("🚦 Solicitando métricas del control de admisión");
+        try {
+            return ResponseEntity.ok(admissionControl.getMetrics());
+        } catch (Exception e) {
+            logger.error("❌ Error obteniendo métricas del control de admisión: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+}
@@ -5,16 +5,39 @@ import java.util.Map;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.example.demo.service.AggregateSnapshotService;
+import com.example.demo.service.AxleLoadService;
+import com.example.demo.service.ClusterAggregationService;
+import com.example.demo.service.DashboardService;
+import com.example.demo.service.CongestionDetectionService;
 import com.example.demo.service.DetectionAnalysisService;
+import com.example.demo.service.DetectionQueryService;
 import com.example.demo.service.JsonLoader;
+import com.example.demo.service.LaneFlowService;
+import com.example.demo.service.LiveMetricsStreamService;
+import com.example.demo.service.RealtimeMetricsService;
+import com.example.demo.service.SingleFlight;
+import com.example.demo.service.SpeedHistogramService;
+import com.example.demo.service.TemporalStreamService;
+import com.example.demo.service.VolumeForecastService;
+import com.example.demo.service.DTO.AggregateSnapshot;
+import com.example.demo.service.analytics.ColumnarBinaryFormat;
+import com.example.demo.service.client.PythonAnalyzeClient;
+import com.example.demo.service.strategy.StrategyPipeline;
 
 import lombok.RequiredArgsConstructor;
 
@@ -27,6 +50,21 @@ public class DetectionController {
     private static final Logger logger = LoggerFactory.getLogger(DetectionController.class);
     private final DetectionAnalysisService analysisService;
     private final JsonLoader jsonLoader;
+    private final RealtimeMetricsService realtimeMetricsService;
+    private final SpeedHistogramService speedHistogramService;
+    private final CongestionDetectionService congestionDetectionService;
+    private final DetectionQueryService detectionQueryService;
+    private final VolumeForecastService volumeForecastService;
+    private final AggregateSnapshotService aggregateSnapshotService;
+    private final ClusterAggregationService clusterAggregationService;
+    private final LaneFlowService laneFlowService;
+    private final StrategyPipeline strategyPipeline;
+    private final PythonAnalyzeClient pythonAnalyzeClient;
+    private final AxleLoadService axleLoadService;
+    private final LiveMetricsStreamService liveMetricsStreamService;
+    private final DashboardService dashboardService;
+    private final TemporalStreamService temporalStreamService;
+    private final SingleFlight singleFlight;
 
     // Endpoint básico de prueba
     @GetMapping("/test")
@@ -39,12 +77,39 @@ public class DetectionController {
         return ResponseEntity.ok(response);
     }
 
+    // Endpoint compuesto: todos los widgets del dashboard en un solo recorrido de los datos
+    @GetMapping("/dashboard")
+    public ResponseEntity<Map<String, Object>> getDashboard(
+            @RequestParam(required = false) String widgets,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(required = false) Integer maxPoints,
+            @RequestParam(required = false) String bucket,
+            @RequestParam(required = false) String method) {
+        logger.info("🧭 Solicitando dashboard (widgets={}, from={}, to={})", widgets, from, to);
+        try {
+            Map<String, Object> result = singleFlight.execute("dashboard",
+                () -> dashboardService.getDashboard(widgets, from, to, maxPoints, bucket, method),
+                widgets, from, to, maxPoints, bucket, method);
+            logger.info("✅ Dashboard obtenido exitosamente");
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            logger.warn("⚠️ Parámetros inválidos para el dashboard: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            logger.error("❌ Error obteniendo dashboard: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     // Endpoint para obtener el volumen total de vehículos
     @GetMapping("/volume/total")
-    public ResponseEntity<Map<String, Object>> getTotalVehicleVolume() {
+    public ResponseEntity<Map<String, Object>> getTotalVehicleVolume(
+            @RequestParam(defaultValue = "false") boolean parallel) {
         logger.info("📊 Solicitando volumen total de vehículos");
         try {
-            Map<String, Object> result = analysisService.getTotalVehicleVolume();
+            Map<String, Object> result = singleFlight.execute("volume/total",
+                () -> analysisService.getTotalVehicleVolume(parallel), parallel);
             logger.info("✅ Volumen total obtenido exitosamente: {}", result);
             return ResponseEntity.ok(result);
         } catch (Exception e) {
@@ -59,10 +124,12 @@ public class DetectionController {
 
     // Endpoint para obtener volumen por carril
     @GetMapping("/volume/by-lane")
-    public ResponseEntity<Map<String, Map<String, Integer>>> getVehicleVolumeByLane() {
+    public ResponseEntity<Map<String, Map<String, Integer>>> getVehicleVolumeByLane(
+            @RequestParam(defaultValue = "false") boolean parallel) {
         logger.info("🛣️ Solicitando volumen por carril");
         try {
-            Map<String, Map<String, Integer>> result = analysisService.getVehicleVolumeByLane();
+            Map<String, Map<String, Integer>> result = singleFlight.execute("volume/by-lane",
+                () -> analysisService.getVehicleVolumeByLane(parallel), parallel);
             logger.info("✅ Volumen por carril obtenido exitosamente");
             return ResponseEntity.ok(result);
         } catch (Exception e) {
@@ -73,10 +140,12 @@ public class DetectionController {
 
     // Endpoint para obtener patrones horarios
     @GetMapping("/patterns/hourly")
-    public ResponseEntity<Map<String, Integer>> getHourlyPatterns() {
+    public ResponseEntity<Map<String, Integer>> getHourlyPatterns(
+            @RequestParam(defaultValue = "false") boolean parallel) {
         logger.info("⏰ Solicitando patrones horarios");
         try {
-            Map<String, Integer> result = analysisService.getHourlyPatterns();
+            Map<String, Integer> result = singleFlight.execute("patterns/hourly",
+                () -> analysisService.getHourlyPatterns(parallel), parallel);
             logger.info("✅ Patrones horarios obtenidos exitosamente");
             return ResponseEntity.ok(result);
         } catch (Exception e) {
@@ -85,12 +154,33 @@ public class DetectionController {
         }
     }
 
+    // Endpoint para el patrón semanal (día de la semana × hora)
+    @GetMapping("/patterns/weekly")
+    public ResponseEntity<Map<String, Object>> getWeeklyPatterns(
+            @RequestParam(required = false) String lane) {
+        logger.info("📅 Solicitando patrón semanal");
+        try {
+            Map<String, Object> result = singleFlight.execute("patterns/weekly",
+                () -> analysisService.getWeeklyPatterns(lane), lane);
+            logger.info("✅ Patrón semanal obtenido exitosamente");
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            logger.warn("⚠️ Parámetros inválidos para patrón semanal: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            logger.error("❌ Error obteniendo patrón semanal: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     // Endpoint para obtener velocidad promedio por carril
     @GetMapping("/lanes/speed")
-    public ResponseEntity<Map<String, Double>> getAvgSpeedByLane() {
+    public ResponseEntity<Map<String, Double>> getAvgSpeedByLane(
+            @RequestParam(defaultValue = "false") boolean parallel) {
         logger.info("🚗 Solicitando velocidad promedio por carril");
         try {
-            Map<String, Double> result = analysisService.getAvgSpeedByLane();
+            Map<String, Double> result = singleFlight.execute("lanes/speed",
+                () -> analysisService.getAvgSpeedByLane(parallel), parallel);
             logger.info("✅ Velocidades por carril obtenidas exitosamente");
             return ResponseEntity.ok(result);
         } catch (Exception e) {
@@ -99,6 +189,27 @@ public class DetectionController {
         }
     }
 
+    // Endpoint para percentiles de velocidad por carril (p50/p85/p95 por defecto)
+    @GetMapping("/lanes/speed/percentiles")
+    public ResponseEntity<Map<String, Object>> getSpeedPercentiles(
+            @RequestParam(required = false) String lane,
+            @RequestParam(required = false) String p,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
+        logger.info("📊 Solicitando percentiles de velocidad (lane={}, p={}, from={}, to={})", lane, p, from, to);
+        try {
+            Map<String, Object> result = speedHistogramService.getPercentiles(lane, p, from, to);
+            logger.info("✅ Percentiles de velocidad obtenidos para {} carriles", result.size());
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            logger.warn("⚠️ Parámetros inválidos en percentiles de velocidad: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            logger.error("❌ Error obteniendo percentiles de velocidad: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     // Endpoint para obtener cuellos de botella
     @GetMapping("/lanes/bottlenecks")
     public ResponseEntity<Object[]> getBottlenecks() {
@@ -113,40 +224,360 @@ public class DetectionController {
         }
     }
 
+    // Flujo, densidad, ocupación y nivel de servicio por carril e intervalo
+    @GetMapping("/lanes/flow")
+    public ResponseEntity<Map<String, Object>> getLaneFlow(
+            @RequestParam(required = false) String lane,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
+        logger.info("🚥 Solicitando métricas de flujo por carril");
+        try {
+            Map<String, Object> result = laneFlowService.getLaneFlow(lane, from, to);
+            logger.info("✅ Métricas de flujo obtenidas exitosamente");
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            logger.warn("⚠️ Parámetros inválidos para flujo por carril: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            logger.error("❌ Error obteniendo métricas de flujo: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    // Endpoint para las métricas del pipeline de estrategias de análisis
+    @GetMapping("/pipeline/metrics")
+    public ResponseEntity<Map<String, Object>> getPipelineMetrics() {
+        logger.info("🧪 Solicitando métricas del pipeline de estrategias");
+        try {
+            Map<String, Object> result = strategyPipeline.getMetrics();
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            logger.error("❌ Error obteniendo métricas del pipeline: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    // Endpoint para el estado del cliente del servicio Python de análisis
+    @GetMapping("/pipeline/python")
+    public ResponseEntity<Map<String, Object>> getPythonClientMetrics() {
+        logger.info("🐍 Solicitando métricas del cliente de análisis Python");
+        try {
+            Map<String, Object> result = pythonAnalyzeClient.getMetrics();
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            logger.error("❌ Error obteniendo métricas del cliente Python: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    // Endpoint para ejes y carga equivalente (ESAL) acumulados por carril y día
+    @GetMapping("/axles")
+    public ResponseEntity<Map<String, Object>> getAxleLoad(
+            @RequestParam(required = false) String lane,
+            @RequestParam(required = false) String day) {
+        logger.info("🔧 Solicitando carga por ejes");
+        try {
+            Map<String, Object> result = axleLoadService.getAxleLoad(lane, day);
+            logger.info("✅ Carga por ejes obtenida exitosamente");
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            logger.warn("⚠️ Parámetros inválidos para carga por ejes: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            logger.error("❌ Error obteniendo carga por ejes: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    // Endpoint SSE con el estado completo al conectar y deltas de métricas en cada carga
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamLiveMetrics() {
+        logger.debug("📡 Nuevo cliente del flujo en vivo");
+        try {
+            return ResponseEntity.ok(liveMetricsStreamService.subscribe());
+        } catch (IllegalStateException e) {
+            logger.warn("⚠️ Flujo en vivo saturado: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        } catch (Exception e) {
+            logger.error("❌ Error abriendo el flujo en vivo: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    // Endpoint para el estado del flujo en vivo (clientes, eventos enviados y descartes)
+    @GetMapping("/stream/stats")
+    public ResponseEntity<Map<String, Object>> getStreamStats() {
+        logger.info("📡 Solicitando estado del flujo en vivo");
+        try {
+            return ResponseEntity.ok(liveMetricsStreamService.getStats());
+        } catch (Exception e) {
+            logger.error("❌ Error obteniendo estado del flujo en vivo: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    // Endpoint para el estado actual de congestión de cada carril
+    @GetMapping("/lanes/congestion")
+    public ResponseEntity<Object[]> getCongestionStates() {
+        logger.info("🚦 Solicitando estado de congestión por carril");
+        try {
+            Object[] result = congestionDetectionService.getCurrentStates().values().stream()
+                .map(CongestionDetectionService.LaneState::toMap)
+                .toArray();
+            logger.info("✅ Estado de congestión obtenido para {} carriles", result.length);
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            logger.error("❌ Error obteniendo estado de congestión: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    // Endpoint para el registro de incidentes de congestión (más recientes primero)
+    @GetMapping("/lanes/incidents")
+    public ResponseEntity<Object[]> getCongestionIncidents(
+            @RequestParam(required = false) String lane,
+            @RequestParam(defaultValue = "50") int limit) {
+        logger.info("🚧 Solicitando incidentes de congestión (lane={}, limit={})", lane, limit);
+        try {
+            Object[] result = congestionDetectionService.getIncidents(lane, Math.max(0, limit)).toArray();
+            logger.info("✅ Incidentes de congestión obtenidos: {} elementos", result.length);
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            logger.error("❌ Error obteniendo incidentes de congestión: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     // Endpoint para evolución temporal del tráfico
     @GetMapping("/temporal/evolution")
-    public ResponseEntity<Map<String, Object>> getTrafficEvolution() {
-        logger.info("📈 Solicitando evolución temporal del tráfico");
+    public ResponseEntity<Map<String, Object>> getTrafficEvolution(
+            @RequestParam(required = false) Integer maxPoints,
+            @RequestParam(required = false) String bucket,
+            @RequestParam(required = false) String method) {
+        logger.info("📈 Solicitando evolución temporal del tráfico (maxPoints={}, bucket={}, method={})", maxPoints, bucket, method);
         try {
-            Map<String, Object> result = analysisService.getTrafficEvolution();
+            Map<String, Object> result = singleFlight.execute("temporal/evolution",
+                () -> analysisService.getTrafficEvolution(maxPoints, bucket, method), maxPoints, bucket, method);
             logger.info("✅ Evolución temporal obtenida exitosamente");
             return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            logger.warn("⚠️ Parámetros inválidos en evolución temporal: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             logger.error("❌ Error obteniendo evolución temporal: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
+    // Misma serie en binario columnar (timestamps en delta, valores float32) si el cliente lo pide por Accept
+    @GetMapping(value = "/temporal/evolution", produces = ColumnarBinaryFormat.MEDIA_TYPE_VALUE)
+    public ResponseEntity<byte[]> getTrafficEvolutionBinary(
+            @RequestParam(required = false) Integer maxPoints,
+            @RequestParam(required = false) String bucket,
+            @RequestParam(required = false) String method) {
+        logger.info("📈 Solicitando evolución temporal del tráfico en binario (maxPoints={}, bucket={}, method={})", maxPoints, bucket, method);
+        try {
+            byte[] result = singleFlight.execute("temporal/evolution.bin",
+                () -> analysisService.getTrafficEvolutionBinary(maxPoints, bucket, method), maxPoints, bucket, method);
+            return ResponseEntity.ok().contentType(MediaType.parseMediaType(ColumnarBinaryFormat.MEDIA_TYPE_VALUE)).body(result);
+        } catch (IllegalArgumentException e) {
+            logger.warn("⚠️ Parámetros inválidos en evolución temporal en binario: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            logger.error("❌ Error obteniendo evolución temporal en binario: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    // Misma serie por filas, escrita a medida que se lee el cursor; sin maxPoints/method porque necesitan la serie completa
+    @GetMapping(value = "/temporal/evolution", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamTrafficEvolution(
+            @RequestParam(required = false) Integer maxPoints,
+            @RequestParam(required = false) String bucket,
+            @RequestParam(required = false) String method,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        logger.info("📈 Solicitando evolución temporal del tráfico en streaming (bucket={})", bucket);
+        try {
+            if (maxPoints != null || method != null) {
+                throw new IllegalArgumentException("maxPoints y method no están disponibles con stream=true");
+            }
+            if (!acceptsJson(accept)) {
+                // El streaming solo escribe JSON por filas; el binario columnar necesita la serie completa
+                logger.warn("⚠️ Evolución temporal en streaming no disponible para Accept: {}", accept);
+                return ResponseEntity.status(HttpStatus.NOT_ACCEPTABLE).build();
+            }
+            StreamingResponseBody body = temporalStreamService.streamTrafficEvolution(bucket);
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+        } catch (IllegalArgumentException e) {
+            logger.warn("⚠️ Parámetros inválidos en evolución temporal en streaming: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            logger.error("❌ Error iniciando evolución temporal en streaming: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     // Endpoint para evolución de velocidad
     @GetMapping("/temporal/speed")
-    public ResponseEntity<Map<String, Object>> getSpeedEvolution() {
-        logger.info("🏎️ Solicitando evolución de velocidad");
+    public ResponseEntity<Map<String, Object>> getSpeedEvolution(
+            @RequestParam(required = false) Integer maxPoints,
+            @RequestParam(required = false) String bucket,
+            @RequestParam(required = false) String method) {
+        logger.info("🏎️ Solicitando evolución de velocidad (maxPoints={}, bucket={}, method={})", maxPoints, bucket, method);
         try {
-            Map<String, Object> result = analysisService.getSpeedEvolution();
+            Map<String, Object> result = singleFlight.execute("temporal/speed",
+                () -> analysisService.getSpeedEvolution(maxPoints, bucket, method), maxPoints, bucket, method);
             logger.info("✅ Evolución de velocidad obtenida exitosamente");
             return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            logger.warn("⚠️ Parámetros inválidos en evolución de velocidad: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             logger.error("❌ Error obteniendo evolución de velocidad: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
+    // Misma serie en binario columnar (timestamps en delta, valores float32) si el cliente lo pide por Accept
+    @GetMapping(value = "/temporal/speed", produces = ColumnarBinaryFormat.MEDIA_TYPE_VALUE)
+    public ResponseEntity<byte[]> getSpeedEvolutionBinary(
+            @RequestParam(required = false) Integer maxPoints,
+            @RequestParam(required = false) String bucket,
+            @RequestParam(required = false) String method) {
+        logger.info("🏎️ Solicitando evolución de velocidad en binario (maxPoints={}, bucket={}, method={})", maxPoints, bucket, method);
+        try {
+            byte[] result = singleFlight.execute("temporal/speed.bin",
+                () -> analysisService.getSpeedEvolutionBinary(maxPoints, bucket, method), maxPoints, bucket, method);
+            return ResponseEntity.ok().contentType(MediaType.parseMediaType(ColumnarBinaryFormat.MEDIA_TYPE_VALUE)).body(result);
+        } catch (IllegalArgumentException e) {
+            logger.warn("⚠️ Parámetros inválidos en evolución de velocidad en binario: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            logger.error("❌ Error obteniendo evolución de velocidad en binario: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    // Misma serie por filas, escrita a medida que se lee el cursor; sin maxPoints/method porque necesitan la serie completa
+    @GetMapping(value = "/temporal/speed", params = "stream=true")
+    public ResponseEntity<StreamingResponseBody> streamSpeedEvolution(
+            @RequestParam(required = false) Integer maxPoints,
+            @RequestParam(required = false) String bucket,
+            @RequestParam(required = false) String method,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept) {
+        logger.info("🏎️ Solicitando evolución de velocidad en streaming (bucket={})", bucket);
+        try {
+            if (maxPoints != null || method != null) {
+                throw new IllegalArgumentException("maxPoints y method no están disponibles con stream=true");
+            }
+            if (!acceptsJson(accept)) {
+                // El streaming solo escribe JSON por filas; el binario columnar necesita la serie completa
+                logger.warn("⚠️ Evolución de velocidad en streaming no disponible para Accept: {}", accept);
+                return ResponseEntity.status(HttpStatus.NOT_ACCEPTABLE).build();
+            }
+            StreamingResponseBody body = temporalStreamService.streamSpeedEvolution(bucket);
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+        } catch (IllegalArgumentException e) {
+            logger.warn("⚠️ Parámetros inválidos en evolución de velocidad en streaming: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            logger.error("❌ Error iniciando evolución de velocidad en streaming: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    // Endpoint para métricas en tiempo real (ventanas deslizantes de 1, 5 y 15 minutos)
+    @GetMapping("/realtime")
+    public ResponseEntity<Map<String, Object>> getRealtimeMetrics() {
+        logger.info("⏱️ Solicitando métricas en tiempo real");
+        try {
+            Map<String, Object> result = realtimeMetricsService.getRealtimeMetrics();
+            logger.info("✅ Métricas en tiempo real obtenidas exitosamente");
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            logger.error("❌ Error obteniendo métricas en tiempo real: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    // Consulta group-by ad hoc sobre el almacén columnar en memoria
+    @GetMapping("/query")
+    public ResponseEntity<Map<String, Object>> query(
+            @RequestParam(required = false) String dimensions,
+            @RequestParam(required = false) String measures,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
+        logger.info("🧮 Consulta ad hoc: dimensiones={}, medidas={}", dimensions, measures);
+        try {
+            Map<String, Object> result = detectionQueryService.query(dimensions, measures, from, to);
+            logger.info("✅ Consulta ad hoc resuelta exitosamente");
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            logger.warn("⚠️ Consulta ad hoc inválida: {}", e.getMessage());
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Consulta inválida");
+            errorResponse.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(errorResponse);
+        } catch (Exception e) {
+            logger.error("❌ Error resolviendo consulta ad hoc: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    // Pronóstico de volumen por carril para los próximos minutos
+    @GetMapping("/forecast")
+    public ResponseEntity<Map<String, Object>> getForecast(
+            @RequestParam(required = false) String lane,
+            @RequestParam(defaultValue = "15") int horizon) {
+        logger.info("🔮 Solicitando pronóstico de volumen (horizonte {} min)", horizon);
+        try {
+            Map<String, Object> result = volumeForecastService.getForecast(lane, horizon);
+            logger.info("✅ Pronóstico de volumen obtenido exitosamente");
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            logger.warn("⚠️ Parámetros inválidos para pronóstico: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            logger.error("❌ Error obteniendo pronóstico de volumen: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    // Snapshot combinable de los agregados de este nodo (lo consultan los nodos agregadores)
+    @GetMapping("/snapshot")
+    public ResponseEntity<AggregateSnapshot> getSnapshot() {
+        logger.info("🧩 Solicitando snapshot de agregados del nodo");
+        try {
+            AggregateSnapshot result = aggregateSnapshotService.snapshot();
+            logger.info("✅ Snapshot de agregados generado exitosamente");
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            logger.error("❌ Error generando snapshot de agregados: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    // Resumen de ciudad combinando el nodo local con los nodos pares configurados
+    @GetMapping("/cluster/summary")
+    public ResponseEntity<Map<String, Object>> getClusterSummary(
+            @RequestParam(defaultValue = "true") boolean includeLocal) {
+        logger.info("🌐 Solicitando resumen de clúster");
+        try {
+            Map<String, Object> result = clusterAggregationService.getClusterSummary(includeLocal);
+            logger.info("✅ Resumen de clúster obtenido exitosamente");
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            logger.error("❌ Error obteniendo resumen de clúster: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     // Endpoint para dominancia de tipos de vehículos
     @GetMapping("/vehicle-types/dominance")
     public ResponseEntity<Map<String, Double>> getVehicleTypeDominance() {
         logger.info("🚙 Solicitando dominancia de tipos de vehículos");
         try {
-            Map<String, Double> result = analysisService.getVehicleTypeDominance();
+            Map<String, Double> result = singleFlight.execute("dominance", analysisService::getVehicleTypeDominance);
             logger.info("✅ Dominancia de tipos obtenida exitosamente");
             return ResponseEntity.ok(result);
         } catch (Exception e) {
@@ -222,25 +653,56 @@ public class DetectionController {
     }
 
     @GetMapping("/structures/queue")
-    public ResponseEntity<Object[]> getQueueData() {
-        logger.info("📋 Solicitando datos de cola");
+    public ResponseEntity<Object[]> getQueueData(
+            @RequestParam(defaultValue = "10") int k,
+            @RequestParam(defaultValue = "volume") String metric,
+            @RequestParam(required = false) String lane,
+            @RequestParam(defaultValue = "1m") String window,
+            @RequestParam(required = false) String day) {
+        logger.info("📋 Solicitando datos de cola (top {} por {})", k, metric);
         try {
-            Object[] result = analysisService.getQueueData();
+            Object[] result = analysisService.getQueueData(k, metric, lane, window, day);
             logger.info("✅ Datos de cola obtenidos exitosamente: {} elementos", result.length);
             return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            logger.warn("⚠️ Parámetros inválidos para cola: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             logger.error("❌ Error obteniendo datos de cola: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
+    // Últimas detecciones ingeridas, servidas desde el buffer circular en memoria
+    @GetMapping("/recent")
+    public ResponseEntity<Map<String, Object>> getRecentDetections(
+            @RequestParam(defaultValue = "50") int limit) {
+        logger.info("🔁 Solicitando detecciones recientes (limit={})", limit);
+        try {
+            Map<String, Object> result = analysisService.getRecentDetections(limit);
+            logger.info("✅ Detecciones recientes obtenidas exitosamente");
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            logger.warn("⚠️ Parámetros inválidos para detecciones recientes: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            logger.error("❌ Error obteniendo detecciones recientes: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
     @GetMapping("/structures/tree")
-    public ResponseEntity<Map<String, Object>> getTreeData() {
+    public ResponseEntity<Map<String, Object>> getTreeData(
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
         logger.info("🌳 Solicitando datos de árbol");
         try {
-            Map<String, Object> result = analysisService.getTreeData();
+            Map<String, Object> result = analysisService.getTreeData(from, to);
             logger.info("✅ Datos de árbol obtenidos exitosamente");
             return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            logger.warn("⚠️ Parámetros inválidos para árbol: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             logger.error("❌ Error obteniendo datos de árbol: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -278,7 +740,7 @@ public class DetectionController {
     public ResponseEntity<Map<String, Object>> getAnalysisSummary() {
         logger.info("📋 Solicitando resumen de análisis");
         try {
-            Map<String, Object> result = analysisService.getAnalysisSummary();
+            Map<String, Object> result = singleFlight.execute("analysis/summary", analysisService::getAnalysisSummary);
             logger.info("✅ Resumen de análisis obtenido exitosamente");
             return ResponseEntity.ok(result);
         } catch (Exception e) {
@@ -322,8 +784,10 @@ public class DetectionController {
     public ResponseEntity<Map<String, Object>> getQuickStats() {
         logger.info("📊 Solicitando estadísticas rápidas");
         try {
-            Map<String, Object> totalVolume = analysisService.getTotalVehicleVolume();
-            Map<String, Double> avgSpeeds = analysisService.getAvgSpeedByLane();
+            Map<String, Object> totalVolume = singleFlight.execute("volume/total",
+                () -> analysisService.getTotalVehicleVolume(false), false);
+            Map<String, Double> avgSpeeds = singleFlight.execute("lanes/speed",
+                () -> analysisService.getAvgSpeedByLane(false), false);
             long totalDetections = analysisService.getTotalDetections();
             
             @SuppressWarnings("unchecked")
@@ -363,6 +827,14 @@ public class DetectionController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
+
+    // Sin Accept se acepta todo; un Accept que no admite JSON (por ejemplo, solo el binario columnar) no se puede servir
+    private static boolean acceptsJson(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return true;
+        }
+        return MediaType.parseMediaTypes(accept).stream().anyMatch(type -> type.isCompatibleWith(MediaType.APPLICATION_JSON));
+    }
 }
 
 //findetection
\ No newline at end of file
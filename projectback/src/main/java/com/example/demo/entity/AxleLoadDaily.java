@@ -0,0 +1,44 @@
+package com.example.demo.entity;
+
+import java.time.LocalDate;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Conteo acumulado de ejes y carga equivalente por carril y día local
+@Entity
+@Table(name = "axle_load_daily", uniqueConstraints = @UniqueConstraint(columnNames = {"lane", "load_date"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class AxleLoadDaily {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "lane", length = 50, nullable = false)
+    private String lane;
+
+    @Column(name = "load_date", nullable = false)
+    private LocalDate loadDate;
+
+    @Column(name = "vehicles")
+    private Long vehicles;
+
+    @Column(name = "axles")
+    private Long axles;
+
+    @Column(name = "esal")
+    private Double esal;
+}
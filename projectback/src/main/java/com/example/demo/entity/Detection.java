@@ -1,5 +1,7 @@
 package com.example.demo.entity;
 
+import java.time.LocalDate;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
@@ -37,4 +39,20 @@ public class Detection {
     
     @Column(name = "avg_speed_by_lane", columnDefinition = "TEXT")
     private String avgSpeedByLane;
+
+    // Dimensión de calendario calculada en la ingesta a partir de la fecha local del detector
+    @Column(name = "local_date")
+    private LocalDate localDate;
+
+    @Column(name = "day_of_week")
+    private Integer dayOfWeek;
+
+    @Column(name = "hour_of_day")
+    private Integer hourOfDay;
+
+    @Column(name = "weekend")
+    private Boolean weekend;
+
+    @Column(name = "holiday")
+    private Boolean holiday;
 }
\ No newline at end of file
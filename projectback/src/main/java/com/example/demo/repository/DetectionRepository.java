@@ -1,14 +1,19 @@
 package com.example.demo.repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.example.demo.entity.Detection;
 
+import jakarta.persistence.QueryHint;
+
 @Repository
 public interface DetectionRepository extends JpaRepository<Detection, Long> {
     
@@ -20,10 +25,30 @@ public interface DetectionRepository extends JpaRepository<Detection, Long> {
     @Query("SELECT d FROM Detection d WHERE d.timestampMs BETWEEN :startTime AND :endTime ORDER BY d.timestampMs ASC")
     List<Detection> findByTimestampRange(@Param("startTime") Long startTime, @Param("endTime") Long endTime);
     
+    // Detecciones en el rango [startTime, endTime) usado por las particiones de la agregación paralela
+    List<Detection> findByTimestampMsGreaterThanEqualAndTimestampMsLessThan(Long startTime, Long endTime);
+    
+    // Límites del rango de timestamps almacenado
+    @Query("SELECT MIN(d.timestampMs) FROM Detection d")
+    Long findMinTimestamp();
+    
+    @Query("SELECT MAX(d.timestampMs) FROM Detection d")
+    Long findMaxTimestamp();
+    
     // Obtener todas las detecciones ordenadas por timestamp ascendente
     @Query("SELECT d FROM Detection d ORDER BY d.timestampMs ASC")
     List<Detection> findAllOrderByTimestamp();
     
+    // Recorrido ordenado por timestamp con cursor; requiere una transacción abierta mientras se consume
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT d.timestampMs AS timestampMs, d.date AS date, d.objectsTotal AS objectsTotal, d.avgSpeedByLane AS avgSpeedByLane FROM Detection d ORDER BY d.timestampMs ASC")
+    Stream<DetectionSeriesRow> streamSeriesRowsOrderByTimestamp();
+    
+    // Igual que el anterior pero con el conteo por carril, para el recorrido único del dashboard
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT d.timestampMs AS timestampMs, d.date AS date, d.objectsTotal AS objectsTotal, d.objectsByLane AS objectsByLane, d.avgSpeedByLane AS avgSpeedByLane FROM Detection d ORDER BY d.timestampMs ASC")
+    Stream<DetectionRow> streamRowsOrderByTimestamp();
+    
     // Obtener detecciones por fecha específica
     @Query("SELECT d FROM Detection d WHERE d.date LIKE :datePattern ORDER BY d.timestampMs ASC")
     List<Detection> findByDatePattern(@Param("datePattern") String datePattern);
@@ -0,0 +1,10 @@
+package com.example.demo.repository;
+
+/**
+ * Proyección de solo lectura con todas las columnas de datos de una detección,
+ * para recorridos que alimentan varios agregados a la vez
+ */
+public interface DetectionRow extends DetectionSeriesRow {
+
+    String getObjectsByLane();
+}
@@ -0,0 +1,16 @@
+package com.example.demo.repository;
+
+/**
+ * Proyección de solo lectura con las columnas necesarias para las series temporales.
+ * Al no ser entidades gestionadas, el contexto de persistencia no crece durante el recorrido.
+ */
+public interface DetectionSeriesRow {
+
+    Long getTimestampMs();
+
+    String getDate();
+
+    String getObjectsTotal();
+
+    String getAvgSpeedByLane();
+}
@@ -0,0 +1,106 @@
+package com.example.demo.service;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.service.DTO.AggregateSnapshot;
+import com.example.demo.service.DTO.DetectionJson;
+import com.example.demo.service.analytics.DetectionTimes;
+import com.example.demo.service.analytics.SpeedHistogram;
+import com.example.demo.service.analytics.TrafficAggregate;
+import com.example.demo.service.ingest.IngestionListener;
+
+/**
+ * Agregado vivo del nodo, mantenido en la ingesta, y su exportación como {@link AggregateSnapshot}
+ * combinable con los de otros nodos. Los totales cubren el historial completo; los vehículos por minuto, que
+ * solo sirven para el top-K de minutos pico, se limitan a la ventana de {@code app.cluster.peak-window-hours}
+ * hasta el minuto más reciente, para que el snapshot que viaja en cada consulta del clúster no crezca sin fin.
+ */
+@Service
+public class AggregateSnapshotService implements IngestionListener {
+
+    private static final long MINUTE_MILLIS = 60_000L;
+
+    private final String nodeId;
+    private final int topK;
+    private final long peakWindowMillis;
+    private final SpeedHistogramService speedHistogramService;
+
+    private TrafficAggregate aggregate = new TrafficAggregate();
+    // Inicio del minuto -> vehículos; disperso, solo minutos con tráfico
+    private TreeMap<Long, Long> minuteVolumes = new TreeMap<>();
+
+    public AggregateSnapshotService(@Value("${app.cluster.node-id:local}") String nodeId,
+                                    @Value("${app.cluster.top-k:10}") int topK,
+                                    @Value("${app.cluster.peak-window-hours:168}") int peakWindowHours,
+                                    SpeedHistogramService speedHistogramService) {
+        this.nodeId = nodeId;
+        this.topK = Math.max(1, topK);
+        this.peakWindowMillis = Math.max(1, peakWindowHours) * 3_600_000L;
+        this.speedHistogramService = speedHistogramService;
+    }
+
+    @Override
+    public synchronized void onReset() {
+        aggregate = new TrafficAggregate();
+        minuteVolumes = new TreeMap<>();
+    }
+
+    @Override
+    public synchronized void onDetection(DetectionJson detection) {
+        aggregate.accept(detection);
+        long time = DetectionTimes.toEpochMillis(detection.getDate());
+        if (time != DetectionTimes.UNKNOWN && detection.getObjects_total() != null) {
+            long vehicles = detection.getObjects_total().values().stream()
+                .filter(count -> count != null && count > 0)
+                .mapToLong(Integer::longValue)
+                .sum();
+            long minute = DetectionTimes.floorToBucket(time, MINUTE_MILLIS);
+            if (vehicles > 0 && (minuteVolumes.isEmpty() || minute > minuteVolumes.lastKey() - peakWindowMillis)) {
+                minuteVolumes.merge(minute, vehicles, Long::sum);
+                // La ventana avanza con el minuto más reciente y suelta los que quedaron atrás
+                long oldest = minuteVolumes.lastKey() - peakWindowMillis;
+                while (minuteVolumes.firstKey() <= oldest) {
+                    minuteVolumes.pollFirstEntry();
+                }
+            }
+        }
+    }
+
+    /**
+     * Snapshot de este nodo (solo datos locales)
+     */
+    public AggregateSnapshot snapshot() {
+        AggregateSnapshot snapshot = new AggregateSnapshot();
+        snapshot.getNodes().add(nodeId);
+        synchronized (this) {
+            snapshot.setDetections(aggregate.getDetections());
+            snapshot.getTotals().putAll(aggregate.getTotals());
+            aggregate.getByLane().forEach((lane, counts) -> snapshot.getByLane().put(lane, new TreeMap<>(counts)));
+            snapshot.setHourly(aggregate.getHourly().clone());
+            aggregate.getSpeedByLane().forEach((lane, stats) -> snapshot.getSpeedByLane()
+                .put(lane, new AggregateSnapshot.LaneSpeed(stats.getSum(), stats.getCount(), null)));
+            minuteVolumes.forEach((minute, vehicles) -> snapshot.getMinuteVolumes().put(DetectionTimes.format(minute), vehicles));
+
+            // Dentro del mismo bloqueo, para que los histogramas correspondan a las mismas sumas de velocidad
+            Map<String, SpeedHistogram> histograms = speedHistogramService.getHistograms(null, null, null);
+            histograms.forEach((lane, histogram) -> {
+                AggregateSnapshot.LaneSpeed speed = snapshot.getSpeedByLane().get(lane);
+                if (speed != null) {
+                    speed.setHistogram(histogram.getCounts());
+                }
+            });
+        }
+
+        snapshot.setTopK(topK);
+        snapshot.refreshTopIntervals();
+        return snapshot;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+}
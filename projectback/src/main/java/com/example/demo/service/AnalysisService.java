@@ -1,86 +1,46 @@
 package com.example.demo.service;
 
+import java.util.Map;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import com.example.demo.service.DTO.DetectionJson;
+import com.example.demo.service.strategy.AnalysisStrategyRegistry;
+
+import lombok.RequiredArgsConstructor;
 
+/**
+ * Análisis puntual de una detección con la estrategia indicada. La ingesta no pasa por aquí:
+ * las estrategias configuradas se ejecutan en {@link com.example.demo.service.strategy.StrategyPipeline}.
+ */
 @Service
+@RequiredArgsConstructor
 public class AnalysisService {
     
     private static final Logger logger = LoggerFactory.getLogger(AnalysisService.class);
 
+    // Nombres cortos históricos -> nombre registrado de la estrategia
+    private static final Map<String, String> ALIASES = Map.of(
+        "vehicle", "vehicleDetection",
+        "axle", "axleCount"
+    );
+
+    private final AnalysisStrategyRegistry strategyRegistry;
+
     public void processDetection(String strategyType, DetectionJson detection) {
         try {
             logger.debug("🔍 Procesando detección tipo: {} con timestamp: {}", 
                         strategyType, detection.getTimestamp_ms());
             
-            // Análisis simplificado sin pattern Strategy usando rule switch
-            switch (strategyType.toLowerCase()) {
-                case "vehicle" -> processVehicleDetection(detection);
-                case "axle" -> processAxleCount(detection);
-                default -> logger.debug("⚠️ Tipo de análisis no reconocido: {}", strategyType);
-            }
+            String strategyName = ALIASES.getOrDefault(strategyType.toLowerCase(), strategyType);
+            strategyRegistry.getStrategy(strategyName).analyze(detection);
             
+        } catch (IllegalArgumentException e) {
+            logger.debug("⚠️ Tipo de análisis no reconocido: {}", strategyType);
         } catch (Exception e) {
             logger.error("❌ Error procesando detección: {}", e.getMessage());
         }
     }
-    
-    private void processVehicleDetection(DetectionJson detection) {
-        try {
-            if (detection.getObjects_total() != null) {
-                int totalVehicles = detection.getObjects_total().values().stream()
-                    .filter(count -> count != null)  // Filtrar nulls para seguridad
-                    .mapToInt(Integer::intValue)
-                    .sum();
-                logger.debug("🚗 Total de vehículos: {}", totalVehicles);
-            }
-            
-            if (detection.getAvg_speed_by_lane() != null) {
-                detection.getAvg_speed_by_lane().forEach((lane, speed) -> {
-                    if (speed != null) {  // Verificar null para seguridad
-                        logger.debug("🛣️ Velocidad en {}: {:.2f} km/h", lane, speed);
-                    }
-                });
-            }
-            
-        } catch (Exception e) {
-            logger.warn("⚠️ Error en análisis de vehículos: {}", e.getMessage());
-        }
-    }
-    
-    private void processAxleCount(DetectionJson detection) {
-        logger.debug("🔧 Procesando conteo de ejes para timestamp: {}", detection.getTimestamp_ms());
-        // Implementación futura para conteo de ejes
-        
-        // Ejemplo de implementación básica para conteo de ejes
-        try {
-            if (detection.getObjects_total() != null) {
-                // Asumiendo que cada vehículo tiene un número promedio de ejes
-                int estimatedAxles = detection.getObjects_total().entrySet().stream()
-                    .filter(entry -> entry.getValue() != null)
-                    .mapToInt(entry -> {
-                        String vehicleType = entry.getKey();
-                        int count = entry.getValue();
-                        
-                        // Estimación de ejes por tipo de vehículo
-                        int axlesPerVehicle = switch (vehicleType.toLowerCase()) {
-                            case "car" -> 2;
-                            case "bus" -> 3;
-                            case "truck" -> 4;
-                            default -> 2;
-                        };
-                        
-                        return count * axlesPerVehicle;
-                    })
-                    .sum();
-                
-                logger.debug("🔧 Ejes estimados: {}", estimatedAxles);
-            }
-        } catch (Exception e) {
-            logger.warn("⚠️ Error en conteo de ejes: {}", e.getMessage());
-        }
-    }
-}
\ No newline at end of file
+}
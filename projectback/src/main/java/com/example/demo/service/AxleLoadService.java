@@ -0,0 +1,213 @@
+package com.example.demo.service;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.demo.entity.AxleLoadDaily;
+import com.example.demo.repository.AxleLoadDailyRepository;
+import com.example.demo.service.DTO.DetectionJson;
+import com.example.demo.service.ingest.IngestionListener;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Ejes y carga equivalente (ESAL) acumulados por carril y día local, calculados en la ingesta con la
+ * {@link AxleTable}. Los contadores viven en memoria y se persisten en {@code axle_load_daily} al confirmar
+ * cada carga; al arrancar se leen de la tabla para servir datos antes de la primera ingesta.
+ */
+@Service
+public class AxleLoadService implements IngestionListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(AxleLoadService.class);
+
+    private final AxleTable axleTable;
+    private final CalendarService calendarService;
+    private final AxleLoadDailyRepository repository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Map<String, Map<LocalDate, Counter>> daily = new HashMap<>();
+    private final Map<String, Counter> laneTotals = new HashMap<>();
+
+    public AxleLoadService(AxleTable axleTable,
+                           CalendarService calendarService,
+                           AxleLoadDailyRepository repository,
+                           PlatformTransactionManager transactionManager) {
+        this.axleTable = axleTable;
+        this.calendarService = calendarService;
+        this.repository = repository;
+        // La ingesta avisa después de confirmar su transacción, así que la escritura necesita una propia
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @PostConstruct
+    public void loadFromDatabase() {
+        try {
+            List<AxleLoadDaily> rows = repository.findAll();
+            synchronized (this) {
+                rows.forEach(row -> counter(row.getLane(), row.getLoadDate())
+                    .add(value(row.getVehicles()), value(row.getAxles()), row.getEsal() == null ? 0.0 : row.getEsal()));
+            }
+            logger.info("🔧 {} registros de carga por ejes leídos de la base de datos", rows.size());
+        } catch (DataAccessException e) {
+            logger.warn("⚠️ No se pudo leer la carga por ejes guardada: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void onReset() {
+        daily.clear();
+        laneTotals.clear();
+    }
+
+    @Override
+    public synchronized void onDetection(DetectionJson detection) {
+        if (detection.getObjects_by_lane() == null) {
+            return;
+        }
+        CalendarService.CalendarInfo calendar = calendarService.classify(detection.getDate());
+        if (calendar == null) {
+            return;
+        }
+        detection.getObjects_by_lane().forEach((lane, vehicles) -> {
+            if (vehicles == null) {
+                return;
+            }
+            vehicles.forEach((type, count) -> {
+                if (count != null && count > 0) {
+                    AxleTable.Entry entry = axleTable.get(type);
+                    counter(lane, calendar.localDate()).add(count, (long) count * entry.axles(), count * entry.esal());
+                }
+            });
+        });
+    }
+
+    @Override
+    public void onCommit(long dataVersion) {
+        List<AxleLoadDaily> rows = new ArrayList<>();
+        synchronized (this) {
+            daily.forEach((lane, days) -> days.forEach((day, counter) -> rows.add(AxleLoadDaily.builder()
+                .lane(lane)
+                .loadDate(day)
+                .vehicles(counter.vehicles)
+                .axles(counter.axles)
+                .esal(counter.esal)
+                .build())));
+        }
+        try {
+            // Cada carga recalcula el historial completo, así que la tabla se reemplaza entera
+            transactionTemplate.executeWithoutResult(status -> {
+                repository.deleteAllInBatch();
+                repository.saveAll(rows);
+            });
+            logger.debug("🔧 {} registros de carga por ejes guardados (versión {})", rows.size(), dataVersion);
+        } catch (DataAccessException e) {
+            logger.warn("⚠️ No se pudo guardar la carga por ejes: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Totales por carril y detalle por día; con carril y día se devuelve solo ese contador
+     */
+    public synchronized Map<String, Object> getAxleLoad(String lane, String day) {
+        String laneName = lane == null || lane.isBlank() ? null : lane.trim();
+        LocalDate date = parseDay(day);
+        if (laneName != null && !daily.containsKey(laneName)) {
+            throw new IllegalArgumentException("Carril desconocido: " + lane);
+        }
+
+        Map<String, Object> lanes = new TreeMap<>();
+        daily.forEach((name, days) -> {
+            if (laneName != null && !laneName.equals(name)) {
+                return;
+            }
+            Map<String, Object> laneResult = new LinkedHashMap<>();
+            if (date != null) {
+                Counter counter = days.get(date);
+                laneResult.put("day", counter == null ? Counter.EMPTY.toMap() : counter.toMap());
+            } else {
+                laneResult.put("total", laneTotals.get(name).toMap());
+                Map<String, Object> byDay = new TreeMap<>();
+                days.forEach((key, counter) -> byDay.put(key.toString(), counter.toMap()));
+                laneResult.put("days", byDay);
+            }
+            lanes.put(name, laneResult);
+        });
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        if (date != null) {
+            result.put("date", date.toString());
+        }
+        result.put("axleTable", axleTable.describe());
+        result.put("lanes", lanes);
+        return result;
+    }
+
+    private Counter counter(String lane, LocalDate day) {
+        Counter total = laneTotals.computeIfAbsent(lane, k -> new Counter(null));
+        return daily.computeIfAbsent(lane, k -> new HashMap<>()).computeIfAbsent(day, k -> new Counter(total));
+    }
+
+    private static LocalDate parseDay(String day) {
+        if (day == null || day.isBlank()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(day.trim());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Día inválido (se espera yyyy-MM-dd): " + day);
+        }
+    }
+
+    private static long value(Long value) {
+        return value == null ? 0L : value;
+    }
+
+    /**
+     * Contador de un carril y día que además acumula en el total del carril
+     */
+    private static final class Counter {
+
+        private static final Counter EMPTY = new Counter(null);
+
+        private final Counter parent;
+        private long vehicles;
+        private long axles;
+        private double esal;
+
+        Counter(Counter parent) {
+            this.parent = parent;
+        }
+
+        void add(long vehicles, long axles, double esal) {
+            this.vehicles += vehicles;
+            this.axles += axles;
+            this.esal += esal;
+            if (parent != null) {
+                parent.add(vehicles, axles, esal);
+            }
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("vehicles", vehicles);
+            map.put("axles", axles);
+            map.put("esal", Math.round(esal * 10000.0) / 10000.0);
+            return map;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.demo.service;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tabla de ejes y carga equivalente (ESAL, ejes equivalentes de 8,2 t) por tipo de vehículo.
+ * Se declara en {@code app.axles.table} como {@code tipo:ejes:esal} separados por comas; los tipos
+ * que no aparecen usan {@code app.axles.default-axles} y {@code app.axles.default-esal}.
+ */
+@Component
+public class AxleTable {
+
+    private static final Logger logger = LoggerFactory.getLogger(AxleTable.class);
+
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final Entry defaultEntry;
+
+    public AxleTable(@Value("${app.axles.table:car:2:0.0008,bus:3:0.6,truck:4:1.2}") List<String> table,
+                     @Value("${app.axles.default-axles:2}") int defaultAxles,
+                     @Value("${app.axles.default-esal:0.0008}") double defaultEsal) {
+        for (String row : table) {
+            if (row == null || row.isBlank()) {
+                continue;
+            }
+            String[] fields = row.trim().split(":");
+            try {
+                if (fields.length != 3) {
+                    throw new NumberFormatException();
+                }
+                entries.put(fields[0].trim().toLowerCase(),
+                    new Entry(Integer.parseInt(fields[1].trim()), Double.parseDouble(fields[2].trim())));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Fila inválida en app.axles.table (se espera tipo:ejes:esal): " + row);
+            }
+        }
+        this.defaultEntry = new Entry(defaultAxles, defaultEsal);
+        logger.info("🔧 Tabla de ejes con {} tipos de vehículo", entries.size());
+    }
+
+    public Entry get(String vehicleType) {
+        return vehicleType == null ? defaultEntry : entries.getOrDefault(vehicleType.toLowerCase(), defaultEntry);
+    }
+
+    public Map<String, Object> describe() {
+        Map<String, Object> description = new LinkedHashMap<>();
+        entries.entrySet().stream()
+            .sorted(Map.Entry.comparingByKey())
+            .forEach(entry -> description.put(entry.getKey(), entry.getValue()));
+        description.put("default", defaultEntry);
+        return description;
+    }
+
+    /**
+     * Ejes por vehículo y ESAL por vehículo de un tipo
+     */
+    public record Entry(int axles, double esal) {
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.demo.service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.IntStream;
+
+import org.springframework.stereotype.Service;
+
+import com.example.demo.service.CalendarService.CalendarInfo;
+import com.example.demo.service.DTO.DetectionJson;
+import com.example.demo.service.ingest.IngestionListener;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Rollups de calendario acumulados en la ingesta: vehículos por día de la semana × hora (7×24),
+ * en total y por carril, y totales por tipo de día (laborable, fin de semana, festivo).
+ * Los mapas de calor semanales se leen de la tabla sin recorrer las detecciones.
+ */
+@Service
+@RequiredArgsConstructor
+public class CalendarRollupService implements IngestionListener {
+
+    private static final List<String> DAY_TYPES = List.of("weekday", "weekend", "holiday");
+
+    private final CalendarService calendarService;
+
+    private final long[][] weekly = new long[7][24];
+    private final Map<String, long[][]> weeklyByLane = new TreeMap<>();
+    private final Map<String, Long> dayTypeTotals = new LinkedHashMap<>();
+    private final List<Set<LocalDate>> daysObserved = List.of(
+        new HashSet<>(), new HashSet<>(), new HashSet<>(), new HashSet<>(),
+        new HashSet<>(), new HashSet<>(), new HashSet<>());
+
+    @Override
+    public synchronized void onReset() {
+        for (long[] row : weekly) {
+            Arrays.fill(row, 0);
+        }
+        weeklyByLane.clear();
+        dayTypeTotals.clear();
+        daysObserved.forEach(Set::clear);
+    }
+
+    @Override
+    public synchronized void onDetection(DetectionJson detection) {
+        CalendarInfo calendar = calendarService.classify(detection.getDate());
+        if (calendar == null) {
+            return;
+        }
+        int day = calendar.dayOfWeek().getValue() - 1;
+        int hour = calendar.hourOfDay();
+        daysObserved.get(day).add(calendar.localDate());
+
+        if (detection.getObjects_total() != null) {
+            long total = detection.getObjects_total().values().stream()
+                .filter(count -> count != null && count > 0)
+                .mapToLong(Integer::longValue)
+                .sum();
+            weekly[day][hour] += total;
+            dayTypeTotals.merge(calendar.dayType(), total, Long::sum);
+        }
+        if (detection.getObjects_by_lane() != null) {
+            detection.getObjects_by_lane().forEach((lane, vehicles) -> {
+                if (vehicles != null) {
+                    long laneTotal = vehicles.values().stream()
+                        .filter(count -> count != null && count > 0)
+                        .mapToLong(Integer::longValue)
+                        .sum();
+                    weeklyByLane.computeIfAbsent(lane, k -> new long[7][24])[day][hour] += laneTotal;
+                }
+            });
+        }
+    }
+
+    /**
+     * Vehículos por tipo de día; siempre incluye weekday, weekend y holiday
+     */
+    public synchronized Map<String, Long> getDayTypeTotals() {
+        Map<String, Long> totals = new LinkedHashMap<>();
+        DAY_TYPES.forEach(type -> totals.put(type, dayTypeTotals.getOrDefault(type, 0L)));
+        return totals;
+    }
+
+    /**
+     * Mapa de calor semanal (filas lunes a domingo, columnas 0-23 h); {@code lane} null para el total
+     */
+    public synchronized Map<String, Object> getWeeklyPattern(String lane) {
+        long[][] source = lane == null ? weekly : weeklyByLane.get(lane);
+        if (source == null) {
+            throw new IllegalArgumentException("Carril desconocido: " + lane);
+        }
+        long[][] matrix = new long[7][];
+        int[] observed = new int[7];
+        double[][] averages = new double[7][24];
+        for (int day = 0; day < 7; day++) {
+            matrix[day] = source[day].clone();
+            observed[day] = daysObserved.get(day).size();
+            for (int hour = 0; hour < 24; hour++) {
+                averages[day][hour] = observed[day] == 0 ? 0.0
+                    : Math.round(matrix[day][hour] * 100.0 / observed[day]) / 100.0;
+            }
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("lane", lane != null ? lane : "all");
+        result.put("days", Arrays.stream(DayOfWeek.values()).map(DayOfWeek::name).toList());
+        result.put("hours", IntStream.range(0, 24).toArray());
+        result.put("counts", matrix);
+        result.put("daysObserved", observed);
+        result.put("averagePerDay", averages);
+        result.put("dayTypes", getDayTypeTotals());
+        return result;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.demo.service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.service.analytics.DetectionTimes;
+
+/**
+ * Dimensión de calendario de las detecciones: fecha local, día de la semana, hora y si es
+ * fin de semana o festivo. La fecha del detector ya es hora local, así que no depende de ninguna zona.
+ * Los festivos se declaran en {@code app.calendar.holidays} como fechas yyyy-MM-dd separadas por comas.
+ */
+@Service
+public class CalendarService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CalendarService.class);
+
+    private final Set<LocalDate> holidays = new HashSet<>();
+
+    public CalendarService(@Value("${app.calendar.holidays:}") List<String> holidays) {
+        for (String holiday : holidays) {
+            if (holiday == null || holiday.isBlank()) {
+                continue;
+            }
+            try {
+                this.holidays.add(LocalDate.parse(holiday.trim()));
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Festivo inválido en app.calendar.holidays: " + holiday);
+            }
+        }
+        logger.info("📅 Calendario con {} festivos configurados", this.holidays.size());
+    }
+
+    /**
+     * Clasifica la fecha de una detección; null si la fecha no es válida. La fecha ya es hora local del
+     * detector, así que se usa tal cual y no se convierte de zona
+     */
+    public CalendarInfo classify(String date) {
+        LocalDateTime local = DetectionTimes.toLocalDateTime(date);
+        return local == null ? null : classify(local);
+    }
+
+    private CalendarInfo classify(LocalDateTime local) {
+        DayOfWeek dayOfWeek = local.getDayOfWeek();
+        LocalDate localDate = local.toLocalDate();
+        return new CalendarInfo(localDate, dayOfWeek, local.getHour(),
+            dayOfWeek == DayOfWeek.SATURDAY || dayOfWeek == DayOfWeek.SUNDAY,
+            holidays.contains(localDate));
+    }
+
+    /**
+     * Dimensión de calendario de una detección
+     */
+    public record CalendarInfo(LocalDate localDate, DayOfWeek dayOfWeek, int hourOfDay,
+                               boolean weekend, boolean holiday) {
+
+        /**
+         * "holiday", "weekend" o "weekday"; un festivo cuenta como festivo aunque caiga en fin de semana
+         */
+        public String dayType() {
+            return holiday ? "holiday" : weekend ? "weekend" : "weekday";
+        }
+    }
+}
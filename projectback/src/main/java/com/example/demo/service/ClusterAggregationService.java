@@ -0,0 +1,157 @@
+package com.example.demo.service;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.service.DTO.AggregateSnapshot;
+import com.example.demo.service.analytics.SpeedHistogram;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Modo agregador: consulta en paralelo el snapshot de cada nodo par ({@code app.cluster.peers})
+ * y lo combina con el local de forma exacta. Un par caído o lento no bloquea la respuesta:
+ * queda listado en {@code failedNodes}.
+ */
+@Service
+public class ClusterAggregationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClusterAggregationService.class);
+    static final String SNAPSHOT_PATH = "/api/detections/snapshot";
+    private static final double[] SUMMARY_PERCENTILES = {50, 85, 95};
+
+    private final AggregateSnapshotService localSnapshots;
+    private final ObjectMapper objectMapper;
+    private final List<String> peers;
+    private final Duration timeout;
+    private final HttpClient httpClient;
+
+    public ClusterAggregationService(AggregateSnapshotService localSnapshots,
+                                     ObjectMapper objectMapper,
+                                     @Value("${app.cluster.peers:}") List<String> peers,
+                                     @Value("${app.cluster.timeout-ms:3000}") long timeoutMillis) {
+        this.localSnapshots = localSnapshots;
+        this.objectMapper = objectMapper;
+        this.peers = peers.stream()
+            .filter(peer -> peer != null && !peer.isBlank())
+            .map(peer -> peer.trim().replaceAll("/+$", ""))
+            .toList();
+        this.timeout = Duration.ofMillis(Math.max(1, timeoutMillis));
+        this.httpClient = HttpClient.newBuilder().connectTimeout(this.timeout).build();
+        logger.info("🌐 Agregación de clúster con {} nodos pares", this.peers.size());
+    }
+
+    /**
+     * Snapshot combinado del nodo local y de todos los pares que respondieron a tiempo
+     */
+    public ClusterSnapshot getClusterSnapshot(boolean includeLocal) {
+        List<CompletableFuture<AggregateSnapshot>> requests = new ArrayList<>();
+        for (String peer : peers) {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(peer + SNAPSHOT_PATH))
+                .timeout(timeout)
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+            requests.add(httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                .thenApply(response -> parse(peer, response)));
+        }
+
+        AggregateSnapshot merged = includeLocal ? localSnapshots.snapshot() : new AggregateSnapshot();
+        Map<String, String> failures = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            String peer = peers.get(i);
+            try {
+                merged.merge(requests.get(i).join());
+            } catch (RuntimeException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                logger.warn("⚠️ Nodo {} no disponible: {}", peer, cause.toString());
+                failures.put(peer, cause.getClass().getSimpleName()
+                    + (cause.getMessage() != null ? ": " + cause.getMessage() : ""));
+            }
+        }
+        return new ClusterSnapshot(merged, failures);
+    }
+
+    /**
+     * Resumen de ciudad: totales, promedios exactos y percentiles de velocidad por carril, y minutos pico
+     */
+    public Map<String, Object> getClusterSummary(boolean includeLocal) {
+        ClusterSnapshot cluster = getClusterSnapshot(includeLocal);
+        AggregateSnapshot snapshot = cluster.snapshot();
+
+        Map<String, Object> speeds = new TreeMap<>();
+        snapshot.getSpeedByLane().forEach((lane, speed) -> {
+            Map<String, Object> laneSpeed = new LinkedHashMap<>();
+            laneSpeed.put("samples", speed.getCount());
+            laneSpeed.put("avg", speed.getCount() == 0 ? 0.0 : round(speed.getSum() / speed.getCount()));
+            if (speed.getHistogram() != null) {
+                SpeedHistogram histogram = SpeedHistogram.fromCounts(speed.getHistogram(), speed.getSum());
+                for (double p : SUMMARY_PERCENTILES) {
+                    double value = histogram.percentile(p);
+                    laneSpeed.put("p" + (int) p, Double.isNaN(value) ? 0.0 : round(value));
+                }
+            }
+            speeds.put(lane, laneSpeed);
+        });
+
+        Map<String, Long> hourly = new TreeMap<>();
+        long[] hours = snapshot.getHourly();
+        for (int h = 0; h < hours.length; h++) {
+            if (hours[h] > 0) {
+                hourly.put(String.format("%02d:00", h), hours[h]);
+            }
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("nodes", snapshot.getNodes());
+        result.put("failedNodes", cluster.failures());
+        result.put("detections", snapshot.getDetections());
+        result.put("total", snapshot.getTotals());
+        result.put("byLane", snapshot.getByLane());
+        result.put("hourly", hourly);
+        result.put("speedByLane", speeds);
+        result.put("topIntervals", snapshot.getTopIntervals());
+        return result;
+    }
+
+    public List<String> getPeers() {
+        return peers;
+    }
+
+    private AggregateSnapshot parse(String peer, HttpResponse<String> response) {
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("HTTP " + response.statusCode() + " desde " + peer);
+        }
+        try {
+            return objectMapper.readValue(response.body(), AggregateSnapshot.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Snapshot inválido desde " + peer + ": " + e.getOriginalMessage(), e);
+        }
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+
+    /**
+     * Snapshot combinado y nodos que fallaron (URL -> motivo)
+     */
+    public record ClusterSnapshot(AggregateSnapshot snapshot, Map<String, String> failures) {
+    }
+}
@@ -0,0 +1,287 @@
+package com.example.demo.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.service.DTO.DetectionJson;
+import com.example.demo.service.analytics.DetectionTimes;
+import com.example.demo.service.ingest.IngestionListener;
+
+/**
+ * Detector incremental de congestión por carril.
+ * Suaviza velocidad y volumen con EWMA en cada detección ingerida y aplica histéresis:
+ * un carril entra en congestión cuando la velocidad suavizada baja de {@code enter-speed}
+ * (con volumen mínimo) y solo sale cuando supera {@code exit-speed}. Cada episodio queda
+ * en un registro de incidentes acotado. El estado actual se lee en O(1) sin bloquear.
+ */
+@Service
+public class CongestionDetectionService implements IngestionListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(CongestionDetectionService.class);
+
+    private final double alpha;
+    private final double enterSpeed;
+    private final double exitSpeed;
+    private final double minVolume;
+    private final int minSamples;
+    private final int incidentLogSize;
+
+    // Estado mutable del escritor y copia inmutable publicada para los lectores
+    private final Map<String, LaneTracker> trackers = new ConcurrentHashMap<>();
+    private final Map<String, LaneState> states = new ConcurrentHashMap<>();
+    private final Deque<Incident> incidents = new ArrayDeque<>();
+    // Transiciones de la carga en curso: cada una va a DEBUG y la carga deja un único resumen en INFO
+    private long detectedInLoad;
+    private long clearedInLoad;
+
+    public CongestionDetectionService(@Value("${app.congestion.alpha:0.3}") double alpha,
+                                      @Value("${app.congestion.enter-speed:15.0}") double enterSpeed,
+                                      @Value("${app.congestion.exit-speed:20.0}") double exitSpeed,
+                                      @Value("${app.congestion.min-volume:1.0}") double minVolume,
+                                      @Value("${app.congestion.min-samples:3}") int minSamples,
+                                      @Value("${app.congestion.incident-log-size:500}") int incidentLogSize) {
+        if (exitSpeed < enterSpeed) {
+            throw new IllegalArgumentException("app.congestion.exit-speed debe ser mayor o igual que enter-speed");
+        }
+        this.alpha = alpha;
+        this.enterSpeed = enterSpeed;
+        this.exitSpeed = exitSpeed;
+        this.minVolume = minVolume;
+        this.minSamples = Math.max(1, minSamples);
+        this.incidentLogSize = Math.max(1, incidentLogSize);
+        logger.info("🚦 Detector de congestión: entra < {} km/h, sale > {} km/h, alpha {}", enterSpeed, exitSpeed, alpha);
+    }
+
+    @Override
+    public void onReset() {
+        trackers.clear();
+        states.clear();
+        synchronized (incidents) {
+            incidents.clear();
+        }
+        detectedInLoad = 0;
+        clearedInLoad = 0;
+    }
+
+    @Override
+    public void onCommit(long dataVersion) {
+        List<String> congested = states.values().stream()
+            .filter(LaneState::congested)
+            .map(LaneState::lane)
+            .sorted()
+            .toList();
+        logger.info("🚦 Congestión en la carga (versión {}): {} episodios detectados, {} despejados; congestionados ahora: {}",
+            dataVersion, detectedInLoad, clearedInLoad, congested.isEmpty() ? "ninguno" : congested);
+    }
+
+    @Override
+    public void onDetection(DetectionJson detection) {
+        long time = DetectionTimes.toEpochMillis(detection.getDate());
+
+        if (detection.getObjects_by_lane() != null) {
+            detection.getObjects_by_lane().forEach((lane, vehicles) -> {
+                if (vehicles != null) {
+                    long volume = vehicles.values().stream()
+                        .filter(count -> count != null && count > 0)
+                        .mapToLong(Integer::longValue)
+                        .sum();
+                    LaneTracker tracker = trackers.computeIfAbsent(lane, LaneTracker::new);
+                    tracker.updateVolume(volume);
+                    publish(tracker);
+                }
+            });
+        }
+
+        if (detection.getAvg_speed_by_lane() != null) {
+            detection.getAvg_speed_by_lane().forEach((lane, speed) -> {
+                if (speed != null && speed > 0) {
+                    LaneTracker tracker = trackers.computeIfAbsent(lane, LaneTracker::new);
+                    tracker.updateSpeed(speed, time);
+                    publish(tracker);
+                }
+            });
+        }
+    }
+
+    /**
+     * Estado actual de cada carril
+     */
+    public Map<String, LaneState> getCurrentStates() {
+        return new TreeMap<>(states);
+    }
+
+    public LaneState getState(String lane) {
+        return states.get(lane);
+    }
+
+    /**
+     * Incidentes más recientes primero; {@code lane} null para todos los carriles
+     */
+    public List<Map<String, Object>> getIncidents(String lane, int limit) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        synchronized (incidents) {
+            Iterator<Incident> iterator = incidents.descendingIterator();
+            while (iterator.hasNext() && result.size() < limit) {
+                Incident incident = iterator.next();
+                if (lane == null || lane.equals(incident.lane)) {
+                    result.add(incident.toMap());
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Episodios que se solapan con [from, to], más recientes primero; un episodio abierto sigue hasta hoy y
+     * from/to null dejan ese lado sin límite. Solo cubre lo que conserva el registro de incidentes
+     */
+    public List<Map<String, Object>> getIncidents(Long from, Long to) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        synchronized (incidents) {
+            Iterator<Incident> iterator = incidents.descendingIterator();
+            while (iterator.hasNext()) {
+                Incident incident = iterator.next();
+                long cleared = incident.clearance;
+                boolean startsBeforeEnd = to == null
+                    || (incident.onset != DetectionTimes.UNKNOWN && incident.onset <= to);
+                boolean endsAfterStart = from == null || cleared == DetectionTimes.UNKNOWN || cleared >= from;
+                if (startsBeforeEnd && endsAfterStart) {
+                    result.add(incident.toMap());
+                }
+            }
+        }
+        return result;
+    }
+
+    private void publish(LaneTracker tracker) {
+        states.put(tracker.lane, tracker.snapshot());
+    }
+
+    private void recordIncident(Incident incident) {
+        synchronized (incidents) {
+            incidents.addLast(incident);
+            while (incidents.size() > incidentLogSize) {
+                incidents.removeFirst();
+            }
+        }
+    }
+
+    /**
+     * Estado publicado de un carril (inmutable)
+     */
+    public record LaneState(String lane, boolean congested, double ewmaSpeed, double ewmaVolume,
+                            long totalVehicles, long since, long lastUpdate) {
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("lane", lane);
+            map.put("state", congested ? "CONGESTED" : "FREE_FLOW");
+            map.put("avgSpeed", Math.round(ewmaSpeed * 100.0) / 100.0);
+            map.put("avgVolume", Math.round(ewmaVolume * 100.0) / 100.0);
+            map.put("totalVehicles", totalVehicles);
+            map.put("since", DetectionTimes.format(since));
+            map.put("lastUpdate", DetectionTimes.format(lastUpdate));
+            return map;
+        }
+    }
+
+    private final class LaneTracker {
+
+        private final String lane;
+        private double ewmaSpeed;
+        private double ewmaVolume;
+        private long speedSamples;
+        private long volumeSamples;
+        private long totalVehicles;
+        private boolean congested;
+        private long since = DetectionTimes.UNKNOWN;
+        private long lastUpdate = DetectionTimes.UNKNOWN;
+        private Incident openIncident;
+
+        LaneTracker(String lane) {
+            this.lane = lane;
+        }
+
+        void updateVolume(long volume) {
+            ewmaVolume = volumeSamples++ == 0 ? volume : alpha * volume + (1 - alpha) * ewmaVolume;
+            totalVehicles += volume;
+            if (openIncident != null) {
+                openIncident.peakVolume = Math.max(openIncident.peakVolume, ewmaVolume);
+            }
+        }
+
+        void updateSpeed(double speed, long time) {
+            ewmaSpeed = speedSamples++ == 0 ? speed : alpha * speed + (1 - alpha) * ewmaSpeed;
+            if (time != DetectionTimes.UNKNOWN) {
+                lastUpdate = time;
+                if (since == DetectionTimes.UNKNOWN) {
+                    since = time;
+                }
+            }
+
+            if (!congested && speedSamples >= minSamples && ewmaSpeed < enterSpeed && ewmaVolume >= minVolume) {
+                congested = true;
+                since = lastUpdate;
+                openIncident = new Incident(lane, lastUpdate, ewmaSpeed, ewmaVolume);
+                recordIncident(openIncident);
+                detectedInLoad++;
+                logger.debug("🚧 Congestión detectada en {} ({} km/h)", lane, Math.round(ewmaSpeed * 100.0) / 100.0);
+            } else if (congested && ewmaSpeed > exitSpeed) {
+                congested = false;
+                since = lastUpdate;
+                openIncident.clearance = lastUpdate;
+                openIncident = null;
+                clearedInLoad++;
+                logger.debug("✅ Congestión despejada en {}", lane);
+            } else if (openIncident != null) {
+                openIncident.minSpeed = Math.min(openIncident.minSpeed, ewmaSpeed);
+            }
+        }
+
+        LaneState snapshot() {
+            return new LaneState(lane, congested, ewmaSpeed, ewmaVolume, totalVehicles, since, lastUpdate);
+        }
+    }
+
+    private static final class Incident {
+
+        private final String lane;
+        private final long onset;
+        private volatile long clearance = DetectionTimes.UNKNOWN;
+        private volatile double minSpeed;
+        private volatile double peakVolume;
+
+        Incident(String lane, long onset, double speed, double volume) {
+            this.lane = lane;
+            this.onset = onset;
+            this.minSpeed = speed;
+            this.peakVolume = volume;
+        }
+
+        Map<String, Object> toMap() {
+            long cleared = clearance;
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("lane", lane);
+            map.put("onset", DetectionTimes.format(onset));
+            map.put("clearance", cleared == DetectionTimes.UNKNOWN ? null : DetectionTimes.format(cleared));
+            map.put("active", cleared == DetectionTimes.UNKNOWN);
+            map.put("durationSeconds", cleared == DetectionTimes.UNKNOWN || onset == DetectionTimes.UNKNOWN
+                ? null : (cleared - onset) / 1000);
+            map.put("minSpeed", Math.round(minSpeed * 100.0) / 100.0);
+            map.put("peakVolume", Math.round(peakVolume * 100.0) / 100.0);
+            return map;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.demo.service.DTO;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import com.example.demo.service.analytics.DetectionTimes;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Agregados de un nodo en forma combinable: conteos, suma y cantidad de velocidades, histogramas
+ * y vehículos por minuto. Combinar snapshots de varios nodos da el mismo resultado que haber
+ * agregado todas las detecciones juntas (los promedios se calculan al final, nunca promedios de promedios).
+ * Los conteos cubren el historial completo del nodo; los vehículos por minuto, solo la ventana de minutos pico.
+ * El top-K se recalcula sobre los conteos por minuto ya sumados: un minuto repartido entre nodos compite con su
+ * total y no con cada parte.
+ */
+@Data
+@NoArgsConstructor
+public class AggregateSnapshot {
+
+    private static final long MINUTE_MILLIS = 60_000L;
+
+    private List<String> nodes = new ArrayList<>();
+    private long detections;
+    private Map<String, Long> totals = new TreeMap<>();
+    private Map<String, Map<String, Long>> byLane = new TreeMap<>();
+    private long[] hourly = new long[24];
+    private Map<String, LaneSpeed> speedByLane = new TreeMap<>();
+    // Inicio del minuto (hora local) -> vehículos; solo minutos con tráfico dentro de la ventana de picos
+    private Map<String, Long> minuteVolumes = new TreeMap<>();
+    private int topK;
+    private List<PeakInterval> topIntervals = new ArrayList<>();
+
+    /**
+     * Combina otro snapshot dentro de este y lo devuelve
+     */
+    public AggregateSnapshot merge(AggregateSnapshot other) {
+        nodes.addAll(other.nodes);
+        detections += other.detections;
+        other.totals.forEach((type, count) -> totals.merge(type, count, Long::sum));
+        other.byLane.forEach((lane, counts) -> {
+            Map<String, Long> laneCounts = byLane.computeIfAbsent(lane, k -> new TreeMap<>());
+            counts.forEach((type, count) -> laneCounts.merge(type, count, Long::sum));
+        });
+        if (other.hourly != null) {
+            for (int h = 0; h < Math.min(hourly.length, other.hourly.length); h++) {
+                hourly[h] += other.hourly[h];
+            }
+        }
+        other.speedByLane.forEach((lane, speed) -> {
+            LaneSpeed current = speedByLane.get(lane);
+            if (current == null) {
+                speedByLane.put(lane, new LaneSpeed(speed.sum, speed.count,
+                    speed.histogram != null ? speed.histogram.clone() : null));
+            } else {
+                current.add(speed);
+            }
+        });
+
+        if (other.minuteVolumes != null) {
+            other.minuteVolumes.forEach((minute, vehicles) -> minuteVolumes.merge(minute, vehicles, Long::sum));
+        }
+        topK = Math.max(topK, other.topK);
+        refreshTopIntervals();
+        return this;
+    }
+
+    /**
+     * Recalcula los {@code topK} minutos con más vehículos a partir de {@link #minuteVolumes}
+     */
+    public void refreshTopIntervals() {
+        topIntervals = minuteVolumes.entrySet().stream()
+            .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+            .limit(topK)
+            .map(entry -> new PeakInterval(entry.getKey(),
+                DetectionTimes.format(DetectionTimes.toEpochMillis(entry.getKey()) + MINUTE_MILLIS - 1), entry.getValue()))
+            .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    /**
+     * Velocidades de un carril: suma, cantidad de muestras e histograma (buckets de SpeedHistogram)
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class LaneSpeed {
+        private double sum;
+        private long count;
+        private long[] histogram;
+
+        void add(LaneSpeed other) {
+            sum += other.sum;
+            count += other.count;
+            if (histogram == null || other.histogram == null) {
+                histogram = histogram != null ? histogram : other.histogram != null ? other.histogram.clone() : null;
+                return;
+            }
+            if (histogram.length != other.histogram.length) {
+                throw new IllegalArgumentException("Histogramas incompatibles: " + histogram.length
+                    + " vs " + other.histogram.length + " buckets");
+            }
+            for (int i = 0; i < histogram.length; i++) {
+                histogram[i] += other.histogram[i];
+            }
+        }
+    }
+
+    /**
+     * Minuto pico del conjunto combinado
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PeakInterval {
+        private String start;
+        private String end;
+        private long vehicles;
+    }
+}
@@ -1,14 +1,45 @@
 package com.example.demo.service.DTO;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import lombok.Data;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Data
 public class DetectionJson {
+    @JsonIgnore
+    private Long id; // Id asignado por la base de datos al guardar; no viene en el archivo
     private Long timestamp_ms;
     private String date;
     private Map<String, Integer> objects_total;
     private Map<String, Map<String, Integer>> objects_by_lane;
     private Map<String, Double> avg_speed_by_lane;
-    private Map<String, Double> analysisResults; // Nuevo campo para resultados del análisis
+    private volatile Map<String, Double> analysisResults; // Nuevo campo para resultados del análisis
+
+    /**
+     * Agrega resultados de una estrategia sin pisar los de las demás, que pueden escribir a la vez
+     * desde otro hilo (el pipeline y las respuestas HTTP del servicio Python)
+     */
+    public synchronized void mergeAnalysisResults(Map<String, Double> results) {
+        if (results == null || results.isEmpty()) {
+            return;
+        }
+        if (!(analysisResults instanceof ConcurrentHashMap)) {
+            Map<String, Double> merged = new ConcurrentHashMap<>();
+            if (analysisResults != null) {
+                analysisResults.forEach((key, value) -> {
+                    if (key != null && value != null) {
+                        merged.put(key, value);
+                    }
+                });
+            }
+            analysisResults = merged;
+        }
+        results.forEach((key, value) -> {
+            if (key != null && value != null) {
+                analysisResults.put(key, value);
+            }
+        });
+    }
 }
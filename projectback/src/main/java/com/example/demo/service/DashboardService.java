@@ -0,0 +1,240 @@
+package com.example.demo.service;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.demo.repository.DetectionRepository;
+import com.example.demo.repository.DetectionRow;
+import com.example.demo.service.DTO.DetectionJson;
+import com.example.demo.service.analytics.ColumnarSeries;
+import com.example.demo.service.analytics.DetectionTimes;
+import com.example.demo.service.analytics.SeriesDownsampler;
+import com.example.demo.service.analytics.TrafficAggregate;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Todos los widgets del dashboard en una sola petición. Las filas se leen una vez con un cursor, cada una
+ * se parsea una vez y alimenta a la vez el agregado de tráfico y las dos series temporales; los widgets que
+ * ya se mantienen en memoria (cuellos de botella) no tocan la base de datos.
+ */
+@Service
+@RequiredArgsConstructor
+public class DashboardService {
+
+    private static final Logger logger = LoggerFactory.getLogger(DashboardService.class);
+
+    public static final List<String> WIDGETS = List.of("totalVolume", "volumeByLane", "hourlyPatterns", "laneSpeeds",
+        "bottlenecks", "trafficEvolution", "speedEvolution", "dominance", "stats");
+
+    // Widgets que se calculan a partir del agregado del recorrido
+    private static final Set<String> AGGREGATE_WIDGETS = Set.of("totalVolume", "volumeByLane", "hourlyPatterns",
+        "laneSpeeds", "dominance", "stats");
+
+    private final DetectionRepository detectionRepository;
+    private final DetectionMapper detectionMapper;
+    private final CalendarService calendarService;
+    private final CongestionDetectionService congestionDetectionService;
+
+    /**
+     * {@code widgets} separados por comas (null = todos); {@code from}/{@code to} acotan las detecciones
+     * por fecha y {@code maxPoints}/{@code bucket}/{@code method} reducen las series como en /temporal/*
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getDashboard(String widgets, String from, String to,
+                                            Integer maxPoints, String bucket, String method) {
+        Set<String> requested = parseWidgets(widgets);
+        Long fromMillis = DetectionTimes.parseBound(from);
+        Long toMillis = DetectionTimes.parseBound(to);
+        if (fromMillis != null && toMillis != null && fromMillis > toMillis) {
+            throw new IllegalArgumentException("'from' debe ser anterior a 'to'");
+        }
+        // Se valida antes de leer para que un parámetro inválido llegue al controlador como 400
+        SeriesDownsampler.validate(maxPoints, bucket, method);
+
+        boolean needsAggregate = requested.stream().anyMatch(AGGREGATE_WIDGETS::contains);
+        boolean needsTraffic = requested.contains("trafficEvolution");
+        boolean needsSpeed = requested.contains("speedEvolution");
+        boolean needsDayTypes = requested.contains("totalVolume");
+
+        long start = System.nanoTime();
+        TrafficAggregate aggregate = new TrafficAggregate();
+        Map<String, Long> dayTypes = new HashMap<>();
+        ColumnarSeries traffic = new ColumnarSeries("car", "bus", "truck");
+        ColumnarSeries speed = new ColumnarSeries("lane_1", "lane_2", "lane_3");
+
+        if (needsAggregate || needsTraffic || needsSpeed) {
+            try (Stream<DetectionRow> rows = detectionRepository.streamRowsOrderByTimestamp()) {
+                rows.forEach(row -> {
+                    long time = DetectionTimes.toEpochMillis(row.getDate());
+                    if (!inRange(time, fromMillis, toMillis)) {
+                        return;
+                    }
+                    DetectionJson detection = detectionMapper.toDetectionJson(row);
+                    if (needsAggregate) {
+                        aggregate.accept(detection);
+                    }
+                    if (needsDayTypes && detection.getObjects_total() != null) {
+                        CalendarService.CalendarInfo calendar = calendarService.classify(detection.getDate());
+                        if (calendar != null) {
+                            long vehicles = detection.getObjects_total().values().stream()
+                                .filter(count -> count != null && count > 0)
+                                .mapToLong(Integer::longValue)
+                                .sum();
+                            dayTypes.merge(calendar.dayType(), vehicles, Long::sum);
+                        }
+                    }
+                    if (needsTraffic) {
+                        traffic.appendRow(time);
+                        if (detection.getObjects_total() != null) {
+                            detection.getObjects_total().forEach((type, count) -> traffic.add(type, count != null ? count : 0));
+                        }
+                    }
+                    if (needsSpeed) {
+                        speed.appendRow(time);
+                        if (detection.getAvg_speed_by_lane() != null) {
+                            detection.getAvg_speed_by_lane().forEach((lane, value) -> speed.add(lane, value != null ? value : 0.0));
+                        }
+                    }
+                });
+            }
+        }
+
+        boolean reduced = maxPoints != null || (bucket != null && !bucket.isBlank());
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (String widget : requested) {
+            switch (widget) {
+                case "totalVolume" -> {
+                    Map<String, Object> volume = new LinkedHashMap<>();
+                    volume.put("total", new TreeMap<>(aggregate.getTotals()));
+                    volume.put("hourly", toHourlyMap(aggregate.getHourly()));
+                    Map<String, Long> daily = new LinkedHashMap<>();
+                    for (String dayType : List.of("weekday", "weekend", "holiday")) {
+                        daily.put(dayType, dayTypes.getOrDefault(dayType, 0L));
+                    }
+                    volume.put("daily", daily);
+                    result.put(widget, volume);
+                }
+                case "volumeByLane" -> {
+                    Map<String, Map<String, Long>> byLane = new TreeMap<>();
+                    aggregate.getByLane().forEach((lane, counts) -> byLane.put(lane, new TreeMap<>(counts)));
+                    result.put(widget, byLane);
+                }
+                case "hourlyPatterns" -> result.put(widget, toHourlyMap(aggregate.getHourly()));
+                case "laneSpeeds" -> result.put(widget, laneSpeeds(aggregate));
+                // Sin rango, los carriles congestionados ahora; con rango, los episodios que lo tocan
+                case "bottlenecks" -> result.put(widget, fromMillis == null && toMillis == null
+                    ? congestionDetectionService.getCurrentStates().values().stream()
+                        .filter(CongestionDetectionService.LaneState::congested)
+                        .map(CongestionDetectionService.LaneState::toMap)
+                        .toArray()
+                    : congestionDetectionService.getIncidents(fromMillis, toMillis).toArray());
+                case "trafficEvolution" -> result.put(widget,
+                    downsample(traffic, maxPoints, bucket, method, SeriesDownsampler.Aggregation.SUM).toResponse(true, false));
+                case "speedEvolution" -> result.put(widget,
+                    downsample(speed, maxPoints, bucket, method, SeriesDownsampler.Aggregation.MEAN).toResponse(false, reduced));
+                case "dominance" -> result.put(widget, dominance(aggregate.getTotals()));
+                case "stats" -> {
+                    Map<String, Double> speeds = laneSpeeds(aggregate);
+                    Map<String, Object> stats = new LinkedHashMap<>();
+                    stats.put("totalDetections", aggregate.getDetections());
+                    stats.put("totalVehicles", aggregate.getTotals().values().stream().mapToLong(Long::longValue).sum());
+                    stats.put("avgSpeedOverall", speeds.values().stream().mapToDouble(Double::doubleValue).average().orElse(0.0));
+                    stats.put("activeLines", speeds.size());
+                    stats.put("lastUpdated", System.currentTimeMillis());
+                    result.put(widget, stats);
+                }
+                default -> throw new IllegalStateException("Widget sin implementar: " + widget);
+            }
+        }
+
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        logger.debug("🧭 Dashboard con {} widgets en {} ms", requested.size(), elapsedMillis);
+        Map<String, Object> meta = new LinkedHashMap<>();
+        meta.put("widgets", requested);
+        meta.put("from", fromMillis != null ? DetectionTimes.format(fromMillis) : null);
+        meta.put("to", toMillis != null ? DetectionTimes.format(toMillis) : null);
+        meta.put("elapsedMs", elapsedMillis);
+        result.put("meta", meta);
+        return result;
+    }
+
+    private static Set<String> parseWidgets(String widgets) {
+        if (widgets == null || widgets.isBlank()) {
+            return new LinkedHashSet<>(WIDGETS);
+        }
+        Set<String> requested = new LinkedHashSet<>();
+        for (String widget : widgets.split(",")) {
+            String name = widget.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            if (!WIDGETS.contains(name)) {
+                throw new IllegalArgumentException("Widget desconocido: " + name + " (válidos: " + WIDGETS + ")");
+            }
+            requested.add(name);
+        }
+        if (requested.isEmpty()) {
+            throw new IllegalArgumentException("Se debe pedir al menos un widget");
+        }
+        return requested;
+    }
+
+    private static boolean inRange(long time, Long fromMillis, Long toMillis) {
+        if (fromMillis == null && toMillis == null) {
+            return true;
+        }
+        return time != DetectionTimes.UNKNOWN
+            && (fromMillis == null || time >= fromMillis)
+            && (toMillis == null || time <= toMillis);
+    }
+
+    private static ColumnarSeries downsample(ColumnarSeries series, Integer maxPoints, String bucket, String method,
+                                             SeriesDownsampler.Aggregation aggregation) {
+        if (maxPoints == null && (bucket == null || bucket.isBlank())) {
+            return series;
+        }
+        return series.withSeries(SeriesDownsampler.downsample(series.toSeries(), maxPoints, bucket, method, aggregation));
+    }
+
+    private static Map<String, Double> laneSpeeds(TrafficAggregate aggregate) {
+        Map<String, Double> speeds = new TreeMap<>();
+        aggregate.getSpeedByLane().forEach((lane, stats) -> {
+            if (stats.getCount() > 0) {
+                speeds.put(lane, Math.round(stats.mean() * 100.0) / 100.0);
+            }
+        });
+        return speeds;
+    }
+
+    private static Map<String, Double> dominance(Map<String, Long> totals) {
+        long totalVehicles = totals.values().stream().mapToLong(Long::longValue).sum();
+        Map<String, Double> dominance = new TreeMap<>();
+        if (totalVehicles > 0) {
+            totals.forEach((type, count) ->
+                dominance.put(type, Math.round((count.doubleValue() / totalVehicles) * 10000.0) / 100.0));
+        }
+        return dominance;
+    }
+
+    private static Map<String, Long> toHourlyMap(long[] hourly) {
+        Map<String, Long> result = new TreeMap<>();
+        for (int hour = 0; hour < hourly.length; hour++) {
+            if (hourly[hour] > 0) {
+                result.put(String.format("%02d:00", hour), hourly[hour]);
+            }
+        }
+        return result;
+    }
+}
@@ -2,6 +2,11 @@ package com.example.demo.service;
 
 import com.example.demo.entity.Detection;
 import com.example.demo.repository.DetectionRepository;
+import com.example.demo.repository.DetectionSeriesRow;
+import com.example.demo.service.analytics.ColumnarSeries;
+import com.example.demo.service.analytics.DetectionTimes;
+import com.example.demo.service.analytics.SeriesDownsampler;
+import com.example.demo.service.analytics.TrafficAggregate;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -10,11 +15,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -23,6 +30,12 @@ public class DetectionAnalysisService {
     private static final Logger logger = LoggerFactory.getLogger(DetectionAnalysisService.class);
     private final DetectionRepository detectionRepository;
     private final ObjectMapper objectMapper;
+    private final ParallelAggregationService parallelAggregationService;
+    private final CongestionDetectionService congestionDetectionService;
+    private final RangeIndexService rangeIndexService;
+    private final RecentDetectionsService recentDetectionsService;
+    private final PeakIntervalService peakIntervalService;
+    private final CalendarRollupService calendarRollupService;
 
     public Map<String, Object> getTotalVehicleVolume() {
         logger.debug("🔍 Consultando volumen total de vehículos");
@@ -72,7 +85,7 @@ public class DetectionAnalysisService {
             Map<String, Object> result = new HashMap<>();
             result.put("total", totalCounts.isEmpty() ? getDefaultTotals() : totalCounts);
             result.put("hourly", hourlyCounts);
-            result.put("daily", Map.of("weekday", getTotalVehicleCount(totalCounts)));
+            result.put("daily", calendarRollupService.getDayTypeTotals());
             
             logger.info("✅ Volumen total calculado: {}", totalCounts);
             return result;
@@ -190,7 +203,7 @@ public class DetectionAnalysisService {
                 return getDefaultSpeedData();
             }
             
-            Map<String, List<Double>> speedsByLane = new HashMap<>();
+            Map<String, TrafficAggregate.SpeedStats> speedsByLane = new HashMap<>();
             
             for (Detection detection : detections) {
                 try {
@@ -201,7 +214,7 @@ public class DetectionAnalysisService {
                         if (speeds != null) {
                             speeds.forEach((lane, speed) -> {
                                 if (speed != null && speed > 0) {
-                                    speedsByLane.computeIfAbsent(lane, k -> new ArrayList<>()).add(speed);
+                                    speedsByLane.computeIfAbsent(lane, k -> new TrafficAggregate.SpeedStats()).add(speed, 1);
                                 }
                             });
                         }
@@ -212,10 +225,9 @@ public class DetectionAnalysisService {
             }
             
             Map<String, Double> avgSpeeds = new HashMap<>();
-            speedsByLane.forEach((lane, speeds) -> {
-                if (!speeds.isEmpty()) {
-                    double average = speeds.stream().mapToDouble(Double::doubleValue).average().orElse(0.0);
-                    avgSpeeds.put(lane, Math.round(average * 100.0) / 100.0);
+            speedsByLane.forEach((lane, stats) -> {
+                if (stats.getCount() > 0) {
+                    avgSpeeds.put(lane, Math.round(stats.mean() * 100.0) / 100.0);
                 }
             });
             
@@ -231,31 +243,16 @@ public class DetectionAnalysisService {
         }
     }
 
+    /**
+     * Carriles actualmente congestionados según el detector incremental (EWMA con histéresis);
+     * ya no recorre todo el historial
+     */
     public Object[] getBottlenecks() {
         try {
-            Map<String, Double> avgSpeeds = getAvgSpeedByLane();
-            Map<String, Map<String, Integer>> laneData = getVehicleVolumeByLane();
-            
-            List<Map<String, Object>> bottlenecks = new ArrayList<>();
-            
-            avgSpeeds.forEach((lane, avgSpeed) -> {
-                if (avgSpeed < 15.0) {
-                    Map<String, Integer> vehicles = laneData.getOrDefault(lane, new HashMap<>());
-                    int totalVehicles = vehicles.values().stream()
-                        .filter(Objects::nonNull)
-                        .mapToInt(Integer::intValue)
-                        .sum();
-                    
-                    Map<String, Object> bottleneck = new HashMap<>();
-                    bottleneck.put("lane", lane);
-                    bottleneck.put("avgSpeed", avgSpeed);
-                    bottleneck.put("totalVehicles", totalVehicles);
-                    
-                    bottlenecks.add(bottleneck);
-                }
-            });
-            
-            return bottlenecks.toArray();
+            return congestionDetectionService.getCurrentStates().values().stream()
+                .filter(CongestionDetectionService.LaneState::congested)
+                .map(CongestionDetectionService.LaneState::toMap)
+                .toArray();
             
         } catch (RuntimeException e) {
             logger.error("❌ Error de runtime en getBottlenecks: {}", e.getMessage());
@@ -263,47 +260,21 @@ public class DetectionAnalysisService {
         }
     }
 
+    @Transactional(readOnly = true)
     public Map<String, Object> getTrafficEvolution() {
+        return getTrafficEvolution(null, null, null);
+    }
+
+    /**
+     * Evolución del tráfico por tipo de vehículo en formato columnar.
+     * Los tipos se descubren dinámicamente en un único recorrido ordenado por timestamp;
+     * {@code bucket} agrega en ventanas de tiempo y {@code maxPoints} acota el número de puntos
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getTrafficEvolution(Integer maxPoints, String bucket, String method) {
+        validateDownsampling(maxPoints, bucket, method);
         try {
-            List<Detection> detections = detectionRepository.findAll();
-            detections.sort(Comparator.comparing(Detection::getTimestampMs));
-            
-            List<String> timestamps = new ArrayList<>();
-            List<Integer> carCounts = new ArrayList<>();
-            List<Integer> busCounts = new ArrayList<>();
-            List<Integer> truckCounts = new ArrayList<>();
-            
-            for (Detection detection : detections) {
-                timestamps.add(detection.getDate() != null ? detection.getDate() : "N/A");
-                
-                try {
-                    if (isValidJson(detection.getObjectsTotal())) {
-                        Map<String, Integer> objects = parseJson(detection.getObjectsTotal(), 
-                            new TypeReference<Map<String, Integer>>() {});
-                        
-                        if (objects != null) {
-                            carCounts.add(objects.getOrDefault("car", 0));
-                            busCounts.add(objects.getOrDefault("bus", 0));
-                            truckCounts.add(objects.getOrDefault("truck", 0));
-                        } else {
-                            addZeroCounts(carCounts, busCounts, truckCounts);
-                        }
-                    } else {
-                        addZeroCounts(carCounts, busCounts, truckCounts);
-                    }
-                } catch (RuntimeException e) {
-                    logger.debug("⚠️ Error de runtime en evolución de tráfico: {}", e.getMessage());
-                    addZeroCounts(carCounts, busCounts, truckCounts);
-                }
-            }
-            
-            Map<String, Object> result = new HashMap<>();
-            result.put("timestamps", timestamps);
-            result.put("car", carCounts);
-            result.put("bus", busCounts);
-            result.put("truck", truckCounts);
-            
-            return result;
+            return buildTrafficEvolution(maxPoints, bucket, method).toResponse(true, false);
             
         } catch (DataAccessException e) {
             logger.error("❌ Error de acceso a datos en getTrafficEvolution: {}", e.getMessage());
@@ -314,47 +285,29 @@ public class DetectionAnalysisService {
         }
     }
 
+    /**
+     * La misma evolución en el formato binario columnar; sin datos por defecto: los errores llegan al controlador
+     */
+    @Transactional(readOnly = true)
+    public byte[] getTrafficEvolutionBinary(Integer maxPoints, String bucket, String method) {
+        validateDownsampling(maxPoints, bucket, method);
+        return buildTrafficEvolution(maxPoints, bucket, method).toBinary(true, false);
+    }
+
+    @Transactional(readOnly = true)
     public Map<String, Object> getSpeedEvolution() {
+        return getSpeedEvolution(null, null, null);
+    }
+
+    /**
+     * Evolución de velocidad por carril en formato columnar, con carriles descubiertos dinámicamente;
+     * dentro de cada bucket se promedian las muestras
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Object> getSpeedEvolution(Integer maxPoints, String bucket, String method) {
+        validateDownsampling(maxPoints, bucket, method);
         try {
-            List<Detection> detections = detectionRepository.findAll();
-            detections.sort(Comparator.comparing(Detection::getTimestampMs));
-            
-            List<String> timestamps = new ArrayList<>();
-            List<Double> lane1Speeds = new ArrayList<>();
-            List<Double> lane2Speeds = new ArrayList<>();
-            List<Double> lane3Speeds = new ArrayList<>();
-            
-            for (Detection detection : detections) {
-                timestamps.add(detection.getDate() != null ? detection.getDate() : "N/A");
-                
-                try {
-                    if (isValidJson(detection.getAvgSpeedByLane())) {
-                        Map<String, Double> speeds = parseJson(detection.getAvgSpeedByLane(), 
-                            new TypeReference<Map<String, Double>>() {});
-                        
-                        if (speeds != null) {
-                            lane1Speeds.add(speeds.getOrDefault("lane_1", 0.0));
-                            lane2Speeds.add(speeds.getOrDefault("lane_2", 0.0));
-                            lane3Speeds.add(speeds.getOrDefault("lane_3", 0.0));
-                        } else {
-                            addZeroSpeeds(lane1Speeds, lane2Speeds, lane3Speeds);
-                        }
-                    } else {
-                        addZeroSpeeds(lane1Speeds, lane2Speeds, lane3Speeds);
-                    }
-                } catch (RuntimeException e) {
-                    logger.debug("⚠️ Error de runtime en evolución de velocidad: {}", e.getMessage());
-                    addZeroSpeeds(lane1Speeds, lane2Speeds, lane3Speeds);
-                }
-            }
-            
-            Map<String, Object> result = new HashMap<>();
-            result.put("timestamps", timestamps);
-            result.put("lane_1", lane1Speeds);
-            result.put("lane_2", lane2Speeds);
-            result.put("lane_3", lane3Speeds);
-            
-            return result;
+            return buildSpeedEvolution(maxPoints, bucket, method).toResponse(false, isReduced(maxPoints, bucket));
             
         } catch (DataAccessException e) {
             logger.error("❌ Error de acceso a datos en getSpeedEvolution: {}", e.getMessage());
@@ -365,6 +318,12 @@ public class DetectionAnalysisService {
         }
     }
 
+    @Transactional(readOnly = true)
+    public byte[] getSpeedEvolutionBinary(Integer maxPoints, String bucket, String method) {
+        validateDownsampling(maxPoints, bucket, method);
+        return buildSpeedEvolution(maxPoints, bucket, method).toBinary(false, isReduced(maxPoints, bucket));
+    }
+
     public Map<String, Double> getVehicleTypeDominance() {
         try {
             Map<String, Object> totalVolume = getTotalVehicleVolume();
@@ -434,21 +393,111 @@ public class DetectionAnalysisService {
         }
     }
 
+    /**
+     * Mapa de calor semanal (día de la semana × hora) leído de los rollups de calendario
+     */
+    public Map<String, Object> getWeeklyPatterns(String lane) {
+        return calendarRollupService.getWeeklyPattern(lane == null || lane.isBlank() ? null : lane.trim());
+    }
+
+    // Variantes con agregación paralela (fork-join sobre particiones de tiempo)
+    public Map<String, Object> getTotalVehicleVolume(boolean parallel) {
+        if (!parallel) {
+            return getTotalVehicleVolume();
+        }
+        try {
+            TrafficAggregate aggregate = parallelAggregationService.aggregateAll();
+            if (aggregate.getDetections() == 0) {
+                return getDefaultTotalVolumeData();
+            }
+            
+            Map<String, Integer> totalCounts = toIntegerMap(aggregate.getTotals());
+            Map<String, Object> result = new HashMap<>();
+            result.put("total", totalCounts.isEmpty() ? getDefaultTotals() : totalCounts);
+            result.put("hourly", toHourlyMap(aggregate.getHourly()));
+            result.put("daily", calendarRollupService.getDayTypeTotals());
+            return result;
+            
+        } catch (DataAccessException e) {
+            logger.error("❌ Error de acceso a datos en getTotalVehicleVolume paralelo: {}", e.getMessage());
+            return getDefaultTotalVolumeData();
+        } catch (RuntimeException e) {
+            logger.error("❌ Error de runtime en getTotalVehicleVolume paralelo: {}", e.getMessage());
+            return getDefaultTotalVolumeData();
+        }
+    }
+
+    public Map<String, Map<String, Integer>> getVehicleVolumeByLane(boolean parallel) {
+        if (!parallel) {
+            return getVehicleVolumeByLane();
+        }
+        try {
+            Map<String, Map<String, Integer>> laneData = new HashMap<>();
+            parallelAggregationService.aggregateAll().getByLane()
+                .forEach((lane, counts) -> laneData.put(lane, toIntegerMap(counts)));
+            return laneData.isEmpty() ? getDefaultLaneData() : laneData;
+            
+        } catch (DataAccessException e) {
+            logger.error("❌ Error de acceso a datos en getVehicleVolumeByLane paralelo: {}", e.getMessage());
+            return getDefaultLaneData();
+        } catch (RuntimeException e) {
+            logger.error("❌ Error de runtime en getVehicleVolumeByLane paralelo: {}", e.getMessage());
+            return getDefaultLaneData();
+        }
+    }
+
+    public Map<String, Integer> getHourlyPatterns(boolean parallel) {
+        if (!parallel) {
+            return getHourlyPatterns();
+        }
+        try {
+            Map<String, Integer> hourlyPattern = toHourlyMap(parallelAggregationService.aggregateAll().getHourly());
+            return hourlyPattern.isEmpty() ? getDefaultHourlyPattern() : hourlyPattern;
+            
+        } catch (DataAccessException e) {
+            logger.error("❌ Error de acceso a datos en getHourlyPatterns paralelo: {}", e.getMessage());
+            return getDefaultHourlyPattern();
+        } catch (RuntimeException e) {
+            logger.error("❌ Error de runtime en getHourlyPatterns paralelo: {}", e.getMessage());
+            return getDefaultHourlyPattern();
+        }
+    }
+
+    public Map<String, Double> getAvgSpeedByLane(boolean parallel) {
+        if (!parallel) {
+            return getAvgSpeedByLane();
+        }
+        try {
+            Map<String, Double> avgSpeeds = new HashMap<>();
+            parallelAggregationService.aggregateAll().getSpeedByLane().forEach((lane, stats) -> {
+                if (stats.getCount() > 0) {
+                    avgSpeeds.put(lane, Math.round(stats.mean() * 100.0) / 100.0);
+                }
+            });
+            return avgSpeeds.isEmpty() ? getDefaultSpeedData() : avgSpeeds;
+            
+        } catch (DataAccessException e) {
+            logger.error("❌ Error de acceso a datos en getAvgSpeedByLane paralelo: {}", e.getMessage());
+            return getDefaultSpeedData();
+        } catch (RuntimeException e) {
+            logger.error("❌ Error de runtime en getAvgSpeedByLane paralelo: {}", e.getMessage());
+            return getDefaultSpeedData();
+        }
+    }
+
     // Métodos para estructuras de datos
     public int[] getArrayData() {
         try {
-            List<Detection> detections = detectionRepository.findAll();
-            return detections.stream()
-                    .limit(10)
-                    .mapToInt(d -> {
-                        // Corregir el problema de unboxing null
-                        Long timestamp = d.getTimestampMs();
+            List<Map<String, Object>> recent = recentDetectionsService.getLatestChronological(10);
+            if (recent.isEmpty()) {
+                return new int[]{45, 23, 78, 12, 90, 32, 56, 67, 89, 15};
+            }
+            return recent.stream()
+                    .mapToInt(item -> {
+                        Long timestamp = (Long) item.get("timestampMs");
                         return timestamp != null ? timestamp.intValue() % 100 : 0;
                     })
                     .toArray();
-        } catch (DataAccessException e) {
-            logger.debug("⚠️ Error de acceso a datos en getArrayData: {}", e.getMessage());
-            return new int[]{45, 23, 78, 12, 90, 32, 56, 67, 89, 15};
         } catch (RuntimeException e) {
             logger.debug("⚠️ Error de runtime en getArrayData: {}", e.getMessage());
             return new int[]{45, 23, 78, 12, 90, 32, 56, 67, 89, 15};
@@ -472,10 +521,32 @@ public class DetectionAnalysisService {
     }
 
     public Object[] getQueueData() {
-        return getListStructureData();
+        return getQueueData(10, null, null, null, null);
+    }
+
+    /**
+     * Cola de prioridad con los K intervalos pico del día (más vehículos o menor velocidad media);
+     * vacía si aún no hay picos
+     */
+    public Object[] getQueueData(int k, String metric, String lane, String window, String day) {
+        return peakIntervalService.getPeaks(k, metric, lane, window, day).toArray();
     }
 
     public Map<String, Object> getTreeData() {
+        return getTreeData(null, null);
+    }
+
+    /**
+     * Árbol de conteos por tipo y carril en el rango [from, to], resuelto con el índice de rangos en memoria
+     */
+    public Map<String, Object> getTreeData(String from, String to) {
+        Long fromMillis = DetectionTimes.parseBound(from);
+        Long toMillis = DetectionTimes.parseBound(to);
+        Map<String, Object> tree = rangeIndexService.getTree(fromMillis, toMillis);
+        return tree != null ? tree : getDefaultTreeData();
+    }
+
+    private Map<String, Object> getDefaultTreeData() {
         try {
             Map<String, Object> root = new HashMap<>();
             root.put("value", "Traffic Data");
@@ -510,24 +581,31 @@ public class DetectionAnalysisService {
         }
     }
 
+    /**
+     * Feed de las últimas detecciones ingeridas, de la más nueva a la más antigua
+     */
+    public Map<String, Object> getRecentDetections(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit debe ser positivo: " + limit);
+        }
+        return recentDetectionsService.getRecentFeed(limit);
+    }
+
     // Métodos auxiliares
     private Object[] getListStructureData() {
         try {
-            List<Detection> detections = detectionRepository.findAll();
-            return detections.stream()
-                    .limit(8)
+            List<Map<String, Object>> recent = recentDetectionsService.getLatestChronological(8);
+            if (recent.isEmpty()) {
+                return getDefaultListData();
+            }
+            return recent.stream()
                     .map(d -> {
                         Map<String, Object> item = new HashMap<>();
-                        // Corregir problema de unboxing null
-                        Long id = d.getId();
-                        item.put("id", id != null ? id : 0L);
-                        item.put("date", d.getDate() != null ? d.getDate() : "N/A");
+                        item.put("id", d.get("id"));
+                        item.put("date", d.get("date"));
                         return item;
                     })
                     .toArray();
-        } catch (DataAccessException e) {
-            logger.debug("⚠️ Error de acceso a datos en getListStructureData: {}", e.getMessage());
-            return getDefaultListData();
         } catch (RuntimeException e) {
             logger.debug("⚠️ Error de runtime en getListStructureData: {}", e.getMessage());
             return getDefaultListData();
@@ -578,20 +656,73 @@ public class DetectionAnalysisService {
         return null;
     }
 
-    private void addZeroCounts(List<Integer> carCounts, List<Integer> busCounts, List<Integer> truckCounts) {
-        carCounts.add(0);
-        busCounts.add(0);
-        truckCounts.add(0);
+    private void validateDownsampling(Integer maxPoints, String bucket, String method) {
+        // Se valida antes del try para que un parámetro inválido llegue al controlador como 400
+        SeriesDownsampler.validate(maxPoints, bucket, method);
     }
 
-    private void addZeroSpeeds(List<Double> lane1Speeds, List<Double> lane2Speeds, List<Double> lane3Speeds) {
-        lane1Speeds.add(0.0);
-        lane2Speeds.add(0.0);
-        lane3Speeds.add(0.0);
+    private ColumnarSeries buildTrafficEvolution(Integer maxPoints, String bucket, String method) {
+        try (Stream<DetectionSeriesRow> rows = detectionRepository.streamSeriesRowsOrderByTimestamp()) {
+            ColumnarSeries series = new ColumnarSeries("car", "bus", "truck");
+            rows.forEach(row -> {
+                series.appendRow(DetectionTimes.toEpochMillis(row.getDate()));
+                if (isValidJson(row.getObjectsTotal())) {
+                    Map<String, Integer> objects = parseJson(row.getObjectsTotal(), 
+                        new TypeReference<Map<String, Integer>>() {});
+                    if (objects != null) {
+                        objects.forEach((type, count) -> series.add(type, count != null ? count : 0));
+                    }
+                }
+            });
+            return downsampleEvolution(series, maxPoints, bucket, method, SeriesDownsampler.Aggregation.SUM);
+        }
     }
 
-    private int getTotalVehicleCount(Map<String, Integer> totals) {
-        return totals.values().stream().filter(Objects::nonNull).mapToInt(Integer::intValue).sum();
+    private ColumnarSeries buildSpeedEvolution(Integer maxPoints, String bucket, String method) {
+        try (Stream<DetectionSeriesRow> rows = detectionRepository.streamSeriesRowsOrderByTimestamp()) {
+            ColumnarSeries series = new ColumnarSeries("lane_1", "lane_2", "lane_3");
+            rows.forEach(row -> {
+                series.appendRow(DetectionTimes.toEpochMillis(row.getDate()));
+                if (isValidJson(row.getAvgSpeedByLane())) {
+                    Map<String, Double> speeds = parseJson(row.getAvgSpeedByLane(), 
+                        new TypeReference<Map<String, Double>>() {});
+                    if (speeds != null) {
+                        speeds.forEach((lane, speed) -> series.add(lane, speed != null ? speed : 0.0));
+                    }
+                }
+            });
+            return downsampleEvolution(series, maxPoints, bucket, method, SeriesDownsampler.Aggregation.MEAN);
+        }
+    }
+
+    // Las velocidades reducidas se redondean a dos decimales; las muestras originales se dejan intactas
+    private static boolean isReduced(Integer maxPoints, String bucket) {
+        return maxPoints != null || (bucket != null && !bucket.isBlank());
+    }
+
+    private ColumnarSeries downsampleEvolution(ColumnarSeries series, Integer maxPoints, String bucket,
+                                               String method, SeriesDownsampler.Aggregation aggregation) {
+        if (maxPoints == null && (bucket == null || bucket.isBlank())) {
+            return series;
+        }
+        return series.withSeries(
+            SeriesDownsampler.downsample(series.toSeries(), maxPoints, bucket, method, aggregation));
+    }
+
+    private Map<String, Integer> toIntegerMap(Map<String, Long> counts) {
+        Map<String, Integer> result = new HashMap<>();
+        counts.forEach((key, count) -> result.put(key, Math.toIntExact(count)));
+        return result;
+    }
+
+    private Map<String, Integer> toHourlyMap(long[] hourly) {
+        Map<String, Integer> result = new HashMap<>();
+        for (int hour = 0; hour < hourly.length; hour++) {
+            if (hourly[hour] > 0) {
+                result.put(String.format("%02d:00", hour), Math.toIntExact(hourly[hour]));
+            }
+        }
+        return result;
     }
 
     // Métodos para datos por defecto
@@ -603,7 +734,7 @@ public class DetectionAnalysisService {
         Map<String, Object> defaultData = new HashMap<>();
         defaultData.put("total", getDefaultTotals());
         defaultData.put("hourly", Map.of("08:00", 0, "09:00", 0, "10:00", 0));
-        defaultData.put("daily", Map.of("weekday", 0, "weekend", 0));
+        defaultData.put("daily", Map.of("weekday", 0, "weekend", 0, "holiday", 0));
         return defaultData;
     }
 
@@ -0,0 +1,64 @@
+package com.example.demo.service;
+
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.entity.Detection;
+import com.example.demo.repository.DetectionRow;
+import com.example.demo.service.DTO.DetectionJson;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Convierte las filas de la BD (columnas JSON en texto) al DTO con mapas ya parseados
+ */
+@Component
+@RequiredArgsConstructor
+public class DetectionMapper {
+
+    private static final Logger logger = LoggerFactory.getLogger(DetectionMapper.class);
+
+    private static final TypeReference<Map<String, Integer>> COUNTS = new TypeReference<>() {};
+    private static final TypeReference<Map<String, Map<String, Integer>>> COUNTS_BY_LANE = new TypeReference<>() {};
+    private static final TypeReference<Map<String, Double>> SPEEDS = new TypeReference<>() {};
+
+    private final ObjectMapper objectMapper;
+
+    public DetectionJson toDetectionJson(Detection detection) {
+        DetectionJson json = new DetectionJson();
+        json.setTimestamp_ms(detection.getTimestampMs());
+        json.setDate(detection.getDate());
+        json.setObjects_total(parse(detection.getObjectsTotal(), COUNTS));
+        json.setObjects_by_lane(parse(detection.getObjectsByLane(), COUNTS_BY_LANE));
+        json.setAvg_speed_by_lane(parse(detection.getAvgSpeedByLane(), SPEEDS));
+        return json;
+    }
+
+    public DetectionJson toDetectionJson(DetectionRow row) {
+        DetectionJson json = new DetectionJson();
+        json.setTimestamp_ms(row.getTimestampMs());
+        json.setDate(row.getDate());
+        json.setObjects_total(parse(row.getObjectsTotal(), COUNTS));
+        json.setObjects_by_lane(parse(row.getObjectsByLane(), COUNTS_BY_LANE));
+        json.setAvg_speed_by_lane(parse(row.getAvgSpeedByLane(), SPEEDS));
+        return json;
+    }
+
+    private <T> T parse(String json, TypeReference<T> typeRef) {
+        if (json == null || json.isBlank() || json.equals("{}") || json.equals("null")) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json, typeRef);
+        } catch (JsonProcessingException e) {
+            logger.debug("⚠️ Error parsing JSON: {}", e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.demo.service;
+
+import java.nio.file.Path;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.service.DTO.DetectionJson;
+import com.example.demo.service.analytics.ColumnarDetectionStore;
+import com.example.demo.service.analytics.DetectionTimes;
+import com.example.demo.service.analytics.GroupByQuery;
+import com.example.demo.service.ingest.IngestionListener;
+
+/**
+ * Consultas group-by ad hoc sobre una copia columnar de las detecciones construida en la ingesta.
+ * El almacén se llena durante la carga y se publica al confirmarla: las consultas leen siempre
+ * la última versión completa sin tocar la base de datos.
+ */
+@Service
+public class DetectionQueryService implements IngestionListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(DetectionQueryService.class);
+
+    // Las detecciones no traen su origen: se usa el nombre del archivo del que se cargaron
+    private final String source;
+    private ColumnarDetectionStore store = new ColumnarDetectionStore();
+    private volatile ColumnarDetectionStore.Snapshot snapshot = ColumnarDetectionStore.Snapshot.EMPTY;
+
+    public DetectionQueryService(@Value("${app.detections.file-path}") String filePath) {
+        Path fileName = Path.of(filePath).getFileName();
+        this.source = fileName != null ? fileName.toString() : filePath;
+    }
+
+    @Override
+    public void onReset() {
+        store = new ColumnarDetectionStore();
+    }
+
+    @Override
+    public void onDetection(DetectionJson detection) {
+        long time = DetectionTimes.toEpochMillis(detection.getDate());
+        if (time == DetectionTimes.UNKNOWN) {
+            return;
+        }
+        if (detection.getObjects_by_lane() != null) {
+            detection.getObjects_by_lane().forEach((lane, vehicles) -> {
+                if (vehicles != null) {
+                    vehicles.forEach((type, count) -> {
+                        if (count != null && count > 0) {
+                            store.addVehicles(time, lane, type, source, count);
+                        }
+                    });
+                }
+            });
+        }
+        if (detection.getAvg_speed_by_lane() != null) {
+            detection.getAvg_speed_by_lane().forEach((lane, speed) -> {
+                if (speed != null && speed > 0) {
+                    store.addSpeed(time, lane, source, speed);
+                }
+            });
+        }
+    }
+
+    @Override
+    public void onCommit(long dataVersion) {
+        snapshot = store.snapshot();
+        logger.debug("🧮 Almacén columnar publicado: {} filas de conteo, {} de velocidad",
+            snapshot.vehicles().size(), snapshot.speeds().size());
+    }
+
+    /**
+     * Ejecuta un group-by; dimensions y measures son listas separadas por comas
+     */
+    public Map<String, Object> query(String dimensions, String measures, String from, String to) {
+        GroupByQuery query = GroupByQuery.parse(dimensions, measures,
+            DetectionTimes.parseBound(from), DetectionTimes.parseBound(to));
+        return query.execute(snapshot);
+    }
+}
@@ -2,7 +2,11 @@ package com.example.demo.service;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
@@ -16,6 +20,7 @@ import com.example.demo.entity.Detection;
 import com.example.demo.repository.DetectionRepository;
 import com.example.demo.service.DTO.DetectionJson;
 import com.example.demo.service.DTO.DetectionsWrapper;
+import com.example.demo.service.ingest.IngestionHub;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -29,6 +34,8 @@ public class JsonLoader {
 
     private final DetectionRepository detectionRepository;
     private final ObjectMapper objectMapper;
+    private final IngestionHub ingestionHub;
+    private final CalendarService calendarService;
 
     @Value("${app.detections.file-path:../detections/detections.json}")
     private String filePath;
@@ -55,6 +62,7 @@ public class JsonLoader {
 
             List<DetectionJson> detectionsJson = wrapper.getDetections();
             if (detectionsJson == null || detectionsJson.isEmpty()) {
+                // La tabla no se toca, así que los receptores siguen coherentes con ella
                 logger.warn("⚠️ No se encontraron detecciones en el archivo JSON.");
                 return;
             }
@@ -72,22 +80,46 @@ public class JsonLoader {
                 logger.info("✅ Base de datos limpiada");
             }
 
-            // Procesar las detecciones
-            List<Detection> detections = detectionsJson.stream()
+            // Procesar las detecciones (posición a posición con las válidas, para copiar luego el id asignado)
+            List<DetectionJson> validJson = detectionsJson.stream()
                 .filter(d -> d.getTimestamp_ms() != null)
+                .collect(Collectors.toList());
+            List<Detection> converted = validJson.stream()
                 .map(this::convertToEntity)
+                .collect(Collectors.toList());
+            List<Detection> detections = converted.stream()
                 .filter(d -> d != null)
                 .collect(Collectors.toList());
 
             if (detections.isEmpty()) {
                 logger.warn("⚠️ No se procesó ninguna detección válida.");
+                // La tabla pudo quedar vacía: los receptores y la versión de datos deben reflejarlo
+                ingestionHub.publishReload(List.of());
                 return;
             }
 
             logger.info("💾 Guardando {} detecciones válidas en la base de datos...", detections.size());
             
             // Guardar en lotes para mejor rendimiento
-            saveInBatches(detections);
+            Set<Detection> saved = Collections.newSetFromMap(new IdentityHashMap<>());
+            saved.addAll(saveInBatches(detections));
+
+            // Solo se publican las detecciones que quedaron en la tabla, con el id que les asignó la base de datos
+            List<DetectionJson> published = new ArrayList<>(saved.size());
+            for (int i = 0; i < validJson.size(); i++) {
+                Detection entity = converted.get(i);
+                if (entity != null && entity.getId() != null && saved.contains(entity)) {
+                    validJson.get(i).setId(entity.getId());
+                    published.add(validJson.get(i));
+                }
+            }
+            if (published.size() < validJson.size()) {
+                logger.warn("⚠️ {} detecciones no se guardaron y no se publican a los agregados",
+                    validJson.size() - published.size());
+            }
+
+            // Actualizar los agregados en memoria una vez confirmada la transacción
+            ingestionHub.publishReload(published);
 
             // Verificar que se guardaron correctamente
             long finalCount = detectionRepository.count();
@@ -130,13 +162,22 @@ public class JsonLoader {
         try {
             logger.debug("🔄 Procesando detección con timestamp_ms: {}", detectionJson.getTimestamp_ms());
             
-            return Detection.builder()
+            Detection.DetectionBuilder builder = Detection.builder()
                 .timestampMs(detectionJson.getTimestamp_ms())
                 .date(detectionJson.getDate() != null ? detectionJson.getDate() : "")
                 .objectsTotal(safeWriteValueAsString(detectionJson.getObjects_total()))
                 .objectsByLane(safeWriteValueAsString(detectionJson.getObjects_by_lane()))
-                .avgSpeedByLane(safeWriteValueAsString(detectionJson.getAvg_speed_by_lane()))
-                .build();
+                .avgSpeedByLane(safeWriteValueAsString(detectionJson.getAvg_speed_by_lane()));
+
+            CalendarService.CalendarInfo calendar = calendarService.classify(detectionJson.getDate());
+            if (calendar != null) {
+                builder.localDate(calendar.localDate())
+                    .dayOfWeek(calendar.dayOfWeek().getValue())
+                    .hourOfDay(calendar.hourOfDay())
+                    .weekend(calendar.weekend())
+                    .holiday(calendar.holiday());
+            }
+            return builder.build();
                 
         } catch (RuntimeException e) {
             logger.error("❌ Error procesando detección con timestamp_ms {}: {}", 
@@ -145,16 +186,20 @@ public class JsonLoader {
         }
     }
 
-    private void saveInBatches(List<Detection> detections) {
+    /**
+     * Guarda por lotes; un lote que falla se registra y se salta. Devuelve las entidades efectivamente guardadas
+     */
+    private List<Detection> saveInBatches(List<Detection> detections) {
         int batchSize = 20;
         int processedCount = 0;
+        List<Detection> saved = new ArrayList<>(detections.size());
         
         for (int i = 0; i < detections.size(); i += batchSize) {
             int endIndex = Math.min(i + batchSize, detections.size());
             List<Detection> batch = detections.subList(i, endIndex);
             
             try {
-                detectionRepository.saveAll(batch);
+                detectionRepository.saveAll(batch).forEach(saved::add);
                 processedCount += batch.size();
                 logger.debug("💾 Lote guardado: {} - {} ({} registros)", i + 1, endIndex, batch.size());
             } catch (DataAccessException e) {
@@ -165,6 +210,7 @@ public class JsonLoader {
         }
         
         logger.info("✅ Procesadas {} detecciones", processedCount);
+        return saved;
     }
 
     private String safeWriteValueAsString(Object value) {
@@ -211,6 +257,7 @@ public class JsonLoader {
             logger.info("🧹 Limpiando base de datos... ({} registros)", countBefore);
             
             detectionRepository.deleteAll();
+            ingestionHub.publishReload(List.of());
             
             long countAfter = detectionRepository.count();
             logger.info("✅ Base de datos limpiada. Registros restantes: {}", countAfter);
@@ -0,0 +1,192 @@
+package com.example.demo.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.service.DTO.DetectionJson;
+import com.example.demo.service.analytics.DetectionTimes;
+import com.example.demo.service.ingest.IngestionListener;
+
+/**
+ * Métricas de flujo por carril e intervalo: flujo (veh/h), densidad estimada como flujo/velocidad (veh/km),
+ * ocupación estimada a partir de la densidad y la longitud efectiva del vehículo, y nivel de servicio
+ * según los umbrales de densidad del HCM para autopistas. Cada detección actualiza el intervalo en curso
+ * y deja las métricas ya calculadas, así que las consultas solo leen.
+ */
+@Service
+public class LaneFlowService implements IngestionListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(LaneFlowService.class);
+
+    // Límites superiores de densidad (veh/km/carril) para los niveles A a E; por encima es F
+    private static final double[] LOS_DENSITY_LIMITS = {7.0, 11.0, 16.0, 22.0, 28.0};
+    private static final String[] LOS_LEVELS = {"A", "B", "C", "D", "E", "F"};
+
+    private final long bucketMillis;
+    private final int retentionBuckets;
+    private final double effectiveVehicleLength;
+
+    private final Map<String, NavigableMap<Long, Accumulator>> lanes = new HashMap<>();
+
+    public LaneFlowService(@Value("${app.flow.bucket-seconds:300}") int bucketSeconds,
+                           @Value("${app.flow.retention-buckets:288}") int retentionBuckets,
+                           @Value("${app.flow.effective-vehicle-length-m:6.5}") double effectiveVehicleLength) {
+        this.bucketMillis = Math.max(1, bucketSeconds) * 1000L;
+        this.retentionBuckets = Math.max(1, retentionBuckets);
+        this.effectiveVehicleLength = effectiveVehicleLength;
+        logger.info("🚥 Métricas de flujo por carril en intervalos de {} s ({} intervalos en memoria)",
+            bucketMillis / 1000, this.retentionBuckets);
+    }
+
+    @Override
+    public synchronized void onReset() {
+        lanes.clear();
+    }
+
+    @Override
+    public synchronized void onDetection(DetectionJson detection) {
+        long time = DetectionTimes.toEpochMillis(detection.getDate());
+        if (time == DetectionTimes.UNKNOWN) {
+            return;
+        }
+        long start = DetectionTimes.floorToBucket(time, bucketMillis);
+
+        if (detection.getObjects_by_lane() != null) {
+            detection.getObjects_by_lane().forEach((lane, vehicles) -> {
+                if (vehicles != null) {
+                    long laneTotal = vehicles.values().stream()
+                        .filter(count -> count != null && count > 0)
+                        .mapToLong(Integer::longValue)
+                        .sum();
+                    bucket(lane, start).addVehicles(laneTotal);
+                }
+            });
+        }
+        if (detection.getAvg_speed_by_lane() != null) {
+            detection.getAvg_speed_by_lane().forEach((lane, speed) -> {
+                if (speed != null && speed > 0) {
+                    bucket(lane, start).addSpeed(speed);
+                }
+            });
+        }
+    }
+
+    /**
+     * Intervalos por carril en [from, to] (null = todo lo retenido) y el último intervalo de cada carril
+     */
+    public synchronized Map<String, Object> getLaneFlow(String lane, String from, String to) {
+        Long fromMillis = DetectionTimes.parseBound(from);
+        Long toMillis = DetectionTimes.parseBound(to);
+        if (lane != null && !lane.isBlank() && !lanes.containsKey(lane.trim())) {
+            throw new IllegalArgumentException("Carril desconocido: " + lane);
+        }
+        long lower = fromMillis != null ? DetectionTimes.floorToBucket(fromMillis, bucketMillis) : Long.MIN_VALUE;
+        long upper = toMillis != null ? toMillis : Long.MAX_VALUE;
+
+        Map<String, Object> byLane = new TreeMap<>();
+        lanes.forEach((name, buckets) -> {
+            if (lane != null && !lane.isBlank() && !lane.trim().equals(name)) {
+                return;
+            }
+            List<Map<String, Object>> intervals = new ArrayList<>();
+            buckets.subMap(lower, true, upper, true).values().forEach(bucket -> intervals.add(bucket.metrics.toMap()));
+            Map<String, Object> laneResult = new LinkedHashMap<>();
+            laneResult.put("latest", buckets.isEmpty() ? null : buckets.lastEntry().getValue().metrics.toMap());
+            laneResult.put("intervals", intervals);
+            byLane.put(name, laneResult);
+        });
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("bucketSeconds", bucketMillis / 1000);
+        result.put("effectiveVehicleLengthM", effectiveVehicleLength);
+        result.put("lanes", byLane);
+        return result;
+    }
+
+    private Accumulator bucket(String lane, long start) {
+        NavigableMap<Long, Accumulator> buckets = lanes.computeIfAbsent(lane, k -> new TreeMap<>());
+        Accumulator bucket = buckets.computeIfAbsent(start, Accumulator::new);
+        while (buckets.size() > retentionBuckets) {
+            buckets.pollFirstEntry();
+        }
+        return bucket;
+    }
+
+    private static String levelOfService(double density) {
+        for (int i = 0; i < LOS_DENSITY_LIMITS.length; i++) {
+            if (density <= LOS_DENSITY_LIMITS[i]) {
+                return LOS_LEVELS[i];
+            }
+        }
+        return LOS_LEVELS[LOS_LEVELS.length - 1];
+    }
+
+    /**
+     * Métricas ya calculadas de un intervalo (inmutables)
+     */
+    private record FlowMetrics(long start, long end, long vehicles, double flow, double speed,
+                               double density, double occupancy, String los) {
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("start", DetectionTimes.format(start));
+            map.put("end", DetectionTimes.format(end));
+            map.put("vehicles", vehicles);
+            map.put("flowVehPerHour", round(flow));
+            map.put("avgSpeed", round(speed));
+            map.put("densityVehPerKm", round(density));
+            map.put("occupancyPercent", round(occupancy));
+            map.put("levelOfService", los);
+            return map;
+        }
+
+        private static double round(double value) {
+            return Math.round(value * 100.0) / 100.0;
+        }
+    }
+
+    private final class Accumulator {
+
+        private final long start;
+        private long vehicles;
+        private double speedSum;
+        private long speedSamples;
+        private FlowMetrics metrics;
+
+        Accumulator(long start) {
+            this.start = start;
+            refresh();
+        }
+
+        void addVehicles(long count) {
+            vehicles += count;
+            refresh();
+        }
+
+        void addSpeed(double speed) {
+            speedSum += speed;
+            speedSamples++;
+            refresh();
+        }
+
+        private void refresh() {
+            double flow = vehicles * 3_600_000.0 / bucketMillis;
+            double speed = speedSamples == 0 ? 0.0 : speedSum / speedSamples;
+            // Sin velocidad medida no se puede estimar la densidad (q = k·v)
+            double density = speed > 0 ? flow / speed : 0.0;
+            double occupancy = Math.min(100.0, density * effectiveVehicleLength / 1000.0 * 100.0);
+            String los = speed > 0 ? levelOfService(density) : "N/A";
+            metrics = new FlowMetrics(start, start + bucketMillis - 1, vehicles, flow, speed, density, occupancy, los);
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package com.example.demo.service;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.example.demo.service.DTO.DetectionJson;
+import com.example.demo.service.ingest.IngestionListener;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Flujo SSE de métricas en vivo. Al confirmar cada carga se calcula una sola vez el delta respecto a lo
+ * último publicado (vehículos nuevos por tipo, velocidades por carril que cambiaron y cambios de congestión),
+ * se serializa una vez y el mismo evento se encola a todos los clientes. Cada cliente tiene una cola acotada
+ * que vacían unos pocos hilos escritores; si se llena, el cliente es lento y se desconecta.
+ */
+@Service
+public class LiveMetricsStreamService implements IngestionListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(LiveMetricsStreamService.class);
+
+    private final CongestionDetectionService congestionDetectionService;
+    private final ObjectMapper objectMapper;
+    private final int maxClients;
+    private final int clientBuffer;
+    private final long emitterTimeoutMillis;
+    private final ExecutorService writers;
+    private final ScheduledExecutorService heartbeat;
+
+    private final Set<Client> clients = ConcurrentHashMap.newKeySet();
+    private final LongAdder broadcasts = new LongAdder();
+    private final LongAdder sentFrames = new LongAdder();
+    private final LongAdder droppedSlowClients = new LongAdder();
+    private final LongAdder rejectedClients = new LongAdder();
+
+    // Estado que acumula el hilo de ingesta entre confirmaciones
+    private final Map<String, Long> totals = new TreeMap<>();
+    private final Map<String, Double> laneSpeeds = new TreeMap<>();
+    private long detections;
+
+    // Último estado publicado y su evento completo para clientes nuevos
+    private Map<String, Long> publishedTotals = Map.of();
+    private Map<String, Double> publishedSpeeds = Map.of();
+    private Map<String, String> publishedCongestion = Map.of();
+    private long publishedDetections;
+    // Cambiar el snapshot y repartir el delta es atómico frente a subscribe(): un cliente nuevo recibe
+    // el snapshot anterior más el delta, o el snapshot nuevo sin el delta, nunca ambos
+    private final Object publishLock = new Object();
+    private Set<DataWithMediaType> snapshotFrame;
+
+    public LiveMetricsStreamService(CongestionDetectionService congestionDetectionService,
+                                    ObjectMapper objectMapper,
+                                    @Value("${app.stream.max-clients:5000}") int maxClients,
+                                    @Value("${app.stream.client-buffer:16}") int clientBuffer,
+                                    @Value("${app.stream.writer-threads:4}") int writerThreads,
+                                    @Value("${app.stream.heartbeat-seconds:15}") int heartbeatSeconds,
+                                    @Value("${app.stream.emitter-timeout-ms:1800000}") long emitterTimeoutMillis) {
+        this.congestionDetectionService = congestionDetectionService;
+        this.objectMapper = objectMapper;
+        this.maxClients = Math.max(1, maxClients);
+        this.clientBuffer = Math.max(1, clientBuffer);
+        this.emitterTimeoutMillis = emitterTimeoutMillis;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.writers = Executors.newFixedThreadPool(Math.max(1, writerThreads), runnable -> {
+            Thread thread = new Thread(runnable, "Live-Stream-Writer-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Live-Stream-Heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // El comentario mantiene viva la conexión en proxies y detecta clientes que ya se fueron
+        Set<DataWithMediaType> ping = SseEmitter.event().comment("ping").build();
+        long period = Math.max(1, heartbeatSeconds);
+        heartbeat.scheduleAtFixedRate(() -> clients.forEach(client -> client.offer(ping)), period, period, TimeUnit.SECONDS);
+        logger.info("📡 Flujo en vivo: hasta {} clientes, {} eventos en cola por cliente", this.maxClients, this.clientBuffer);
+    }
+
+    @Override
+    public void onReset() {
+        totals.clear();
+        laneSpeeds.clear();
+        detections = 0;
+    }
+
+    @Override
+    public void onDetection(DetectionJson detection) {
+        detections++;
+        if (detection.getObjects_total() != null) {
+            detection.getObjects_total().forEach((type, count) -> {
+                if (count != null && count > 0) {
+                    totals.merge(type, count.longValue(), Long::sum);
+                }
+            });
+        }
+        if (detection.getAvg_speed_by_lane() != null) {
+            detection.getAvg_speed_by_lane().forEach((lane, speed) -> {
+                if (speed != null && speed > 0) {
+                    laneSpeeds.put(lane, round(speed));
+                }
+            });
+        }
+    }
+
+    @Override
+    public void onCommit(long dataVersion) {
+        Map<String, String> congestion = new TreeMap<>();
+        congestionDetectionService.getCurrentStates()
+            .forEach((lane, state) -> congestion.put(lane, state.congested() ? "CONGESTED" : "FREE_FLOW"));
+
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("version", dataVersion);
+        snapshot.put("detections", detections);
+        snapshot.put("totals", new TreeMap<>(totals));
+        snapshot.put("laneSpeeds", new TreeMap<>(laneSpeeds));
+        snapshot.put("congestion", congestion);
+
+        // Si el historial se achicó no hay delta válido: se reenvía el estado completo
+        boolean shrank = detections < publishedDetections
+            || publishedTotals.entrySet().stream().anyMatch(entry -> totals.getOrDefault(entry.getKey(), 0L) < entry.getValue());
+
+        Set<DataWithMediaType> frame;
+        if (shrank) {
+            frame = frame(dataVersion, "snapshot", snapshot);
+        } else {
+            Map<String, Long> newCounts = new TreeMap<>();
+            totals.forEach((type, count) -> {
+                long added = count - publishedTotals.getOrDefault(type, 0L);
+                if (added > 0) {
+                    newCounts.put(type, added);
+                }
+            });
+            Map<String, Double> changedSpeeds = new TreeMap<>();
+            laneSpeeds.forEach((lane, speed) -> {
+                if (!speed.equals(publishedSpeeds.get(lane))) {
+                    changedSpeeds.put(lane, speed);
+                }
+            });
+            Map<String, String> changedCongestion = new TreeMap<>();
+            congestion.forEach((lane, state) -> {
+                if (!state.equals(publishedCongestion.get(lane))) {
+                    changedCongestion.put(lane, state);
+                }
+            });
+
+            frame = null;
+            if (!newCounts.isEmpty() || !changedSpeeds.isEmpty() || !changedCongestion.isEmpty()
+                    || detections != publishedDetections) {
+                Map<String, Object> delta = new LinkedHashMap<>();
+                delta.put("version", dataVersion);
+                delta.put("newDetections", detections - publishedDetections);
+                delta.put("newCounts", newCounts);
+                delta.put("laneSpeeds", changedSpeeds);
+                delta.put("congestion", changedCongestion);
+                frame = frame(dataVersion, "delta", delta);
+            }
+        }
+
+        publishedTotals = Map.copyOf(totals);
+        publishedSpeeds = Map.copyOf(laneSpeeds);
+        publishedCongestion = Map.copyOf(congestion);
+        publishedDetections = detections;
+        Set<DataWithMediaType> snapshotEvent = frame(dataVersion, "snapshot", snapshot);
+
+        synchronized (publishLock) {
+            snapshotFrame = snapshotEvent;
+            if (frame != null) {
+                broadcasts.increment();
+                for (Client client : clients) {
+                    client.offer(frame);
+                }
+            }
+        }
+    }
+
+    /**
+     * Registra un cliente; recibe primero el estado completo y luego los deltas de cada carga
+     */
+    public SseEmitter subscribe() {
+        if (clients.size() >= maxClients) {
+            rejectedClients.increment();
+            throw new IllegalStateException("Límite de " + maxClients + " clientes del flujo en vivo alcanzado");
+        }
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+        Client client = new Client(emitter);
+        emitter.onCompletion(client::close);
+        emitter.onTimeout(client::close);
+        emitter.onError(error -> client.close());
+
+        synchronized (publishLock) {
+            clients.add(client);
+            if (snapshotFrame != null) {
+                client.offer(snapshotFrame);
+            }
+        }
+        return emitter;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("clients", clients.size());
+        stats.put("maxClients", maxClients);
+        stats.put("clientBuffer", clientBuffer);
+        stats.put("broadcasts", broadcasts.sum());
+        stats.put("sentFrames", sentFrames.sum());
+        stats.put("droppedSlowClients", droppedSlowClients.sum());
+        stats.put("rejectedClients", rejectedClients.sum());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeat.shutdownNow();
+        clients.forEach(Client::close);
+        writers.shutdownNow();
+    }
+
+    private Set<DataWithMediaType> frame(long version, String name, Map<String, Object> payload) {
+        try {
+            String json = objectMapper.writeValueAsString(payload);
+            return SseEmitter.event().id(Long.toString(version)).name(name).data(json, MediaType.APPLICATION_JSON).build();
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el evento " + name, e);
+        }
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+
+    /**
+     * Un cliente conectado: cola acotada de eventos ya serializados y a lo sumo un hilo escritor a la vez
+     */
+    private final class Client {
+
+        private final SseEmitter emitter;
+        private final BlockingQueue<Set<DataWithMediaType>> queue = new ArrayBlockingQueue<>(clientBuffer);
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private volatile boolean closed;
+
+        Client(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void offer(Set<DataWithMediaType> frame) {
+            if (closed) {
+                return;
+            }
+            if (!queue.offer(frame)) {
+                // Cliente lento: se desconecta sin esperar; el escritor completa el emisor fuera de este hilo
+                droppedSlowClients.increment();
+                logger.debug("⚠️ Cliente lento desconectado del flujo en vivo");
+                close();
+            }
+            schedule();
+        }
+
+        void close() {
+            closed = true;
+            clients.remove(this);
+            queue.clear();
+        }
+
+        private void schedule() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    writers.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                if (closed) {
+                    completeQuietly();
+                    return;
+                }
+                Set<DataWithMediaType> frame = queue.poll();
+                if (frame == null) {
+                    draining.set(false);
+                    // Un evento pudo llegar entre el poll y el set: se retoma si nadie más lo hizo
+                    if ((queue.isEmpty() && !closed) || !draining.compareAndSet(false, true)) {
+                        return;
+                    }
+                    continue;
+                }
+                try {
+                    emitter.send(frame);
+                    sentFrames.increment();
+                } catch (IOException | IllegalStateException e) {
+                    close();
+                }
+            }
+        }
+
+        private void completeQuietly() {
+            try {
+                emitter.complete();
+            } catch (IllegalStateException e) {
+                // Ya estaba completado
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.demo.service;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.repository.DetectionRepository;
+import com.example.demo.service.DTO.DetectionJson;
+import com.example.demo.service.analytics.PartitionedAggregation;
+import com.example.demo.service.analytics.TrafficAggregate;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Agregación paralela del historial completo.
+ * Usa un único ForkJoinPool acotado compartido por todas las peticiones: aunque lleguen muchas a la vez,
+ * nunca hay más de {@code parallelism} hilos agregando ni más de ese número de conexiones de BD en uso.
+ */
+@Service
+public class ParallelAggregationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParallelAggregationService.class);
+
+    private final DetectionRepository detectionRepository;
+    private final DetectionMapper detectionMapper;
+    private final ForkJoinPool pool;
+    private final int partitions;
+
+    public ParallelAggregationService(DetectionRepository detectionRepository,
+                                      DetectionMapper detectionMapper,
+                                      @Value("${app.analysis.parallelism:4}") int parallelism,
+                                      @Value("${app.analysis.partitions-per-thread:4}") int partitionsPerThread) {
+        this.detectionRepository = detectionRepository;
+        this.detectionMapper = detectionMapper;
+        int threads = Math.max(1, Math.min(parallelism, Runtime.getRuntime().availableProcessors()));
+        this.pool = new ForkJoinPool(threads);
+        this.partitions = threads * Math.max(1, partitionsPerThread);
+        logger.info("⚙️ Agregación paralela configurada con {} hilos y {} particiones", threads, partitions);
+    }
+
+    /**
+     * Agrega todo el historial dividiendo el rango de timestamps en particiones
+     */
+    public TrafficAggregate aggregateAll() {
+        Long min = detectionRepository.findMinTimestamp();
+        Long max = detectionRepository.findMaxTimestamp();
+        if (min == null || max == null) {
+            return new TrafficAggregate();
+        }
+
+        long start = System.nanoTime();
+        TrafficAggregate result = PartitionedAggregation.aggregate(pool, this::loadPartition, min, max + 1, partitions);
+        logger.debug("⚡ Agregación paralela de {} detecciones en {} ms",
+                     result.getDetections(), (System.nanoTime() - start) / 1_000_000);
+        return result;
+    }
+
+    private List<DetectionJson> loadPartition(long fromInclusive, long toExclusive) {
+        return detectionRepository.findByTimestampMsGreaterThanEqualAndTimestampMsLessThan(fromInclusive, toExclusive)
+            .stream()
+            .map(detectionMapper::toDetectionJson)
+            .toList();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,280 @@
+package com.example.demo.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.service.DTO.DetectionJson;
+import com.example.demo.service.analytics.DetectionTimes;
+import com.example.demo.service.analytics.TopKTracker;
+import com.example.demo.service.ingest.IngestionListener;
+
+/**
+ * Intervalos pico por día: los minutos (o ventanas de 5 minutos) con más vehículos y los de menor
+ * velocidad media, en total y por carril. Cada bucket se acumula en la ingesta y al cerrarse se ofrece
+ * a heaps acotados de tamaño {@code max-k}, así una consulta responde en O(K) sin ordenar el historial.
+ */
+@Service
+public class PeakIntervalService implements IngestionListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(PeakIntervalService.class);
+
+    private static final String ALL_LANES = "all";
+    private static final Map<String, Long> WINDOWS = Map.of("1m", 60_000L, "5m", 300_000L);
+    private static final Comparator<Peak> BUSIEST = Comparator.comparingDouble(Peak::value)
+        .thenComparing(Comparator.comparingLong(Peak::start).reversed());
+    private static final Comparator<Peak> SLOWEST = Comparator.comparingDouble(Peak::value).reversed()
+        .thenComparing(Comparator.comparingLong(Peak::start).reversed());
+
+    private final int maxK;
+    private final int retentionDays;
+
+    // día -> "ventana|métrica|carril" -> heap acotado
+    private final NavigableMap<String, Map<String, TopKTracker<Peak>>> peaksByDay = new TreeMap<>();
+    private final Map<String, OpenBucket> openBuckets = new HashMap<>();
+    private final Set<String> knownLanes = new TreeSet<>();
+    private long lateDetections;
+
+    public PeakIntervalService(@Value("${app.peaks.max-k:50}") int maxK,
+                               @Value("${app.peaks.retention-days:7}") int retentionDays) {
+        this.maxK = Math.max(1, maxK);
+        this.retentionDays = Math.max(1, retentionDays);
+        logger.info("🏔️ Intervalos pico: K máximo {}, {} días en memoria", this.maxK, this.retentionDays);
+    }
+
+    @Override
+    public synchronized void onReset() {
+        peaksByDay.clear();
+        openBuckets.clear();
+        knownLanes.clear();
+        lateDetections = 0;
+    }
+
+    @Override
+    public synchronized void onDetection(DetectionJson detection) {
+        long time = DetectionTimes.toEpochMillis(detection.getDate());
+        if (time == DetectionTimes.UNKNOWN) {
+            return;
+        }
+        if (detection.getObjects_by_lane() != null) {
+            knownLanes.addAll(detection.getObjects_by_lane().keySet());
+        }
+        if (detection.getAvg_speed_by_lane() != null) {
+            knownLanes.addAll(detection.getAvg_speed_by_lane().keySet());
+        }
+        WINDOWS.forEach((window, millis) -> {
+            long start = DetectionTimes.floorToBucket(time, millis);
+            OpenBucket bucket = openBuckets.get(window);
+            if (bucket != null && start < bucket.start) {
+                // Llega fuera de orden respecto al bucket abierto: ya no se puede atribuir a un bucket cerrado
+                lateDetections++;
+                return;
+            }
+            if (bucket == null || start > bucket.start) {
+                if (bucket != null) {
+                    close(window, bucket);
+                }
+                bucket = new OpenBucket(start, millis);
+                openBuckets.put(window, bucket);
+            }
+            bucket.accept(detection);
+        });
+    }
+
+    @Override
+    public synchronized void onCommit(long dataVersion) {
+        if (lateDetections > 0) {
+            logger.debug("⚠️ {} detecciones fuera de orden no se contaron en los picos", lateDetections);
+        }
+    }
+
+    /**
+     * Los {@code k} intervalos pico del día; metric = volume (más vehículos) o speed (menor velocidad media).
+     * Incluye el bucket aún abierto como candidato.
+     */
+    public synchronized List<Map<String, Object>> getPeaks(int k, String metric, String lane, String window, String day) {
+        if (k < 1 || k > maxK) {
+            throw new IllegalArgumentException("k debe estar entre 1 y " + maxK + ": " + k);
+        }
+        Metric parsedMetric = Metric.parse(metric);
+        String windowKey = window == null || window.isBlank() ? "1m" : window.trim();
+        if (!WINDOWS.containsKey(windowKey)) {
+            throw new IllegalArgumentException("Ventana no soportada (1m o 5m): " + window);
+        }
+        String laneKey = lane == null || lane.isBlank() ? ALL_LANES : lane.trim();
+        if (!ALL_LANES.equals(laneKey) && !knownLanes.isEmpty() && !knownLanes.contains(laneKey)) {
+            throw new IllegalArgumentException("Carril desconocido: " + lane + " (conocidos: " + knownLanes + ")");
+        }
+
+        OpenBucket open = openBuckets.get(windowKey);
+        String targetDay = day;
+        if (targetDay == null || targetDay.isBlank()) {
+            targetDay = open != null ? dayOf(open.start) : peaksByDay.isEmpty() ? null : peaksByDay.lastKey();
+        }
+        if (targetDay == null) {
+            return List.of();
+        }
+
+        Comparator<Peak> order = parsedMetric == Metric.VOLUME ? BUSIEST : SLOWEST;
+        TopKTracker<Peak> candidates = new TopKTracker<>(k, order);
+        Map<String, TopKTracker<Peak>> dayPeaks = peaksByDay.get(targetDay);
+        if (dayPeaks != null) {
+            TopKTracker<Peak> stored = dayPeaks.get(heapKey(windowKey, parsedMetric, laneKey));
+            if (stored != null) {
+                stored.top(k).forEach(candidates::offer);
+            }
+        }
+        if (open != null && targetDay.equals(dayOf(open.start))) {
+            Peak current = open.peak(parsedMetric, laneKey);
+            if (current != null) {
+                candidates.offer(current);
+            }
+        }
+
+        List<Map<String, Object>> result = new ArrayList<>();
+        int rank = 1;
+        for (Peak peak : candidates.top(k)) {
+            Map<String, Object> item = peak.toMap();
+            item.put("rank", rank++);
+            item.put("lane", laneKey);
+            item.put("metric", parsedMetric.label);
+            item.put("window", windowKey);
+            result.add(item);
+        }
+        return result;
+    }
+
+    private void close(String window, OpenBucket bucket) {
+        String day = dayOf(bucket.start);
+        Map<String, TopKTracker<Peak>> dayPeaks = peaksByDay.computeIfAbsent(day, k -> new HashMap<>());
+        for (String lane : bucket.lanes()) {
+            for (Metric metric : Metric.values()) {
+                Peak peak = bucket.peak(metric, lane);
+                if (peak != null) {
+                    dayPeaks.computeIfAbsent(heapKey(window, metric, lane),
+                        k -> new TopKTracker<>(maxK, metric == Metric.VOLUME ? BUSIEST : SLOWEST)).offer(peak);
+                }
+            }
+        }
+        while (peaksByDay.size() > retentionDays) {
+            peaksByDay.pollFirstEntry();
+        }
+    }
+
+    private static String heapKey(String window, Metric metric, String lane) {
+        return window + "|" + metric.label + "|" + lane;
+    }
+
+    private static String dayOf(long epochMillis) {
+        return DetectionTimes.format(epochMillis).substring(0, 10);
+    }
+
+    private enum Metric {
+        VOLUME("volume"), SPEED("speed");
+
+        private final String label;
+
+        Metric(String label) {
+            this.label = label;
+        }
+
+        static Metric parse(String value) {
+            if (value == null || value.isBlank()) {
+                return VOLUME;
+            }
+            for (Metric metric : values()) {
+                if (metric.label.equalsIgnoreCase(value.trim())) {
+                    return metric;
+                }
+            }
+            throw new IllegalArgumentException("Métrica no soportada (volume o speed): " + value);
+        }
+    }
+
+    private record Peak(long start, long end, double value, long samples) {
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("start", DetectionTimes.format(start));
+            map.put("end", DetectionTimes.format(end));
+            map.put("value", Math.round(value * 100.0) / 100.0);
+            map.put("samples", samples);
+            return map;
+        }
+    }
+
+    private static final class OpenBucket {
+
+        private final long start;
+        private final long millis;
+        private final Map<String, Long> volume = new TreeMap<>();
+        private final Map<String, double[]> speed = new TreeMap<>();
+
+        OpenBucket(long start, long millis) {
+            this.start = start;
+            this.millis = millis;
+        }
+
+        void accept(DetectionJson detection) {
+            if (detection.getObjects_total() != null) {
+                detection.getObjects_total().values().forEach(count -> {
+                    if (count != null && count > 0) {
+                        volume.merge(ALL_LANES, count.longValue(), Long::sum);
+                    }
+                });
+            }
+            if (detection.getObjects_by_lane() != null) {
+                detection.getObjects_by_lane().forEach((lane, vehicles) -> {
+                    if (vehicles != null) {
+                        vehicles.values().forEach(count -> {
+                            if (count != null && count > 0) {
+                                volume.merge(lane, count.longValue(), Long::sum);
+                            }
+                        });
+                    }
+                });
+            }
+            if (detection.getAvg_speed_by_lane() != null) {
+                detection.getAvg_speed_by_lane().forEach((lane, value) -> {
+                    if (value != null && value > 0) {
+                        addSpeed(lane, value);
+                        addSpeed(ALL_LANES, value);
+                    }
+                });
+            }
+        }
+
+        private void addSpeed(String lane, double value) {
+            double[] stats = speed.computeIfAbsent(lane, k -> new double[2]);
+            stats[0] += value;
+            stats[1]++;
+        }
+
+        Set<String> lanes() {
+            Set<String> lanes = new TreeSet<>(volume.keySet());
+            lanes.addAll(speed.keySet());
+            return lanes;
+        }
+
+        Peak peak(Metric metric, String lane) {
+            if (metric == Metric.VOLUME) {
+                Long vehicles = volume.get(lane);
+                return vehicles == null ? null : new Peak(start, start + millis - 1, vehicles, vehicles);
+            }
+            double[] stats = speed.get(lane);
+            return stats == null ? null : new Peak(start, start + millis - 1, stats[0] / stats[1], (long) stats[1]);
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.example.demo.service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.service.DTO.DetectionJson;
+import com.example.demo.service.analytics.DetectionTimes;
+import com.example.demo.service.analytics.RangeAggregateTree;
+import com.example.demo.service.ingest.IngestionListener;
+
+/**
+ * Índice en memoria de conteos de vehículos por bucket de tiempo (total, tipo, carril y carril/tipo).
+ * Se actualiza en cada detección ingerida y responde suma y máximo por bucket de cualquier rango
+ * [from, to] en O(log n) sin consultar la base de datos.
+ */
+@Service
+public class RangeIndexService implements IngestionListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(RangeIndexService.class);
+    private static final String TOTAL = "total";
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final long bucketMillis;
+    private final long maxSpanBuckets;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Claves: tipo -> árbol, carril -> (tipo -> árbol); el tipo TOTAL agrupa todos los vehículos
+    private final Map<String, RangeAggregateTree> byType = new TreeMap<>();
+    private final Map<String, Map<String, RangeAggregateTree>> byLane = new TreeMap<>();
+    private long originBucket = DetectionTimes.UNKNOWN;
+    private long lastBucket = DetectionTimes.UNKNOWN;
+    private long discarded;
+
+    public RangeIndexService(@Value("${app.range-index.bucket-seconds:60}") int bucketSeconds,
+                             @Value("${app.range-index.retention-hours:168}") int retentionHours) {
+        this.bucketMillis = Math.max(1, bucketSeconds) * 1000L;
+        // Los árboles son densos: el tramo cubierto se acota para que un dato atípico no reserve millones de buckets
+        this.maxSpanBuckets = Math.max(1, Math.max(1, retentionHours) * 3_600_000L / bucketMillis);
+        logger.info("🌳 Índice de rangos con buckets de {} s y retención de {} h", Math.max(1, bucketSeconds),
+            Math.max(1, retentionHours));
+    }
+
+    @Override
+    public void onReset() {
+        lock.writeLock().lock();
+        try {
+            byType.clear();
+            byLane.clear();
+            originBucket = DetectionTimes.UNKNOWN;
+            lastBucket = DetectionTimes.UNKNOWN;
+            discarded = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void onDetection(DetectionJson detection) {
+        long time = DetectionTimes.toEpochMillis(detection.getDate());
+        if (time == DetectionTimes.UNKNOWN) {
+            return;
+        }
+        long bucket = Math.floorDiv(time, bucketMillis);
+
+        lock.writeLock().lock();
+        try {
+            int index = indexOf(bucket);
+            if (index < 0) {
+                discarded++;
+                return;
+            }
+            if (detection.getObjects_total() != null) {
+                detection.getObjects_total().forEach((type, count) -> {
+                    if (count != null && count > 0) {
+                        tree(byType, type).add(index, count);
+                        tree(byType, TOTAL).add(index, count);
+                    }
+                });
+            }
+            if (detection.getObjects_by_lane() != null) {
+                detection.getObjects_by_lane().forEach((lane, vehicles) -> {
+                    if (vehicles == null) {
+                        return;
+                    }
+                    Map<String, RangeAggregateTree> laneTrees = byLane.computeIfAbsent(lane, k -> new TreeMap<>());
+                    vehicles.forEach((type, count) -> {
+                        if (count != null && count > 0) {
+                            tree(laneTrees, type).add(index, count);
+                            tree(laneTrees, TOTAL).add(index, count);
+                        }
+                    });
+                });
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Árbol Tráfico → Vehículos/Carriles con el total y el pico por bucket de cada nodo en [from, to].
+     * Un rango que no toca los datos retenidos da un árbol con conteos en cero
+     */
+    public Map<String, Object> getTree(Long from, Long to) {
+        if (from != null && to != null && from > to) {
+            throw new IllegalArgumentException("from (" + DetectionTimes.format(from) + ") es posterior a to ("
+                + DetectionTimes.format(to) + ")");
+        }
+        lock.readLock().lock();
+        try {
+            if (originBucket == DetectionTimes.UNKNOWN) {
+                return null;
+            }
+            int last = (int) (lastBucket - originBucket);
+            int requestedFrom = from == null ? 0 : clampIndex(Math.floorDiv(from, bucketMillis));
+            int requestedTo = to == null ? last : clampIndex(Math.floorDiv(to, bucketMillis));
+            if (requestedFrom > last || requestedTo < 0) {
+                return emptyTree(from, to);
+            }
+            int fromIndex = Math.max(0, requestedFrom);
+            int toIndex = Math.min(last, requestedTo);
+
+            Map<String, Object> root = node("Traffic Data", byType.get(TOTAL), fromIndex, toIndex);
+            root.put("from", DetectionTimes.format((originBucket + fromIndex) * bucketMillis));
+            root.put("to", DetectionTimes.format((originBucket + toIndex + 1) * bucketMillis - 1));
+            root.put("bucketSeconds", bucketMillis / 1000);
+            root.put("discardedDetections", discarded);
+
+            List<Map<String, Object>> vehicleNodes = new ArrayList<>();
+            byType.forEach((type, tree) -> {
+                if (!TOTAL.equals(type)) {
+                    vehicleNodes.add(node(type, tree, fromIndex, toIndex));
+                }
+            });
+            Map<String, Object> vehicles = node("Vehicles", byType.get(TOTAL), fromIndex, toIndex);
+            vehicles.put("children", vehicleNodes);
+
+            List<Map<String, Object>> laneNodes = new ArrayList<>();
+            long lanesTotal = 0;
+            for (Map.Entry<String, Map<String, RangeAggregateTree>> lane : byLane.entrySet()) {
+                Map<String, Object> laneNode = node(lane.getKey(), lane.getValue().get(TOTAL), fromIndex, toIndex);
+                List<Map<String, Object>> typeNodes = new ArrayList<>();
+                lane.getValue().forEach((type, tree) -> {
+                    if (!TOTAL.equals(type)) {
+                        typeNodes.add(node(type, tree, fromIndex, toIndex));
+                    }
+                });
+                laneNode.put("children", typeNodes);
+                laneNodes.add(laneNode);
+                lanesTotal += (Long) laneNode.get("count");
+            }
+            Map<String, Object> lanes = new LinkedHashMap<>();
+            lanes.put("value", "Lanes");
+            lanes.put("count", lanesTotal);
+            lanes.put("children", laneNodes);
+
+            root.put("children", List.of(vehicles, lanes));
+            return root;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Misma forma que {@link #getTree} con todo en cero; from/to repiten lo pedido (con el borde de los datos si falta)
+     */
+    private Map<String, Object> emptyTree(Long from, Long to) {
+        Map<String, Object> root = node("Traffic Data", null, 0, -1);
+        root.put("from", DetectionTimes.format(from != null ? from : originBucket * bucketMillis));
+        root.put("to", DetectionTimes.format(to != null ? to : (lastBucket + 1) * bucketMillis - 1));
+        root.put("bucketSeconds", bucketMillis / 1000);
+        root.put("discardedDetections", discarded);
+
+        Map<String, Object> vehicles = node("Vehicles", null, 0, -1);
+        vehicles.put("children", List.of());
+        Map<String, Object> lanes = new LinkedHashMap<>();
+        lanes.put("value", "Lanes");
+        lanes.put("count", 0L);
+        lanes.put("children", List.of());
+        root.put("children", List.of(vehicles, lanes));
+        return root;
+    }
+
+    private Map<String, Object> node(String label, RangeAggregateTree tree, int fromIndex, int toIndex) {
+        Map<String, Object> node = new LinkedHashMap<>();
+        node.put("value", label);
+        node.put("count", tree == null ? 0L : tree.sum(fromIndex, toIndex));
+        node.put("peakPerBucket", tree == null ? 0L : tree.max(fromIndex, toIndex));
+        return node;
+    }
+
+    /**
+     * Posición del bucket en los árboles, o -1 si queda fuera de la retención. Un dato más nuevo que la
+     * ventana la hace avanzar y descarta los buckets más viejos; uno más viejo que la ventana se ignora
+     */
+    private int indexOf(long bucket) {
+        if (originBucket == DetectionTimes.UNKNOWN) {
+            originBucket = bucket;
+            lastBucket = bucket;
+        } else if (bucket < originBucket) {
+            if (lastBucket - bucket >= maxSpanBuckets) {
+                return -1;
+            }
+            // Llegó un dato anterior al origen: se desplazan todos los árboles
+            int shift = Math.toIntExact(originBucket - bucket);
+            byType.values().forEach(tree -> tree.prepend(shift));
+            byLane.values().forEach(trees -> trees.values().forEach(tree -> tree.prepend(shift)));
+            originBucket = bucket;
+        } else if (bucket - originBucket >= maxSpanBuckets) {
+            // Se avanza con holgura para no reconstruir los árboles en cada bucket nuevo
+            long newOrigin = bucket - maxSpanBuckets + 1 + maxSpanBuckets / 8;
+            int shift = (int) Math.min(newOrigin - originBucket, Integer.MAX_VALUE);
+            byType.values().forEach(tree -> tree.discard(shift));
+            byLane.values().forEach(trees -> trees.values().forEach(tree -> tree.discard(shift)));
+            originBucket = newOrigin;
+        }
+        lastBucket = Math.max(lastBucket, bucket);
+        return Math.toIntExact(bucket - originBucket);
+    }
+
+    private int clampIndex(long bucket) {
+        long index = bucket - originBucket;
+        return (int) Math.max(-1, Math.min(index, lastBucket - originBucket + 1));
+    }
+
+    private RangeAggregateTree tree(Map<String, RangeAggregateTree> trees, String key) {
+        return trees.computeIfAbsent(key, k -> new RangeAggregateTree(INITIAL_CAPACITY));
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.demo.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.service.DTO.DetectionJson;
+import com.example.demo.service.analytics.DetectionTimes;
+import com.example.demo.service.analytics.SlidingWindowCounter;
+import com.example.demo.service.ingest.IngestionListener;
+
+/**
+ * Métricas en tiempo real de los últimos 1, 5 y 15 minutos por tipo de vehículo y por carril.
+ * La ventana se ancla a la detección más reciente ingerida, de modo que funciona igual con datos
+ * en vivo que al reprocesar un video grabado.
+ */
+@Service
+public class RealtimeMetricsService implements IngestionListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(RealtimeMetricsService.class);
+
+    private static final int[] WINDOW_MINUTES = {1, 5, 15};
+    private static final int COUNT = 0;
+    private static final int SPEED_SUM = 0;
+    private static final int SPEED_SAMPLES = 1;
+    // Las velocidades se guardan en milésimas para poder acumularlas en contadores long
+    private static final double SPEED_SCALE = 1000.0;
+
+    private final long bucketMillis;
+    private final int slots;
+
+    private final SlidingWindowCounter totalCounter;
+    private final Map<String, SlidingWindowCounter> typeCounters = new ConcurrentHashMap<>();
+    private final Map<String, SlidingWindowCounter> laneCounters = new ConcurrentHashMap<>();
+    private final Map<String, SlidingWindowCounter> laneSpeeds = new ConcurrentHashMap<>();
+    private volatile long latestBucket = DetectionTimes.UNKNOWN;
+
+    public RealtimeMetricsService(@Value("${app.realtime.bucket-seconds:10}") int bucketSeconds) {
+        this.bucketMillis = Math.max(1, bucketSeconds) * 1000L;
+        int maxWindowMillis = WINDOW_MINUTES[WINDOW_MINUTES.length - 1] * 60_000;
+        // Un bucket extra para que el bucket en curso no pise el más antiguo de la ventana mayor
+        this.slots = (int) ((maxWindowMillis + bucketMillis - 1) / bucketMillis) + 1;
+        this.totalCounter = new SlidingWindowCounter(slots, 1);
+        logger.info("⏱️ Ventanas en tiempo real con buckets de {} s ({} posiciones)", bucketSeconds, slots);
+    }
+
+    @Override
+    public void onReset() {
+        latestBucket = DetectionTimes.UNKNOWN;
+        typeCounters.clear();
+        laneCounters.clear();
+        laneSpeeds.clear();
+        totalCounter.clear();
+    }
+
+    @Override
+    public void onDetection(DetectionJson detection) {
+        long time = DetectionTimes.toEpochMillis(detection.getDate());
+        if (time == DetectionTimes.UNKNOWN) {
+            return;
+        }
+        long bucket = Math.floorDiv(time, bucketMillis);
+
+        if (detection.getObjects_total() != null) {
+            detection.getObjects_total().forEach((type, count) -> {
+                if (count != null && count > 0) {
+                    totalCounter.add(bucket, COUNT, count);
+                    typeCounters.computeIfAbsent(type, k -> new SlidingWindowCounter(slots, 1)).add(bucket, COUNT, count);
+                }
+            });
+        }
+
+        if (detection.getObjects_by_lane() != null) {
+            detection.getObjects_by_lane().forEach((lane, vehicles) -> {
+                if (vehicles != null) {
+                    long laneTotal = vehicles.values().stream()
+                        .filter(count -> count != null && count > 0)
+                        .mapToLong(Integer::longValue)
+                        .sum();
+                    laneCounters.computeIfAbsent(lane, k -> new SlidingWindowCounter(slots, 1)).add(bucket, COUNT, laneTotal);
+                }
+            });
+        }
+
+        if (detection.getAvg_speed_by_lane() != null) {
+            detection.getAvg_speed_by_lane().forEach((lane, speed) -> {
+                if (speed != null && speed > 0) {
+                    SlidingWindowCounter counter = laneSpeeds.computeIfAbsent(lane, k -> new SlidingWindowCounter(slots, 2));
+                    counter.add(bucket, SPEED_SUM, Math.round(speed * SPEED_SCALE));
+                    counter.add(bucket, SPEED_SAMPLES, 1);
+                }
+            });
+        }
+
+        if (latestBucket == DetectionTimes.UNKNOWN || bucket > latestBucket) {
+            latestBucket = bucket;
+        }
+    }
+
+    /**
+     * Vehículos por minuto, conteos por tipo y carril y velocidad media por carril en cada ventana
+     */
+    public Map<String, Object> getRealtimeMetrics() {
+        long anchor = latestBucket;
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("bucketSeconds", bucketMillis / 1000);
+        if (anchor == DetectionTimes.UNKNOWN) {
+            result.put("asOf", null);
+            result.put("windows", Map.of());
+            return result;
+        }
+        result.put("asOf", DetectionTimes.format((anchor + 1) * bucketMillis - 1));
+
+        Map<String, Object> windows = new LinkedHashMap<>();
+        for (int minutes : WINDOW_MINUTES) {
+            long from = anchor - (minutes * 60_000L / bucketMillis) + 1;
+            long vehicles = totalCounter.sum(from, anchor, COUNT);
+
+            Map<String, Object> window = new LinkedHashMap<>();
+            window.put("vehicles", vehicles);
+            window.put("vehiclesPerMinute", Math.round(vehicles * 100.0 / minutes) / 100.0);
+            window.put("byType", sumAll(typeCounters, from, anchor));
+            window.put("byLane", sumAll(laneCounters, from, anchor));
+
+            Map<String, Double> speeds = new TreeMap<>();
+            laneSpeeds.forEach((lane, counter) -> {
+                long samples = counter.sum(from, anchor, SPEED_SAMPLES);
+                if (samples > 0) {
+                    double mean = counter.sum(from, anchor, SPEED_SUM) / SPEED_SCALE / samples;
+                    speeds.put(lane, Math.round(mean * 100.0) / 100.0);
+                }
+            });
+            window.put("laneSpeed", speeds);
+            windows.put(minutes + "m", window);
+        }
+        result.put("windows", windows);
+        return result;
+    }
+
+    private Map<String, Long> sumAll(Map<String, SlidingWindowCounter> counters, long from, long to) {
+        Map<String, Long> totals = new TreeMap<>();
+        counters.forEach((key, counter) -> {
+            long total = counter.sum(from, to, COUNT);
+            if (total > 0) {
+                totals.put(key, total);
+            }
+        });
+        return totals;
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.demo.service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.service.DTO.DetectionJson;
+import com.example.demo.service.analytics.RecentRingBuffer;
+import com.example.demo.service.ingest.IngestionListener;
+
+/**
+ * Últimas N detecciones ingeridas en un buffer circular sin bloqueos.
+ * Alimenta los endpoints de /structures/* y el feed de detecciones recientes sin consultar la base de datos.
+ */
+@Service
+public class RecentDetectionsService implements IngestionListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecentDetectionsService.class);
+
+    private final int bufferSize;
+    // Cada recarga completa publica un buffer nuevo; los lectores en curso terminan sobre el anterior
+    private volatile RecentRingBuffer<Map<String, Object>> buffer;
+
+    public RecentDetectionsService(@Value("${app.recent.buffer-size:256}") int bufferSize) {
+        this.bufferSize = Math.max(1, bufferSize);
+        this.buffer = new RecentRingBuffer<>(this.bufferSize);
+        logger.info("🔁 Buffer de detecciones recientes con capacidad {}", this.bufferSize);
+    }
+
+    @Override
+    public void onReset() {
+        buffer = new RecentRingBuffer<>(bufferSize);
+    }
+
+    @Override
+    public void onDetection(DetectionJson detection) {
+        RecentRingBuffer<Map<String, Object>> target = buffer;
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("id", detection.getId());
+        // Posición de llegada dentro de la carga actual
+        item.put("seq", target.added() + 1);
+        item.put("date", detection.getDate() != null ? detection.getDate() : "N/A");
+        item.put("timestampMs", detection.getTimestamp_ms());
+        item.put("objectsTotal", copy(detection.getObjects_total()));
+        item.put("avgSpeedByLane", copy(detection.getAvg_speed_by_lane()));
+        target.add(Collections.unmodifiableMap(item));
+    }
+
+    /**
+     * Hasta {@code limit} detecciones, de la más nueva a la más antigua
+     */
+    public List<Map<String, Object>> getLatest(int limit) {
+        return buffer.latest(Math.max(0, limit));
+    }
+
+    /**
+     * Hasta {@code limit} detecciones en orden cronológico (la más antigua primero)
+     */
+    public List<Map<String, Object>> getLatestChronological(int limit) {
+        List<Map<String, Object>> latest = getLatest(limit);
+        Collections.reverse(latest);
+        return latest;
+    }
+
+    /**
+     * Feed de detecciones recientes con la ocupación del buffer
+     */
+    public Map<String, Object> getRecentFeed(int limit) {
+        RecentRingBuffer<Map<String, Object>> current = buffer;
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("capacity", current.capacity());
+        result.put("ingested", current.added());
+        result.put("detections", current.latest(Math.max(0, limit)));
+        return result;
+    }
+
+    private static <V> Map<String, V> copy(Map<String, V> source) {
+        return source == null ? Map.of() : Collections.unmodifiableMap(new TreeMap<>(source));
+    }
+}
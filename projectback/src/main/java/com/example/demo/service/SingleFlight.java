@@ -0,0 +1,95 @@
+package com.example.demo.service;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.service.ingest.IngestionHub;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Coalescencia de peticiones idénticas concurrentes: la primera ejecuta el cálculo y las que llegan mientras
+ * sigue en curso esperan y reciben el mismo resultado (o la misma excepción), así que una ráfaga de sondeos
+ * iguales cuesta un solo recorrido de la base de datos. No es una caché: al terminar el cálculo la entrada
+ * se borra. La clave incluye la versión de datos, de modo que tras una carga nadie se une a un cálculo viejo.
+ */
+@Component
+@RequiredArgsConstructor
+public class SingleFlight {
+
+    private static final Logger logger = LoggerFactory.getLogger(SingleFlight.class);
+
+    private final IngestionHub ingestionHub;
+
+    private final Map<String, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    /**
+     * Ejecuta {@code supplier} o se une a la ejecución en curso de la misma operación con los mismos argumentos.
+     * El resultado se comparte entre todos los que esperan y no debe modificarse.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String operation, Supplier<T> supplier, Object... args) {
+        String key = ingestionHub.getDataVersion() + ":" + operation + Arrays.toString(args);
+        CompletableFuture<Object> call = new CompletableFuture<>();
+        CompletableFuture<Object> existing = inFlight.putIfAbsent(key, call);
+        if (existing != null) {
+            coalesced.increment();
+            logger.debug("🔗 Petición unida al cálculo en curso de {}", key);
+            return (T) await(existing);
+        }
+
+        executions.increment();
+        try {
+            T result = supplier.get();
+            call.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, call);
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        long executed = executions.sum();
+        long joined = coalesced.sum();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("executions", executed);
+        metrics.put("coalesced", joined);
+        metrics.put("inFlight", inFlight.size());
+        metrics.put("coalescedRatio", executed + joined == 0 ? 0.0 : Math.round(joined * 10000.0 / (executed + joined)) / 100.0);
+        return metrics;
+    }
+
+    private static Object await(CompletableFuture<Object> call) {
+        try {
+            return call.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrumpido esperando un cálculo en curso", e);
+        } catch (ExecutionException e) {
+            // Se relanza la excepción original para que el controlador la trate igual que en la ejecución propia
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+}
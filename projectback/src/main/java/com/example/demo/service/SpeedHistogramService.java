@@ -0,0 +1,166 @@
+package com.example.demo.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.service.DTO.DetectionJson;
+import com.example.demo.service.analytics.DetectionTimes;
+import com.example.demo.service.analytics.SpeedHistogram;
+import com.example.demo.service.ingest.IngestionListener;
+
+/**
+ * Histogramas de velocidad por carril, acumulados en la ingesta.
+ * Se guarda un histograma por carril y hora (con retención acotada) y uno histórico por carril,
+ * así los percentiles de cualquier rango se obtienen combinando buckets sin guardar muestras.
+ */
+@Service
+public class SpeedHistogramService implements IngestionListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpeedHistogramService.class);
+    private static final long HOUR_MILLIS = 3_600_000L;
+    private static final double[] DEFAULT_PERCENTILES = {50, 85, 95};
+
+    private final int retentionHours;
+    private final Map<String, SpeedHistogram> allTime = new HashMap<>();
+    private final Map<String, NavigableMap<Long, SpeedHistogram>> hourly = new HashMap<>();
+    // Hora más reciente vista en cualquier carril: la retención cuenta horas de reloj hacia atrás desde ella
+    private long newestHour = DetectionTimes.UNKNOWN;
+
+    public SpeedHistogramService(@Value("${app.speed-histogram.retention-hours:168}") int retentionHours) {
+        this.retentionHours = Math.max(1, retentionHours);
+        logger.info("📊 Histogramas de velocidad con retención de {} horas", this.retentionHours);
+    }
+
+    @Override
+    public synchronized void onReset() {
+        allTime.clear();
+        hourly.clear();
+        newestHour = DetectionTimes.UNKNOWN;
+    }
+
+    @Override
+    public synchronized void onDetection(DetectionJson detection) {
+        if (detection.getAvg_speed_by_lane() == null) {
+            return;
+        }
+        long time = DetectionTimes.toEpochMillis(detection.getDate());
+        long hour = time == DetectionTimes.UNKNOWN ? DetectionTimes.UNKNOWN : DetectionTimes.floorToBucket(time, HOUR_MILLIS);
+        if (hour != DetectionTimes.UNKNOWN && (newestHour == DetectionTimes.UNKNOWN || hour > newestHour)) {
+            newestHour = hour;
+            evictExpiredHours();
+        }
+        // Una hora fuera de la ventana solo cuenta para el histórico completo
+        boolean retained = hour != DetectionTimes.UNKNOWN && hour >= retentionCutoff();
+        detection.getAvg_speed_by_lane().forEach((lane, speed) -> {
+            if (speed == null || speed <= 0) {
+                return;
+            }
+            allTime.computeIfAbsent(lane, k -> new SpeedHistogram()).record(speed, 1);
+            if (retained) {
+                hourly.computeIfAbsent(lane, k -> new TreeMap<>())
+                    .computeIfAbsent(hour, k -> new SpeedHistogram())
+                    .record(speed, 1);
+            }
+        });
+    }
+
+    /**
+     * Histograma combinado del carril en el rango [from, to] (null = histórico completo)
+     */
+    public synchronized Map<String, SpeedHistogram> getHistograms(String lane, Long from, Long to) {
+        Map<String, SpeedHistogram> result = new TreeMap<>();
+        if (from == null && to == null) {
+            allTime.forEach((name, histogram) -> {
+                if (lane == null || lane.equals(name)) {
+                    result.put(name, histogram.copy());
+                }
+            });
+            return result;
+        }
+        long fromHour = from != null ? DetectionTimes.floorToBucket(from, HOUR_MILLIS) : Long.MIN_VALUE;
+        long toHour = to != null ? to : Long.MAX_VALUE;
+        hourly.forEach((name, laneHours) -> {
+            if (lane != null && !lane.equals(name)) {
+                return;
+            }
+            SpeedHistogram merged = new SpeedHistogram();
+            laneHours.subMap(fromHour, true, toHour, true).values().forEach(merged::merge);
+            if (merged.getTotal() > 0) {
+                result.put(name, merged);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Percentiles de velocidad por carril; por defecto p50, p85 (estándar de ingeniería) y p95
+     */
+    public Map<String, Object> getPercentiles(String lane, String percentiles, String from, String to) {
+        double[] ps = parsePercentiles(percentiles);
+        Long fromMillis = DetectionTimes.parseBound(from);
+        Long toMillis = DetectionTimes.parseBound(to);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        getHistograms(lane, fromMillis, toMillis).forEach((name, histogram) -> {
+            Map<String, Object> laneResult = new LinkedHashMap<>();
+            laneResult.put("samples", histogram.getTotal());
+            laneResult.put("mean", round(histogram.mean()));
+            for (double p : ps) {
+                laneResult.put("p" + formatPercentile(p), round(histogram.percentile(p)));
+            }
+            result.put(name, laneResult);
+        });
+        return result;
+    }
+
+    /**
+     * Primera hora retenida: las {@code retentionHours} horas de reloj que terminan en la más reciente,
+     * tengan datos o no
+     */
+    private long retentionCutoff() {
+        return newestHour - (retentionHours - 1) * HOUR_MILLIS;
+    }
+
+    private void evictExpiredHours() {
+        long cutoff = retentionCutoff();
+        hourly.values().forEach(laneHours -> laneHours.headMap(cutoff, false).clear());
+        hourly.values().removeIf(Map::isEmpty);
+    }
+
+    private double[] parsePercentiles(String percentiles) {
+        if (percentiles == null || percentiles.isBlank()) {
+            return DEFAULT_PERCENTILES;
+        }
+        List<Double> parsed = new ArrayList<>();
+        for (String part : percentiles.split(",")) {
+            try {
+                double p = Double.parseDouble(part.trim());
+                if (p < 0 || p > 100) {
+                    throw new IllegalArgumentException("Percentil fuera de rango [0, 100]: " + part);
+                }
+                parsed.add(p);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Percentil inválido: " + part);
+            }
+        }
+        return parsed.stream().mapToDouble(Double::doubleValue).toArray();
+    }
+
+    private String formatPercentile(double p) {
+        return p == Math.rint(p) ? String.valueOf((long) p) : String.valueOf(p);
+    }
+
+    private double round(double value) {
+        return Double.isNaN(value) ? 0.0 : Math.round(value * 100.0) / 100.0;
+    }
+}
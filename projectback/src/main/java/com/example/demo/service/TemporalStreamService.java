@@ -0,0 +1,199 @@
+package com.example.demo.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.example.demo.repository.DetectionRepository;
+import com.example.demo.repository.DetectionSeriesRow;
+import com.example.demo.service.analytics.DetectionTimes;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Evolución temporal escrita de forma incremental: cada fila del cursor se parsea y se escribe en el
+ * {@link JsonGenerator} sin construir la serie completa, de modo que la memoria por petición no depende
+ * de la longitud del historial. El formato es por filas porque el columnar necesita toda la serie
+ * antes de escribir la primera columna; con {@code bucket} se agregan filas consecutivas al vuelo.
+ */
+@Service
+public class TemporalStreamService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TemporalStreamService.class);
+
+    // Filas escritas entre cada flush hacia el cliente
+    private static final int FLUSH_EVERY = 256;
+
+    private static final TypeReference<Map<String, Double>> VALUES_TYPE = new TypeReference<>() {
+    };
+
+    private final DetectionRepository detectionRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public TemporalStreamService(DetectionRepository detectionRepository,
+                                 ObjectMapper objectMapper,
+                                 PlatformTransactionManager transactionManager) {
+        this.detectionRepository = detectionRepository;
+        this.objectMapper = objectMapper;
+        // El cuerpo se escribe en un hilo asíncrono, fuera de cualquier transacción del controlador
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Conteos por tipo de vehículo; con {@code bucket} se suman las filas de cada ventana
+     */
+    public StreamingResponseBody streamTrafficEvolution(String bucket) {
+        return stream(new String[] {"car", "bus", "truck"}, DetectionSeriesRow::getObjectsTotal, bucket, true);
+    }
+
+    /**
+     * Velocidad por carril; con {@code bucket} se promedian las muestras positivas de cada ventana
+     */
+    public StreamingResponseBody streamSpeedEvolution(String bucket) {
+        return stream(new String[] {"lane_1", "lane_2", "lane_3"}, DetectionSeriesRow::getAvgSpeedByLane, bucket, false);
+    }
+
+    private StreamingResponseBody stream(String[] baseSeries, Function<DetectionSeriesRow, String> column,
+                                         String bucket, boolean integral) {
+        // Se valida en el hilo de la petición para que un bucket inválido llegue al controlador como 400
+        long bucketMillis = bucket == null || bucket.isBlank() ? 0L : DetectionTimes.parseBucket(bucket);
+        return out -> readOnlyTransaction.executeWithoutResult(status -> {
+            try {
+                write(out, baseSeries, column, bucketMillis, integral);
+            } catch (IOException e) {
+                // El cliente cerró la conexión: ya no hay a quién responder
+                logger.debug("⚠️ Evolución en streaming interrumpida: {}", e.getMessage());
+            }
+        });
+    }
+
+    private void write(OutputStream out, String[] baseSeries, Function<DetectionSeriesRow, String> column,
+                       long bucketMillis, boolean integral) throws IOException {
+        long start = System.nanoTime();
+        TreeSet<String> seriesNames = new TreeSet<>(List.of(baseSeries));
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+             Stream<DetectionSeriesRow> cursor = detectionRepository.streamSeriesRowsOrderByTimestamp()) {
+            generator.writeStartObject();
+            generator.writeNumberField("bucketSeconds", bucketMillis / 1000);
+            generator.writeArrayFieldStart("rows");
+            RowWriter rows = new RowWriter(generator, seriesNames, bucketMillis, integral);
+            for (DetectionSeriesRow row : (Iterable<DetectionSeriesRow>) cursor::iterator) {
+                rows.accept(DetectionTimes.toEpochMillis(row.getDate()), parse(column.apply(row)));
+            }
+            rows.finish();
+            generator.writeEndArray();
+            // Las series se conocen al terminar el recorrido: las que aparecieron tarde faltan en filas previas
+            generator.writeArrayFieldStart("series");
+            for (String name : seriesNames) {
+                generator.writeString(name);
+            }
+            generator.writeEndArray();
+            generator.writeNumberField("points", rows.written);
+            generator.writeEndObject();
+            logger.debug("📈 {} filas escritas en streaming en {} ms", rows.written, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    private Map<String, Double> parse(String json) {
+        if (json == null || json.isBlank() || "null".equals(json)) {
+            return Map.of();
+        }
+        try {
+            Map<String, Double> values = objectMapper.readValue(json, VALUES_TYPE);
+            return values != null ? values : Map.of();
+        } catch (IOException e) {
+            logger.debug("⚠️ JSON inválido en la serie: {}", e.getMessage());
+            return Map.of();
+        }
+    }
+
+    /**
+     * Escribe filas sueltas o, con bucket, acumula las filas consecutivas de una ventana y la escribe al cambiar
+     */
+    private static final class RowWriter {
+
+        private final JsonGenerator generator;
+        private final TreeSet<String> seriesNames;
+        private final long bucketMillis;
+        private final boolean integral;
+        private final Map<String, double[]> accumulated = new TreeMap<>();
+        private long currentBucket = DetectionTimes.UNKNOWN;
+        private boolean open;
+        private long written;
+
+        RowWriter(JsonGenerator generator, TreeSet<String> seriesNames, long bucketMillis, boolean integral) {
+            this.generator = generator;
+            this.seriesNames = seriesNames;
+            this.bucketMillis = bucketMillis;
+            this.integral = integral;
+        }
+
+        void accept(long time, Map<String, Double> values) throws IOException {
+            if (bucketMillis == 0) {
+                accumulated.clear();
+                values.forEach((name, value) -> accumulated.put(name, new double[] {value != null ? value : 0.0, 1}));
+                writeRow(time, false);
+                return;
+            }
+            if (time == DetectionTimes.UNKNOWN) {
+                return;
+            }
+            long bucketStart = DetectionTimes.floorToBucket(time, bucketMillis);
+            if (open && bucketStart != currentBucket) {
+                writeRow(currentBucket, true);
+                accumulated.clear();
+            }
+            open = true;
+            currentBucket = bucketStart;
+            values.forEach((name, value) -> {
+                double[] sumAndSamples = accumulated.computeIfAbsent(name, k -> new double[2]);
+                double sample = value != null ? value : 0.0;
+                // Como en SeriesDownsampler: la suma cuenta todo, el promedio solo las muestras positivas
+                if (integral || sample > 0) {
+                    sumAndSamples[0] += sample;
+                    sumAndSamples[1]++;
+                }
+            });
+        }
+
+        void finish() throws IOException {
+            if (open) {
+                writeRow(currentBucket, true);
+            }
+        }
+
+        private void writeRow(long time, boolean reduced) throws IOException {
+            seriesNames.addAll(accumulated.keySet());
+            generator.writeStartObject();
+            generator.writeStringField("timestamp", DetectionTimes.format(time));
+            for (String name : seriesNames) {
+                double[] sumAndSamples = accumulated.get(name);
+                if (integral) {
+                    generator.writeNumberField(name, sumAndSamples == null ? 0 : Math.round(sumAndSamples[0]));
+                } else {
+                    double value = sumAndSamples == null || sumAndSamples[1] == 0 ? 0.0 : sumAndSamples[0] / sumAndSamples[1];
+                    generator.writeNumberField(name, reduced ? Math.round(value * 100.0) / 100.0 : value);
+                }
+            }
+            generator.writeEndObject();
+            if (++written % FLUSH_EVERY == 0) {
+                generator.flush();
+            }
+        }
+    }
+}
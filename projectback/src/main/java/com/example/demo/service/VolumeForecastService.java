@@ -0,0 +1,184 @@
+package com.example.demo.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.service.DTO.DetectionJson;
+import com.example.demo.service.analytics.DetectionTimes;
+import com.example.demo.service.analytics.HoltWintersForecaster;
+import com.example.demo.service.ingest.IngestionListener;
+
+/**
+ * Pronóstico de volumen a corto plazo por carril.
+ * La ingesta acumula vehículos por minuto y, al cerrar cada minuto, actualiza un Holt-Winters por carril
+ * con estacionalidad diaria (minuto del día local). El endpoint de pronóstico lee el estado en O(horizonte).
+ */
+@Service
+public class VolumeForecastService implements IngestionListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(VolumeForecastService.class);
+    private static final long MINUTE_MILLIS = 60_000L;
+
+    private final double alpha;
+    private final double beta;
+    private final double gamma;
+    private final int seasonMinutes;
+    private final int maxHorizon;
+
+    private final Map<String, HoltWintersForecaster> forecasters = new TreeMap<>();
+    private final Map<String, Long> openCounts = new TreeMap<>();
+    private long openMinute = DetectionTimes.UNKNOWN;
+    // Último minuto ya incorporado al modelo; no se vuelve a observar aunque lleguen más detecciones suyas
+    private long closedMinute = DetectionTimes.UNKNOWN;
+
+    public VolumeForecastService(@Value("${app.forecast.alpha:0.3}") double alpha,
+                                 @Value("${app.forecast.beta:0.05}") double beta,
+                                 @Value("${app.forecast.gamma:0.1}") double gamma,
+                                 @Value("${app.forecast.season-minutes:1440}") int seasonMinutes,
+                                 @Value("${app.forecast.max-horizon-minutes:60}") int maxHorizon) {
+        this.alpha = alpha;
+        this.beta = beta;
+        this.gamma = gamma;
+        this.seasonMinutes = seasonMinutes;
+        this.maxHorizon = Math.max(1, maxHorizon);
+        // Valida los parámetros al arrancar y no en la primera detección
+        new HoltWintersForecaster(alpha, beta, gamma, seasonMinutes);
+        logger.info("🔮 Pronóstico Holt-Winters por carril: estación de {} min, horizonte máximo {} min",
+            seasonMinutes, this.maxHorizon);
+    }
+
+    @Override
+    public synchronized void onReset() {
+        forecasters.clear();
+        openCounts.clear();
+        openMinute = DetectionTimes.UNKNOWN;
+        closedMinute = DetectionTimes.UNKNOWN;
+    }
+
+    @Override
+    public synchronized void onDetection(DetectionJson detection) {
+        long time = DetectionTimes.toEpochMillis(detection.getDate());
+        if (time == DetectionTimes.UNKNOWN) {
+            return;
+        }
+        long minute = localMinute(time);
+        if ((openMinute != DetectionTimes.UNKNOWN && minute < openMinute)
+            || (closedMinute != DetectionTimes.UNKNOWN && minute <= closedMinute)) {
+            // Los minutos ya cerrados no se reabren: el modelo solo avanza
+            return;
+        }
+        if (minute > openMinute) {
+            closeOpenMinute();
+            openMinute = minute;
+        }
+        if (detection.getObjects_by_lane() != null) {
+            detection.getObjects_by_lane().forEach((lane, vehicles) -> {
+                if (vehicles != null) {
+                    long laneTotal = vehicles.values().stream()
+                        .filter(count -> count != null && count > 0)
+                        .mapToLong(Integer::longValue)
+                        .sum();
+                    openCounts.merge(lane, laneTotal, Long::sum);
+                }
+            });
+        }
+    }
+
+    /**
+     * Al terminar la carga se cierra el último minuto: si no, nunca llegaría al modelo porque ninguna
+     * detección posterior lo cierra
+     */
+    @Override
+    public synchronized void onCommit(long dataVersion) {
+        closeOpenMinute();
+    }
+
+    /**
+     * Vehículos esperados por minuto en los próximos {@code horizon} minutos tras el último minuto cerrado
+     */
+    public synchronized Map<String, Object> getForecast(String lane, int horizon) {
+        if (horizon < 1 || horizon > maxHorizon) {
+            throw new IllegalArgumentException("horizon debe estar entre 1 y " + maxHorizon + " minutos: " + horizon);
+        }
+        if (lane != null && !lane.isBlank() && !forecasters.containsKey(lane.trim())) {
+            throw new IllegalArgumentException("Carril sin datos para pronosticar: " + lane);
+        }
+
+        Map<String, Object> lanes = new LinkedHashMap<>();
+        long asOf = DetectionTimes.UNKNOWN;
+        for (Map.Entry<String, HoltWintersForecaster> entry : forecasters.entrySet()) {
+            if (lane != null && !lane.isBlank() && !lane.trim().equals(entry.getKey())) {
+                continue;
+            }
+            HoltWintersForecaster forecaster = entry.getValue();
+            List<Map<String, Object>> points = new ArrayList<>();
+            double total = 0.0;
+            for (int step = 1; step <= horizon; step++) {
+                double expected = forecaster.forecast(step);
+                total += expected;
+                Map<String, Object> point = new LinkedHashMap<>();
+                point.put("time", DetectionTimes.format(toEpochMillis(forecaster.getLastIndex() + step)));
+                point.put("vehicles", round(expected));
+                points.add(point);
+            }
+            Map<String, Object> laneForecast = new LinkedHashMap<>();
+            laneForecast.put("totalVehicles", round(total));
+            laneForecast.put("observedMinutes", forecaster.getObservations());
+            laneForecast.put("seasonWarm", forecaster.isSeasonWarm());
+            laneForecast.put("points", points);
+            lanes.put(entry.getKey(), laneForecast);
+            asOf = Math.max(asOf, toEpochMillis(forecaster.getLastIndex() + 1) - 1);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("bucketMinutes", 1);
+        result.put("horizonMinutes", horizon);
+        result.put("asOf", asOf == DetectionTimes.UNKNOWN ? null : DetectionTimes.format(asOf));
+        result.put("lanes", lanes);
+        return result;
+    }
+
+    private void closeOpenMinute() {
+        if (openMinute == DetectionTimes.UNKNOWN || openMinute == closedMinute) {
+            return;
+        }
+        openCounts.forEach((lane, count) -> forecasters
+            .computeIfAbsent(lane, k -> new HoltWintersForecaster(alpha, beta, gamma, seasonMinutes))
+            .observe(openMinute, count));
+        // Los carriles sin vehículos en este minuto también observan un cero
+        forecasters.forEach((lane, forecaster) -> {
+            if (!openCounts.containsKey(lane)) {
+                forecaster.observe(openMinute, 0.0);
+            }
+        });
+        openCounts.clear();
+        closedMinute = openMinute;
+    }
+
+    /**
+     * Índice de minuto en hora local, de modo que índice módulo 1440 sea el minuto del día
+     */
+    private static long localMinute(long epochMillis) {
+        long offset = DetectionTimes.ZONE.getRules().getOffset(Instant.ofEpochMilli(epochMillis)).getTotalSeconds() * 1000L;
+        return Math.floorDiv(epochMillis + offset, MINUTE_MILLIS);
+    }
+
+    private static long toEpochMillis(long localMinute) {
+        long approx = localMinute * MINUTE_MILLIS;
+        long offset = DetectionTimes.ZONE.getRules().getOffset(Instant.ofEpochMilli(approx)).getTotalSeconds() * 1000L;
+        return approx - offset;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+}
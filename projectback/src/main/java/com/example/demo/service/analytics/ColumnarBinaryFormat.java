@@ -0,0 +1,117 @@
+package com.example.demo.service.analytics;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Codificación binaria columnar de una serie temporal, pensada para cargarse con typed arrays
+ * (DataView/Float32Array) sin parsear texto. Todo en little-endian y con cada sección alineada a su ancho:
+ * <pre>
+ *  0  4  "TCOL"
+ *  4  1  versión (1)
+ *  5  1  flags: bit 0 = valores enteros (conteos), bit 1 = deltas de 64 bits
+ *  6  2  número de series (u16)
+ *  8  4  número de filas (u32)
+ * 12  …  nombres: por serie un u8 con la longitud y los bytes UTF-8; relleno con ceros hasta múltiplo de 8
+ *     8  primer timestamp en epoch ms (i64; 0 si no hay filas)
+ *     …  filas-1 deltas respecto a la fila anterior (i32, o i64 con el bit 1); relleno hasta múltiplo de 4
+ *     …  por serie, filas × f32 en el orden de los nombres
+ * </pre>
+ * Las filas sin fecha conocida se omiten: en JSON salen como "N/A" y no tienen posición en el eje.
+ */
+public final class ColumnarBinaryFormat {
+
+    public static final String MEDIA_TYPE_VALUE = "application/vnd.traffic.columnar";
+
+    private static final byte[] MAGIC = {'T', 'C', 'O', 'L'};
+    private static final byte VERSION = 1;
+    private static final int FLAG_INTEGRAL = 1;
+    private static final int FLAG_WIDE_DELTAS = 1 << 1;
+
+    private ColumnarBinaryFormat() {
+    }
+
+    static byte[] encode(long[] times, int length, Map<String, double[]> columns, boolean integral, boolean roundDecimals) {
+        int[] rows = knownRows(times, length);
+        int rowCount = rows.length;
+
+        boolean wideDeltas = false;
+        for (int i = 1; i < rowCount; i++) {
+            long delta = times[rows[i]] - times[rows[i - 1]];
+            if (delta != (int) delta) {
+                wideDeltas = true;
+                break;
+            }
+        }
+
+        List<byte[]> names = new ArrayList<>(columns.size());
+        int namesLength = 0;
+        for (String name : columns.keySet()) {
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > 255) {
+                throw new IllegalStateException("Nombre de serie demasiado largo: " + name);
+            }
+            names.add(bytes);
+            namesLength += 1 + bytes.length;
+        }
+
+        int timesOffset = align(12 + namesLength, 8);
+        int valuesOffset = align(timesOffset + 8 + Math.max(0, rowCount - 1) * (wideDeltas ? 8 : 4), 4);
+        ByteBuffer buffer = ByteBuffer.allocate(valuesOffset + columns.size() * rowCount * 4).order(ByteOrder.LITTLE_ENDIAN);
+
+        buffer.put(MAGIC);
+        buffer.put(VERSION);
+        buffer.put((byte) ((integral ? FLAG_INTEGRAL : 0) | (wideDeltas ? FLAG_WIDE_DELTAS : 0)));
+        buffer.putShort((short) columns.size());
+        buffer.putInt(rowCount);
+        for (byte[] name : names) {
+            buffer.put((byte) name.length);
+            buffer.put(name);
+        }
+
+        buffer.position(timesOffset);
+        buffer.putLong(rowCount == 0 ? 0L : times[rows[0]]);
+        for (int i = 1; i < rowCount; i++) {
+            long delta = times[rows[i]] - times[rows[i - 1]];
+            if (wideDeltas) {
+                buffer.putLong(delta);
+            } else {
+                buffer.putInt((int) delta);
+            }
+        }
+
+        buffer.position(valuesOffset);
+        for (double[] column : columns.values()) {
+            for (int row : rows) {
+                double value = column[row];
+                if (integral) {
+                    value = Math.round(value);
+                } else if (roundDecimals) {
+                    value = Math.round(value * 100.0) / 100.0;
+                }
+                buffer.putFloat((float) value);
+            }
+        }
+        return buffer.array();
+    }
+
+    private static int[] knownRows(long[] times, int length) {
+        int count = 0;
+        int[] rows = new int[length];
+        for (int i = 0; i < length; i++) {
+            if (times[i] != DetectionTimes.UNKNOWN) {
+                rows[count++] = i;
+            }
+        }
+        return count == length ? rows : Arrays.copyOf(rows, count);
+    }
+
+    private static int align(int offset, int alignment) {
+        return (offset + alignment - 1) / alignment * alignment;
+    }
+}
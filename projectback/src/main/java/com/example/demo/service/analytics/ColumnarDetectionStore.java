@@ -0,0 +1,114 @@
+package com.example.demo.service.analytics;
+
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Copia columnar en memoria de las detecciones para consultas ad hoc.
+ * Hay dos tablas de hechos con las mismas columnas: conteos (una fila por detección, carril y tipo)
+ * y velocidades (una fila por detección y carril). Carriles, tipos y fuentes se codifican con diccionario
+ * y cada columna es un arreglo primitivo. Un solo escritor agrega filas y publica {@link Snapshot}s
+ * inmutables: las filas nuevas quedan fuera del tamaño publicado y los arreglos se reemplazan al crecer,
+ * así que los lectores nunca ven datos a medio escribir.
+ */
+public final class ColumnarDetectionStore {
+
+    private final Dictionary lanes = new Dictionary();
+    private final Dictionary types = new Dictionary();
+    private final Dictionary sources = new Dictionary();
+    private final Table vehicles = new Table();
+    private final Table speeds = new Table();
+
+    public void addVehicles(long time, String lane, String type, String source, int count) {
+        vehicles.append(time, lanes.encode(lane), types.encode(type), sources.encode(source), count);
+    }
+
+    public void addSpeed(long time, String lane, String source, double speed) {
+        speeds.append(time, lanes.encode(lane), -1, sources.encode(source), speed);
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(vehicles.view(), speeds.view(), lanes.toArray(), types.toArray(), sources.toArray());
+    }
+
+    /**
+     * Vista inmutable publicada para los lectores
+     */
+    public record Snapshot(View vehicles, View speeds, String[] lanes, String[] types, String[] sources) {
+
+        public static final Snapshot EMPTY = new ColumnarDetectionStore().snapshot();
+    }
+
+    /**
+     * Columnas de una tabla hasta {@code size} filas; day es el epoch day local y hour la hora local
+     */
+    public record View(int size, long[] time, int[] day, byte[] hour, int[] lane, int[] type, int[] source,
+                       double[] value, int minDay, int maxDay) {
+    }
+
+    private static final class Table {
+
+        private long[] time = new long[1024];
+        private int[] day = new int[1024];
+        private byte[] hour = new byte[1024];
+        private int[] lane = new int[1024];
+        private int[] type = new int[1024];
+        private int[] source = new int[1024];
+        private double[] value = new double[1024];
+        private int size;
+        private int minDay = Integer.MAX_VALUE;
+        private int maxDay = Integer.MIN_VALUE;
+
+        void append(long epochMillis, int laneCode, int typeCode, int sourceCode, double rowValue) {
+            if (size == time.length) {
+                int capacity = size * 2;
+                time = Arrays.copyOf(time, capacity);
+                day = Arrays.copyOf(day, capacity);
+                hour = Arrays.copyOf(hour, capacity);
+                lane = Arrays.copyOf(lane, capacity);
+                type = Arrays.copyOf(type, capacity);
+                source = Arrays.copyOf(source, capacity);
+                value = Arrays.copyOf(value, capacity);
+            }
+            ZonedDateTime local = Instant.ofEpochMilli(epochMillis).atZone(DetectionTimes.ZONE);
+            int localDay = (int) local.toLocalDate().toEpochDay();
+            time[size] = epochMillis;
+            day[size] = localDay;
+            hour[size] = (byte) local.getHour();
+            lane[size] = laneCode;
+            type[size] = typeCode;
+            source[size] = sourceCode;
+            value[size] = rowValue;
+            size++;
+            minDay = Math.min(minDay, localDay);
+            maxDay = Math.max(maxDay, localDay);
+        }
+
+        View view() {
+            return new View(size, time, day, hour, lane, type, source, value,
+                size == 0 ? 0 : minDay, size == 0 ? -1 : maxDay);
+        }
+    }
+
+    private static final class Dictionary {
+
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int encode(String value) {
+            return codes.computeIfAbsent(value, k -> {
+                values.add(k);
+                return values.size() - 1;
+            });
+        }
+
+        String[] toArray() {
+            return values.toArray(new String[0]);
+        }
+    }
+}
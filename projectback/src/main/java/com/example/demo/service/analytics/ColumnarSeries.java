@@ -0,0 +1,116 @@
+package com.example.demo.service.analytics;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Series temporales en formato columnar: un eje de tiempo compartido y un arreglo primitivo por serie.
+ * Las series se descubren dinámicamente mientras se agregan filas (carriles, tipos de vehículo...);
+ * una serie que aparece tarde queda rellenada con ceros en las filas anteriores.
+ * No es thread-safe: se construye en un único recorrido ordenado.
+ */
+public final class ColumnarSeries {
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final Map<String, double[]> columns = new TreeMap<>();
+    private long[] times = new long[INITIAL_CAPACITY];
+    private int length;
+
+    public ColumnarSeries(String... baseSeries) {
+        // Series que siempre deben aparecer en la respuesta (compatibilidad con el dashboard)
+        for (String name : baseSeries) {
+            columns.put(name, new double[INITIAL_CAPACITY]);
+        }
+    }
+
+    /**
+     * Abre una nueva fila; los valores posteriores se acumulan en ella
+     */
+    public void appendRow(long epochMillis) {
+        if (length == times.length) {
+            grow();
+        }
+        times[length++] = epochMillis;
+    }
+
+    /**
+     * Suma el valor a la serie indicada en la fila actual
+     */
+    public void add(String series, double value) {
+        if (length == 0) {
+            throw new IllegalStateException("No hay una fila abierta");
+        }
+        columns.computeIfAbsent(series, k -> new double[times.length])[length - 1] += value;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public SeriesDownsampler.Series toSeries() {
+        double[][] values = columns.values().toArray(new double[0][]);
+        return new SeriesDownsampler.Series(times, values, length);
+    }
+
+    /**
+     * Reemplaza el contenido por una serie ya reducida, conservando los nombres de las columnas
+     */
+    public ColumnarSeries withSeries(SeriesDownsampler.Series series) {
+        ColumnarSeries result = new ColumnarSeries();
+        result.times = series.times();
+        result.length = series.length();
+        int index = 0;
+        for (String name : columns.keySet()) {
+            result.columns.put(name, series.values()[index++]);
+        }
+        return result;
+    }
+
+    /**
+     * Respuesta JSON: "timestamps", la lista "series" y un arreglo primitivo por serie.
+     * Los conteos se emiten como enteros; las velocidades con dos decimales si {@code roundDecimals}
+     */
+    public Map<String, Object> toResponse(boolean integral, boolean roundDecimals) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        String[] labels = new String[length];
+        for (int i = 0; i < length; i++) {
+            labels[i] = DetectionTimes.format(times[i]);
+        }
+        result.put("timestamps", labels);
+        result.put("series", columns.keySet().toArray(new String[0]));
+        columns.forEach((name, column) -> {
+            if (integral) {
+                int[] values = new int[length];
+                for (int i = 0; i < length; i++) {
+                    values[i] = (int) Math.round(column[i]);
+                }
+                result.put(name, values);
+            } else if (roundDecimals) {
+                double[] values = new double[length];
+                for (int i = 0; i < length; i++) {
+                    values[i] = Math.round(column[i] * 100.0) / 100.0;
+                }
+                result.put(name, values);
+            } else {
+                result.put(name, Arrays.copyOf(column, length));
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Misma respuesta en el formato binario de {@link ColumnarBinaryFormat}, con el mismo redondeo que JSON
+     */
+    public byte[] toBinary(boolean integral, boolean roundDecimals) {
+        return ColumnarBinaryFormat.encode(times, length, columns, integral, roundDecimals);
+    }
+
+    private void grow() {
+        int capacity = times.length * 2;
+        times = Arrays.copyOf(times, capacity);
+        columns.replaceAll((name, column) -> Arrays.copyOf(column, capacity));
+    }
+}
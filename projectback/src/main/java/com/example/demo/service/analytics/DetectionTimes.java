@@ -0,0 +1,126 @@
+package com.example.demo.service.analytics;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+
+/**
+ * Utilidades de tiempo para las detecciones.
+ * El campo "date" que genera detector.py es hora local sin zona ("yyyy-MM-dd HH:mm:ss"),
+ * por lo que se interpreta en la zona configurada del servidor (America/Bogota).
+ */
+public final class DetectionTimes {
+
+    public static final ZoneId ZONE = ZoneId.of("America/Bogota");
+    public static final long UNKNOWN = Long.MIN_VALUE;
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private DetectionTimes() {
+    }
+
+    /**
+     * Convierte la fecha de una detección a epoch millis, o {@link #UNKNOWN} si no es válida
+     */
+    public static long toEpochMillis(String date) {
+        LocalDateTime local = toLocalDateTime(date);
+        return local == null ? UNKNOWN : local.atZone(ZONE).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Fecha de una detección tal como la escribió el detector (hora local, sin zona), o null si no es válida
+     */
+    public static LocalDateTime toLocalDateTime(String date) {
+        if (date == null || date.isBlank()) {
+            return null;
+        }
+        try {
+            return LocalDateTime.parse(date.trim(), DATE_FORMAT);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Límite de un rango de consulta: fecha "yyyy-MM-dd HH:mm:ss" o epoch millis; null si no se indicó
+     */
+    public static Long parseBound(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String trimmed = value.trim();
+        if (trimmed.chars().allMatch(Character::isDigit)) {
+            return Long.parseLong(trimmed);
+        }
+        long parsed = toEpochMillis(trimmed);
+        if (parsed == UNKNOWN) {
+            throw new IllegalArgumentException("Fecha inválida (se espera yyyy-MM-dd HH:mm:ss o epoch millis): " + value);
+        }
+        return parsed;
+    }
+
+    /**
+     * Hora del día (0-23) de la fecha de una detección, o -1 si no es válida
+     */
+    public static int hourOf(String date) {
+        if (date == null) {
+            return -1;
+        }
+        int space = date.indexOf(' ');
+        if (space < 0 || date.length() < space + 3) {
+            return -1;
+        }
+        int tens = date.charAt(space + 1) - '0';
+        int units = date.charAt(space + 2) - '0';
+        if (tens < 0 || tens > 2 || units < 0 || units > 9 || tens * 10 + units > 23) {
+            return -1;
+        }
+        return tens * 10 + units;
+    }
+
+    public static String format(long epochMillis) {
+        if (epochMillis == UNKNOWN) {
+            return "N/A";
+        }
+        return DATE_FORMAT.format(Instant.ofEpochMilli(epochMillis).atZone(ZONE));
+    }
+
+    /**
+     * Inicio del bucket que contiene el instante, alineado a la hora local
+     * (los buckets de 1d empiezan a medianoche en la zona configurada, no en UTC)
+     */
+    public static long floorToBucket(long epochMillis, long bucketMillis) {
+        long offset = ZONE.getRules().getOffset(Instant.ofEpochMilli(epochMillis)).getTotalSeconds() * 1000L;
+        return Math.floorDiv(epochMillis + offset, bucketMillis) * bucketMillis - offset;
+    }
+
+    /**
+     * Interpreta un tamaño de bucket como "30s", "5m", "1h", "1d" o segundos sin unidad
+     */
+    public static long parseBucket(String bucket) {
+        if (bucket == null || bucket.isBlank()) {
+            throw new IllegalArgumentException("El tamaño de bucket no puede estar vacío");
+        }
+        String value = bucket.trim().toLowerCase(Locale.ROOT);
+        long unit = switch (value.charAt(value.length() - 1)) {
+            case 's' -> 1_000L;
+            case 'm' -> 60_000L;
+            case 'h' -> 3_600_000L;
+            case 'd' -> 86_400_000L;
+            default -> 0L;
+        };
+        String amount = unit == 0L ? value : value.substring(0, value.length() - 1);
+        try {
+            long parsed = Long.parseLong(amount);
+            if (parsed <= 0) {
+                throw new IllegalArgumentException("El tamaño de bucket debe ser positivo: " + bucket);
+            }
+            return parsed * (unit == 0L ? 1_000L : unit);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Tamaño de bucket inválido: " + bucket);
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package com.example.demo.service.analytics;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import com.example.demo.service.analytics.ColumnarDetectionStore.Snapshot;
+import com.example.demo.service.analytics.ColumnarDetectionStore.View;
+
+/**
+ * Group-by sobre un {@link Snapshot} columnar.
+ * Cada dimensión se resuelve con un bucle sobre su columna que compone un id de grupo denso
+ * (base mixta), y cada medida con otro bucle que acumula en arreglos indexados por ese id:
+ * sin mapas ni objetos por fila.
+ */
+public final class GroupByQuery {
+
+    public static final int MAX_GROUPS = 1_000_000;
+
+    public enum Dimension {
+        HOUR, DAY, LANE, TYPE, SOURCE;
+
+        static Dimension parse(String value) {
+            try {
+                return valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Dimensión no soportada (hour, day, lane, type, source): " + value);
+            }
+        }
+
+        String label() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private final List<Dimension> dimensions;
+    private final List<String> measures;
+    private final boolean needsSpeed;
+    private final double[] percentiles;
+    private final Long from;
+    private final Long to;
+
+    private GroupByQuery(List<Dimension> dimensions, List<String> measures, Long from, Long to) {
+        this.dimensions = dimensions;
+        this.measures = measures;
+        this.from = from;
+        this.to = to;
+        this.needsSpeed = measures.stream().anyMatch(m -> m.startsWith("speed_"));
+        this.percentiles = measures.stream()
+            .filter(m -> m.startsWith("speed_p"))
+            .mapToDouble(m -> Double.parseDouble(m.substring("speed_p".length())))
+            .toArray();
+    }
+
+    /**
+     * Valida dimensiones ("hour,lane"), medidas ("count,speed_avg,speed_p85") y rango de tiempo
+     */
+    public static GroupByQuery parse(String dimensions, String measures, Long from, Long to) {
+        List<Dimension> parsedDimensions = new ArrayList<>();
+        if (dimensions != null && !dimensions.isBlank()) {
+            for (String part : dimensions.split(",")) {
+                Dimension dimension = Dimension.parse(part);
+                if (!parsedDimensions.contains(dimension)) {
+                    parsedDimensions.add(dimension);
+                }
+            }
+        }
+        List<String> parsedMeasures = new ArrayList<>();
+        for (String part : (measures == null || measures.isBlank() ? "count" : measures).split(",")) {
+            String measure = part.trim().toLowerCase(Locale.ROOT);
+            if (!isValidMeasure(measure)) {
+                throw new IllegalArgumentException(
+                    "Medida no soportada (count, speed_avg, speed_min, speed_max, speed_pNN): " + part);
+            }
+            if (!parsedMeasures.contains(measure)) {
+                parsedMeasures.add(measure);
+            }
+        }
+        if (parsedDimensions.contains(Dimension.TYPE) && parsedMeasures.stream().anyMatch(m -> m.startsWith("speed_"))) {
+            throw new IllegalArgumentException("Las velocidades se miden por carril, no por tipo de vehículo");
+        }
+        if (from != null && to != null && from > to) {
+            throw new IllegalArgumentException("from debe ser anterior a to");
+        }
+        return new GroupByQuery(parsedDimensions, parsedMeasures, from, to);
+    }
+
+    public Map<String, Object> execute(Snapshot snapshot) {
+        int[] cardinalities = new int[dimensions.size()];
+        long groups = 1;
+        for (int d = 0; d < dimensions.size(); d++) {
+            cardinalities[d] = cardinality(snapshot, dimensions.get(d));
+            groups *= Math.max(1, cardinalities[d]);
+            if (groups > MAX_GROUPS) {
+                throw new IllegalArgumentException("La consulta genera demasiados grupos (máximo " + MAX_GROUPS + ")");
+            }
+        }
+        int groupCount = (int) groups;
+        int minDay = dayRange(snapshot)[0];
+
+        View vehicles = snapshot.vehicles();
+        int[] vehicleGroups = groupIds(vehicles, cardinalities, minDay);
+        double[] counts = new double[groupCount];
+        double[] value = vehicles.value();
+        for (int i = 0; i < vehicles.size(); i++) {
+            int g = vehicleGroups[i];
+            if (g >= 0) {
+                counts[g] += value[i];
+            }
+        }
+
+        double[] speedSum = null;
+        long[] speedSamples = null;
+        double[] speedMin = null;
+        double[] speedMax = null;
+        SpeedHistogram[] histograms = null;
+        if (needsSpeed) {
+            View speeds = snapshot.speeds();
+            int[] speedGroups = groupIds(speeds, cardinalities, minDay);
+            speedSum = new double[groupCount];
+            speedSamples = new long[groupCount];
+            speedMin = new double[groupCount];
+            speedMax = new double[groupCount];
+            Arrays.fill(speedMin, Double.POSITIVE_INFINITY);
+            Arrays.fill(speedMax, Double.NEGATIVE_INFINITY);
+            double[] speed = speeds.value();
+            for (int i = 0; i < speeds.size(); i++) {
+                int g = speedGroups[i];
+                if (g >= 0) {
+                    speedSum[g] += speed[i];
+                    speedSamples[g]++;
+                    speedMin[g] = Math.min(speedMin[g], speed[i]);
+                    speedMax[g] = Math.max(speedMax[g], speed[i]);
+                }
+            }
+            if (percentiles.length > 0) {
+                histograms = new SpeedHistogram[groupCount];
+                for (int i = 0; i < speeds.size(); i++) {
+                    int g = speedGroups[i];
+                    if (g >= 0) {
+                        if (histograms[g] == null) {
+                            histograms[g] = new SpeedHistogram();
+                        }
+                        histograms[g].record(speed[i], 1);
+                    }
+                }
+            }
+        }
+
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int g = 0; g < groupCount; g++) {
+            boolean hasSpeed = speedSamples != null && speedSamples[g] > 0;
+            if (counts[g] == 0 && !hasSpeed) {
+                continue;
+            }
+            Map<String, Object> row = new LinkedHashMap<>();
+            int remainder = g;
+            Object[] labels = new Object[dimensions.size()];
+            for (int d = dimensions.size() - 1; d >= 0; d--) {
+                int card = Math.max(1, cardinalities[d]);
+                labels[d] = label(snapshot, dimensions.get(d), remainder % card, minDay);
+                remainder /= card;
+            }
+            for (int d = 0; d < dimensions.size(); d++) {
+                row.put(dimensions.get(d).label(), labels[d]);
+            }
+            int p = 0;
+            for (String measure : measures) {
+                switch (measure) {
+                    case "count" -> row.put(measure, (long) counts[g]);
+                    case "speed_avg" -> row.put(measure, hasSpeed ? round(speedSum[g] / speedSamples[g]) : null);
+                    case "speed_min" -> row.put(measure, hasSpeed ? round(speedMin[g]) : null);
+                    case "speed_max" -> row.put(measure, hasSpeed ? round(speedMax[g]) : null);
+                    default -> row.put(measure, hasSpeed ? round(histograms[g].percentile(percentiles[p++])) : null);
+                }
+            }
+            rows.add(row);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("dimensions", dimensions.stream().map(Dimension::label).toList());
+        result.put("measures", measures);
+        result.put("from", from != null ? DetectionTimes.format(from) : null);
+        result.put("to", to != null ? DetectionTimes.format(to) : null);
+        result.put("scannedRows", vehicles.size() + (needsSpeed ? snapshot.speeds().size() : 0));
+        result.put("rows", rows);
+        return result;
+    }
+
+    /**
+     * Id de grupo por fila (-1 si la fila queda fuera del rango de tiempo)
+     */
+    private int[] groupIds(View view, int[] cardinalities, int minDay) {
+        int size = view.size();
+        int[] groups = new int[size];
+        long[] time = view.time();
+        long lower = from != null ? from : Long.MIN_VALUE;
+        long upper = to != null ? to : Long.MAX_VALUE;
+        for (int i = 0; i < size; i++) {
+            groups[i] = time[i] >= lower && time[i] <= upper ? 0 : -1;
+        }
+        for (int d = 0; d < dimensions.size(); d++) {
+            int card = Math.max(1, cardinalities[d]);
+            switch (dimensions.get(d)) {
+                case HOUR -> {
+                    byte[] hour = view.hour();
+                    for (int i = 0; i < size; i++) {
+                        groups[i] = groups[i] < 0 ? -1 : groups[i] * card + hour[i];
+                    }
+                }
+                case DAY -> {
+                    int[] day = view.day();
+                    for (int i = 0; i < size; i++) {
+                        groups[i] = groups[i] < 0 ? -1 : groups[i] * card + (day[i] - minDay);
+                    }
+                }
+                case LANE -> mix(groups, view.lane(), card, size);
+                case TYPE -> mix(groups, view.type(), card, size);
+                case SOURCE -> mix(groups, view.source(), card, size);
+            }
+        }
+        return groups;
+    }
+
+    private static void mix(int[] groups, int[] codes, int card, int size) {
+        for (int i = 0; i < size; i++) {
+            groups[i] = groups[i] < 0 ? -1 : groups[i] * card + codes[i];
+        }
+    }
+
+    private static int cardinality(Snapshot snapshot, Dimension dimension) {
+        return switch (dimension) {
+            case HOUR -> 24;
+            case DAY -> {
+                int[] range = dayRange(snapshot);
+                yield range[0] > range[1] ? 0 : range[1] - range[0] + 1;
+            }
+            case LANE -> snapshot.lanes().length;
+            case TYPE -> snapshot.types().length;
+            case SOURCE -> snapshot.sources().length;
+        };
+    }
+
+    /**
+     * Primer y último día local presentes en cualquiera de las dos tablas
+     */
+    private static int[] dayRange(Snapshot snapshot) {
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (View view : List.of(snapshot.vehicles(), snapshot.speeds())) {
+            if (view.size() > 0) {
+                min = Math.min(min, view.minDay());
+                max = Math.max(max, view.maxDay());
+            }
+        }
+        return new int[]{min, max};
+    }
+
+    private static Object label(Snapshot snapshot, Dimension dimension, int code, int minDay) {
+        return switch (dimension) {
+            case HOUR -> code;
+            case DAY -> LocalDate.ofEpochDay((long) minDay + code).toString();
+            case LANE -> snapshot.lanes()[code];
+            case TYPE -> snapshot.types()[code];
+            case SOURCE -> snapshot.sources()[code];
+        };
+    }
+
+    private static boolean isValidMeasure(String measure) {
+        if (measure.equals("count") || measure.equals("speed_avg") || measure.equals("speed_min")
+            || measure.equals("speed_max")) {
+            return true;
+        }
+        if (!measure.startsWith("speed_p")) {
+            return false;
+        }
+        try {
+            double p = Double.parseDouble(measure.substring("speed_p".length()));
+            return p >= 0 && p <= 100;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100.0) / 100.0;
+    }
+}
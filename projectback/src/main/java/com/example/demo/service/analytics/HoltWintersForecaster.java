@@ -0,0 +1,99 @@
+package com.example.demo.service.analytics;
+
+/**
+ * Pronóstico Holt-Winters aditivo (nivel, tendencia y estacionalidad) sobre una serie de buckets regulares.
+ * Cada observación actualiza el estado en O(1) y el pronóstico a h pasos se lee del estado sin
+ * recorrer el historial. La estacionalidad se indexa por la posición del bucket dentro del ciclo
+ * (por ejemplo, el minuto del día con un ciclo de 1440).
+ * No es thread-safe.
+ */
+public final class HoltWintersForecaster {
+
+    private final double alpha;
+    private final double beta;
+    private final double gamma;
+    private final double[] season;
+
+    private double level;
+    private double trend;
+    private long lastIndex = Long.MIN_VALUE;
+    private long observations;
+
+    public HoltWintersForecaster(double alpha, double beta, double gamma, int seasonLength) {
+        if (!inUnitRange(alpha) || !inUnitRange(beta) || !inUnitRange(gamma)) {
+            throw new IllegalArgumentException("alpha, beta y gamma deben estar en [0, 1]");
+        }
+        if (seasonLength < 1) {
+            throw new IllegalArgumentException("La longitud de la estación debe ser positiva: " + seasonLength);
+        }
+        this.alpha = alpha;
+        this.beta = beta;
+        this.gamma = gamma;
+        this.season = new double[seasonLength];
+    }
+
+    /**
+     * Incorpora el valor del bucket {@code index}; los buckets intermedios sin datos cuentan como cero
+     * (como mucho una estación completa, que es lo que el estado puede recordar)
+     */
+    public void observe(long index, double value) {
+        if (observations > 0 && index <= lastIndex) {
+            throw new IllegalArgumentException("Los buckets deben llegar en orden: " + index + " <= " + lastIndex);
+        }
+        if (observations > 0) {
+            for (long missing = Math.max(lastIndex + 1, index - season.length); missing < index; missing++) {
+                update(missing, 0.0);
+            }
+        }
+        update(index, value);
+    }
+
+    /**
+     * Pronóstico para el bucket {@code steps} posiciones después del último observado (nunca negativo)
+     */
+    public double forecast(int steps) {
+        if (observations == 0) {
+            return Double.NaN;
+        }
+        double seasonal = season[seasonIndex(lastIndex + steps)];
+        return Math.max(0.0, level + steps * trend + seasonal);
+    }
+
+    public long getLastIndex() {
+        return lastIndex;
+    }
+
+    public long getObservations() {
+        return observations;
+    }
+
+    /**
+     * Verdadero cuando ya se observó al menos una estación completa
+     */
+    public boolean isSeasonWarm() {
+        return observations >= season.length;
+    }
+
+    private void update(long index, double value) {
+        int s = seasonIndex(index);
+        if (observations == 0) {
+            level = value;
+            trend = 0.0;
+        } else {
+            double previousLevel = level;
+            level = alpha * (value - season[s]) + (1 - alpha) * (level + trend);
+            trend = beta * (level - previousLevel) + (1 - beta) * trend;
+            season[s] = gamma * (value - level) + (1 - gamma) * season[s];
+        }
+        lastIndex = index;
+        observations++;
+    }
+
+    private int seasonIndex(long index) {
+        return (int) Math.floorMod(index, (long) season.length);
+    }
+
+    private static boolean inUnitRange(double value) {
+        return value >= 0.0 && value <= 1.0;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.demo.service.analytics;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import com.example.demo.service.DTO.DetectionJson;
+
+/**
+ * Agregación fork-join sobre particiones de tiempo.
+ * El rango [from, to) se divide recursivamente hasta llegar al ancho de partición; cada hoja carga
+ * y agrega su tramo en un {@link TrafficAggregate} propio y los parciales se combinan al volver.
+ */
+public final class PartitionedAggregation {
+
+    /**
+     * Carga las detecciones con timestamp en [fromInclusive, toExclusive), ya convertidas a DTO
+     */
+    @FunctionalInterface
+    public interface PartitionLoader {
+        List<DetectionJson> load(long fromInclusive, long toExclusive);
+    }
+
+    private PartitionedAggregation() {
+    }
+
+    public static TrafficAggregate aggregate(ForkJoinPool pool, PartitionLoader loader,
+                                             long fromInclusive, long toExclusive, int partitions) {
+        if (toExclusive <= fromInclusive) {
+            return new TrafficAggregate();
+        }
+        long span = toExclusive - fromInclusive;
+        long partitionWidth = Math.max(1, (span + partitions - 1) / Math.max(1, partitions));
+        return pool.invoke(new PartitionTask(loader, fromInclusive, toExclusive, partitionWidth));
+    }
+
+    private static final class PartitionTask extends RecursiveTask<TrafficAggregate> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient PartitionLoader loader;
+        private final long from;
+        private final long to;
+        private final long partitionWidth;
+
+        PartitionTask(PartitionLoader loader, long from, long to, long partitionWidth) {
+            this.loader = loader;
+            this.from = from;
+            this.to = to;
+            this.partitionWidth = partitionWidth;
+        }
+
+        @Override
+        protected TrafficAggregate compute() {
+            if (to - from <= partitionWidth) {
+                TrafficAggregate partial = new TrafficAggregate();
+                for (DetectionJson detection : loader.load(from, to)) {
+                    partial.accept(detection);
+                }
+                return partial;
+            }
+            long middle = from + (to - from) / 2;
+            PartitionTask left = new PartitionTask(loader, from, middle, partitionWidth);
+            PartitionTask right = new PartitionTask(loader, middle, to, partitionWidth);
+            left.fork();
+            TrafficAggregate rightResult = right.compute();
+            return left.join().merge(rightResult);
+        }
+    }
+}
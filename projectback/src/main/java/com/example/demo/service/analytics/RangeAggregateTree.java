@@ -0,0 +1,133 @@
+package com.example.demo.service.analytics;
+
+import java.util.Arrays;
+
+/**
+ * Índice de agregados por rango sobre buckets consecutivos.
+ * Un árbol de Fenwick responde sumas de [from, to] y un árbol de segmentos iterativo responde
+ * el máximo por bucket, ambos en O(log n); cada actualización puntual también es O(log n).
+ * La capacidad crece duplicándose (reconstrucción O(n) amortizada).
+ * No es thread-safe: el servicio que lo usa sincroniza lecturas y escrituras.
+ */
+public final class RangeAggregateTree {
+
+    private long[] values;
+    private long[] fenwick;
+    private long[] segment;
+    private int capacity;
+    // Buckets en uso (último índice con datos + 1); los desplazamientos se dimensionan con él y no con la capacidad
+    private int length;
+
+    public RangeAggregateTree(int initialCapacity) {
+        rebuild(new long[Math.max(1, initialCapacity)]);
+    }
+
+    public void add(int index, long delta) {
+        if (index < 0) {
+            throw new IndexOutOfBoundsException("Índice negativo: " + index);
+        }
+        if (index >= capacity) {
+            int newCapacity = capacity;
+            while (newCapacity <= index) {
+                newCapacity *= 2;
+            }
+            rebuild(Arrays.copyOf(values, newCapacity));
+        }
+        length = Math.max(length, index + 1);
+        values[index] += delta;
+        for (int i = index + 1; i <= capacity; i += i & -i) {
+            fenwick[i] += delta;
+        }
+        int node = index + capacity;
+        segment[node] = values[index];
+        for (node >>= 1; node >= 1; node >>= 1) {
+            segment[node] = Math.max(segment[2 * node], segment[2 * node + 1]);
+        }
+    }
+
+    /**
+     * Desplaza todos los buckets {@code count} posiciones a la derecha (llegó un dato anterior al origen)
+     */
+    public void prepend(int count) {
+        long[] shifted = new long[Math.max(capacity, length + count)];
+        System.arraycopy(values, 0, shifted, count, length);
+        rebuild(shifted);
+        length = length == 0 ? 0 : length + count;
+    }
+
+    /**
+     * Desplaza todos los buckets {@code count} posiciones a la izquierda y descarta los primeros
+     * (el origen avanza al aplicar la retención); la capacidad no cambia
+     */
+    public void discard(int count) {
+        long[] shifted = new long[capacity];
+        if (count < length) {
+            System.arraycopy(values, count, shifted, 0, length - count);
+        }
+        rebuild(shifted);
+        length = Math.max(0, length - count);
+    }
+
+    /**
+     * Suma de los buckets [from, to] (inclusive)
+     */
+    public long sum(int from, int to) {
+        from = Math.max(0, from);
+        to = Math.min(capacity - 1, to);
+        if (from > to) {
+            return 0;
+        }
+        return prefix(to) - (from == 0 ? 0 : prefix(from - 1));
+    }
+
+    /**
+     * Máximo valor de un bucket en [from, to] (inclusive)
+     */
+    public long max(int from, int to) {
+        from = Math.max(0, from);
+        to = Math.min(capacity - 1, to);
+        long result = 0;
+        for (int left = from + capacity, right = to + capacity + 1; left < right; left >>= 1, right >>= 1) {
+            if ((left & 1) == 1) {
+                result = Math.max(result, segment[left++]);
+            }
+            if ((right & 1) == 1) {
+                result = Math.max(result, segment[--right]);
+            }
+        }
+        return result;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    private long prefix(int index) {
+        long total = 0;
+        for (int i = index + 1; i > 0; i -= i & -i) {
+            total += fenwick[i];
+        }
+        return total;
+    }
+
+    private void rebuild(long[] newValues) {
+        int size = Integer.highestOneBit(Math.max(1, newValues.length - 1)) << 1;
+        values = Arrays.copyOf(newValues, Math.max(size, newValues.length));
+        capacity = values.length;
+
+        fenwick = new long[capacity + 1];
+        for (int i = 1; i <= capacity; i++) {
+            fenwick[i] += values[i - 1];
+            int parent = i + (i & -i);
+            if (parent <= capacity) {
+                fenwick[parent] += fenwick[i];
+            }
+        }
+
+        segment = new long[2 * capacity];
+        System.arraycopy(values, 0, segment, capacity, capacity);
+        for (int node = capacity - 1; node >= 1; node--) {
+            segment[node] = Math.max(segment[2 * node], segment[2 * node + 1]);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.demo.service.analytics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Buffer circular acotado y sin bloqueos con los últimos N elementos agregados.
+ * Cada posición guarda el elemento junto con su número de secuencia: un lector que llega tarde
+ * y encuentra la posición ya sobrescrita simplemente la descarta, sin bloquear al escritor.
+ */
+public final class RecentRingBuffer<T> {
+
+    private final AtomicReferenceArray<Slot<T>> slots;
+    private final AtomicLong sequence = new AtomicLong();
+
+    public RecentRingBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("La capacidad debe ser positiva: " + capacity);
+        }
+        this.slots = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * Agrega un elemento y devuelve su número de secuencia (desde 0)
+     */
+    public long add(T item) {
+        long seq = sequence.getAndIncrement();
+        slots.set(index(seq), new Slot<>(seq, item));
+        return seq;
+    }
+
+    /**
+     * Hasta {@code limit} elementos más recientes, del más nuevo al más antiguo
+     */
+    public List<T> latest(int limit) {
+        long head = sequence.get();
+        long oldest = Math.max(0, head - Math.min(limit, slots.length()));
+        List<T> result = new ArrayList<>((int) (head - oldest));
+        for (long seq = head - 1; seq >= oldest; seq--) {
+            Slot<T> slot = slots.get(index(seq));
+            if (slot != null && slot.sequence == seq) {
+                result.add(slot.item);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Total de elementos agregados desde la creación (incluye los ya sobrescritos)
+     */
+    public long added() {
+        return sequence.get();
+    }
+
+    public int capacity() {
+        return slots.length();
+    }
+
+    private int index(long seq) {
+        return (int) (seq % slots.length());
+    }
+
+    private record Slot<T>(long sequence, T item) {
+    }
+}
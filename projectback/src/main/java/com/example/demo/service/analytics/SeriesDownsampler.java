@@ -0,0 +1,224 @@
+package com.example.demo.service.analytics;
+
+import java.util.Locale;
+
+/**
+ * Reducción de series temporales para gráficas.
+ * Agrega en buckets de tiempo y, opcionalmente, aplica LTTB (Largest-Triangle-Three-Buckets)
+ * para conservar la forma de la curva con un número acotado de puntos.
+ * Todas las series comparten el mismo eje de tiempo, que debe venir ordenado ascendentemente.
+ */
+public final class SeriesDownsampler {
+
+    public static final int MIN_POINTS = 3;
+
+    public enum Aggregation {
+        /** Conteos: se suman dentro del bucket */
+        SUM,
+        /** Velocidades: promedio de las muestras mayores que cero */
+        MEAN
+    }
+
+    /**
+     * Series columnares con eje de tiempo compartido; solo las primeras {@code length} posiciones son válidas
+     */
+    public record Series(long[] times, double[][] values, int length) {
+    }
+
+    private SeriesDownsampler() {
+    }
+
+    /**
+     * Valida los parámetros de reducción sin tocar datos, para rechazarlos antes de leer la base de datos
+     *
+     * @throws IllegalArgumentException si {@code maxPoints} es menor que {@link #MIN_POINTS}, el bucket no
+     *                                  se puede interpretar o el método no es "bucket" ni "lttb"
+     */
+    public static void validate(Integer maxPoints, String bucket, String method) {
+        if (maxPoints != null && maxPoints < MIN_POINTS) {
+            throw new IllegalArgumentException("maxPoints debe ser al menos " + MIN_POINTS);
+        }
+        parseMethod(method);
+        if (bucket != null && !bucket.isBlank()) {
+            DetectionTimes.parseBucket(bucket);
+        }
+    }
+
+    /**
+     * Aplica los parámetros de la petición: primero el bucket explícito y, si aún hay más de
+     * {@code maxPoints} puntos, la reducción indicada por {@code method} ("bucket" o "lttb")
+     */
+    public static Series downsample(Series input, Integer maxPoints, String bucket, String method,
+                                    Aggregation aggregation) {
+        validate(maxPoints, bucket, method);
+        boolean lttb = parseMethod(method);
+
+        Series result = input;
+        if (bucket != null && !bucket.isBlank()) {
+            result = bucketize(result, DetectionTimes.parseBucket(bucket), aggregation);
+        }
+        if (maxPoints != null && result.length() > maxPoints) {
+            result = lttb
+                ? lttb(dropUnknownTimes(result), maxPoints)
+                : bucketize(result, autoBucketMillis(result, maxPoints), aggregation);
+        }
+        return result;
+    }
+
+    public static Series bucketize(Series input, long bucketMillis, Aggregation aggregation) {
+        int seriesCount = input.values().length;
+        long[] times = new long[input.length()];
+        double[][] values = new double[seriesCount][input.length()];
+        double[] sums = new double[seriesCount];
+        int[] samples = new int[seriesCount];
+
+        int out = -1;
+        long currentBucket = DetectionTimes.UNKNOWN;
+        for (int i = 0; i < input.length(); i++) {
+            long time = input.times()[i];
+            if (time == DetectionTimes.UNKNOWN) {
+                continue;
+            }
+            long bucketStart = DetectionTimes.floorToBucket(time, bucketMillis);
+            if (out < 0 || bucketStart != currentBucket) {
+                if (out >= 0) {
+                    flushBucket(values, out, sums, samples, aggregation);
+                }
+                out++;
+                currentBucket = bucketStart;
+                times[out] = bucketStart;
+            }
+            for (int s = 0; s < seriesCount; s++) {
+                double value = input.values()[s][i];
+                if (aggregation == Aggregation.SUM || value > 0) {
+                    sums[s] += value;
+                    samples[s]++;
+                }
+            }
+        }
+        if (out >= 0) {
+            flushBucket(values, out, sums, samples, aggregation);
+        }
+        return new Series(times, values, out + 1);
+    }
+
+    /**
+     * LTTB sobre la suma de todas las series, de modo que los índices elegidos son comunes a todas
+     */
+    public static Series lttb(Series input, int threshold) {
+        int length = input.length();
+        if (threshold >= length || threshold < MIN_POINTS) {
+            return input;
+        }
+        int seriesCount = input.values().length;
+        long[] x = input.times();
+        double[] y = new double[length];
+        for (int s = 0; s < seriesCount; s++) {
+            double[] column = input.values()[s];
+            for (int i = 0; i < length; i++) {
+                y[i] += column[i];
+            }
+        }
+
+        int[] selected = new int[threshold];
+        selected[0] = 0;
+        double every = (double) (length - 2) / (threshold - 2);
+        int a = 0;
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            int avgStart = (int) Math.floor((bucket + 1) * every) + 1;
+            int avgEnd = Math.min((int) Math.floor((bucket + 2) * every) + 1, length);
+            double avgX = 0;
+            double avgY = 0;
+            for (int i = avgStart; i < avgEnd; i++) {
+                avgX += x[i];
+                avgY += y[i];
+            }
+            int avgCount = avgEnd - avgStart;
+            avgX /= avgCount;
+            avgY /= avgCount;
+
+            int rangeStart = (int) Math.floor(bucket * every) + 1;
+            int rangeEnd = (int) Math.floor((bucket + 1) * every) + 1;
+            double maxArea = -1;
+            int next = rangeStart;
+            for (int i = rangeStart; i < rangeEnd; i++) {
+                double area = Math.abs((x[a] - avgX) * (y[i] - y[a]) - (x[a] - x[i]) * (avgY - y[a]));
+                if (area > maxArea) {
+                    maxArea = area;
+                    next = i;
+                }
+            }
+            selected[bucket + 1] = next;
+            a = next;
+        }
+        selected[threshold - 1] = length - 1;
+
+        long[] times = new long[threshold];
+        double[][] values = new double[seriesCount][threshold];
+        for (int k = 0; k < threshold; k++) {
+            times[k] = x[selected[k]];
+            for (int s = 0; s < seriesCount; s++) {
+                values[s][k] = input.values()[s][selected[k]];
+            }
+        }
+        return new Series(times, values, threshold);
+    }
+
+    private static void flushBucket(double[][] values, int out, double[] sums, int[] samples,
+                                    Aggregation aggregation) {
+        for (int s = 0; s < sums.length; s++) {
+            values[s][out] = aggregation == Aggregation.SUM || samples[s] == 0 ? sums[s] : sums[s] / samples[s];
+            sums[s] = 0;
+            samples[s] = 0;
+        }
+    }
+
+    /**
+     * Ancho de bucket (en segundos completos) que garantiza como mucho {@code maxPoints} buckets
+     */
+    private static long autoBucketMillis(Series series, int maxPoints) {
+        long first = DetectionTimes.UNKNOWN;
+        long last = DetectionTimes.UNKNOWN;
+        for (int i = 0; i < series.length(); i++) {
+            long time = series.times()[i];
+            if (time != DetectionTimes.UNKNOWN) {
+                if (first == DetectionTimes.UNKNOWN) {
+                    first = time;
+                }
+                last = time;
+            }
+        }
+        long span = first == DetectionTimes.UNKNOWN ? 0 : last - first;
+        long width = span / (maxPoints - 1) + 1;
+        return Math.max(1_000L, (width + 999) / 1_000 * 1_000);
+    }
+
+    private static Series dropUnknownTimes(Series input) {
+        int seriesCount = input.values().length;
+        long[] times = new long[input.length()];
+        double[][] values = new double[seriesCount][input.length()];
+        int out = 0;
+        for (int i = 0; i < input.length(); i++) {
+            if (input.times()[i] == DetectionTimes.UNKNOWN) {
+                continue;
+            }
+            times[out] = input.times()[i];
+            for (int s = 0; s < seriesCount; s++) {
+                values[s][out] = input.values()[s][i];
+            }
+            out++;
+        }
+        return new Series(times, values, out);
+    }
+
+    private static boolean parseMethod(String method) {
+        if (method == null || method.isBlank()) {
+            return false;
+        }
+        return switch (method.trim().toLowerCase(Locale.ROOT)) {
+            case "bucket" -> false;
+            case "lttb" -> true;
+            default -> throw new IllegalArgumentException("Método de reducción no soportado: " + method);
+        };
+    }
+}
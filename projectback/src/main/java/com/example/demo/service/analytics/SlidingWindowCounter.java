@@ -0,0 +1,78 @@
+package com.example.demo.service.analytics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Contador de ventana deslizante sobre buckets de tiempo fijos guardados en un arreglo circular.
+ * Cada bucket tiene {@code fields} acumuladores (por ejemplo conteo, o suma y cantidad de velocidades).
+ * Un único escritor actualiza en O(1); los lectores no usan locks: validan el sello del bucket
+ * antes y después de leerlo y descartan los que se estén reciclando en ese momento.
+ */
+public final class SlidingWindowCounter {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private final int slots;
+    private final int fields;
+    private final AtomicLongArray stamps;
+    private final AtomicLongArray values;
+
+    public SlidingWindowCounter(int slots, int fields) {
+        this.slots = slots;
+        this.fields = fields;
+        this.stamps = new AtomicLongArray(slots);
+        this.values = new AtomicLongArray(slots * fields);
+        clear();
+    }
+
+    /**
+     * Suma {@code delta} al campo indicado del bucket; recicla la posición si contenía un bucket viejo.
+     * Una muestra atrasada cuyo bucket es anterior al que ocupa la posición se descarta (ya salió de la ventana)
+     */
+    public void add(long bucket, int field, long delta) {
+        int slot = (int) Math.floorMod(bucket, (long) slots);
+        long stamp = stamps.get(slot);
+        if (stamp > bucket) {
+            return;
+        }
+        if (stamp != bucket) {
+            stamps.set(slot, EMPTY);
+            for (int f = 0; f < fields; f++) {
+                values.set(slot * fields + f, 0L);
+            }
+            stamps.set(slot, bucket);
+        }
+        values.addAndGet(slot * fields + field, delta);
+    }
+
+    /**
+     * Invalida todos los buckets (solo desde el hilo escritor)
+     */
+    public void clear() {
+        for (int i = 0; i < slots; i++) {
+            stamps.set(i, EMPTY);
+        }
+    }
+
+    /**
+     * Suma del campo sobre los buckets [fromBucket, toBucket]
+     */
+    public long sum(long fromBucket, long toBucket, int field) {
+        long total = 0;
+        for (int slot = 0; slot < slots; slot++) {
+            long stamp = stamps.get(slot);
+            if (stamp == EMPTY || stamp < fromBucket || stamp > toBucket) {
+                continue;
+            }
+            long value = values.get(slot * fields + field);
+            if (stamps.get(slot) == stamp) {
+                total += value;
+            }
+        }
+        return total;
+    }
+
+    public int getSlots() {
+        return slots;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.demo.service.analytics;
+
+import java.util.Arrays;
+
+/**
+ * Histograma de velocidades con buckets fijos de 0,5 km/h entre 0 y 200 km/h más un bucket de desborde.
+ * Ocupa memoria constante sin importar cuántas muestras reciba, se combina sumando buckets
+ * (entre horas, carriles o nodos) y responde percentiles en O(buckets).
+ * No es thread-safe: quien lo comparta debe sincronizar el acceso.
+ */
+public final class SpeedHistogram {
+
+    public static final double BUCKET_WIDTH = 0.5;
+    public static final double MAX_SPEED = 200.0;
+    public static final int BUCKETS = (int) (MAX_SPEED / BUCKET_WIDTH) + 1;
+
+    private final long[] counts;
+    private long total;
+    private double sum;
+
+    public SpeedHistogram() {
+        this.counts = new long[BUCKETS];
+    }
+
+    private SpeedHistogram(long[] counts, long total, double sum) {
+        this.counts = counts;
+        this.total = total;
+        this.sum = sum;
+    }
+
+    /**
+     * Reconstruye un histograma a partir de sus buckets serializados (por ejemplo, el de otro nodo)
+     */
+    public static SpeedHistogram fromCounts(long[] counts, double sum) {
+        if (counts.length != BUCKETS) {
+            throw new IllegalArgumentException("Se esperaban " + BUCKETS + " buckets y llegaron " + counts.length);
+        }
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        return new SpeedHistogram(Arrays.copyOf(counts, BUCKETS), total, sum);
+    }
+
+    public void record(double speed, long weight) {
+        if (speed < 0 || Double.isNaN(speed) || weight <= 0) {
+            return;
+        }
+        int bucket = speed >= MAX_SPEED ? BUCKETS - 1 : (int) (speed / BUCKET_WIDTH);
+        counts[bucket] += weight;
+        total += weight;
+        sum += speed * weight;
+    }
+
+    public SpeedHistogram merge(SpeedHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+        sum += other.sum;
+        return this;
+    }
+
+    public SpeedHistogram copy() {
+        return new SpeedHistogram(Arrays.copyOf(counts, BUCKETS), total, sum);
+    }
+
+    /**
+     * Percentil {@code p} (0-100) interpolando linealmente dentro del bucket; NaN si no hay muestras
+     */
+    public double percentile(double p) {
+        if (total == 0) {
+            return Double.NaN;
+        }
+        double rank = Math.max(0.0, Math.min(100.0, p)) / 100.0 * total;
+        long cumulative = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            long count = counts[i];
+            if (count > 0 && cumulative + count >= rank) {
+                if (i == BUCKETS - 1) {
+                    return MAX_SPEED;
+                }
+                double fraction = (rank - cumulative) / count;
+                return (i + fraction) * BUCKET_WIDTH;
+            }
+            cumulative += count;
+        }
+        return MAX_SPEED;
+    }
+
+    public double mean() {
+        return total == 0 ? Double.NaN : sum / total;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public double getSum() {
+        return sum;
+    }
+
+    public long[] getCounts() {
+        return Arrays.copyOf(counts, BUCKETS);
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.demo.service.analytics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Conserva los K mayores elementos según un comparador con un heap mínimo acotado.
+ * Cada oferta cuesta O(log K) y la memoria es O(K) sin importar cuántos elementos pasen.
+ * No es thread-safe.
+ */
+public final class TopKTracker<T> {
+
+    private final int capacity;
+    private final Comparator<T> order;
+    private final PriorityQueue<T> heap;
+
+    /**
+     * @param order orden en el que "mayor" es mejor; la raíz del heap es el peor retenido
+     */
+    public TopKTracker(int capacity, Comparator<T> order) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("K debe ser positivo: " + capacity);
+        }
+        this.capacity = capacity;
+        this.order = order;
+        this.heap = new PriorityQueue<>(capacity, order);
+    }
+
+    public void offer(T item) {
+        if (heap.size() < capacity) {
+            heap.add(item);
+        } else if (order.compare(item, heap.peek()) > 0) {
+            heap.poll();
+            heap.add(item);
+        }
+    }
+
+    /**
+     * Los {@code k} mejores retenidos, del mejor al peor
+     */
+    public List<T> top(int k) {
+        List<T> result = new ArrayList<>(heap);
+        result.sort(order.reversed());
+        return result.size() > k ? new ArrayList<>(result.subList(0, k)) : result;
+    }
+
+    public int size() {
+        return heap.size();
+    }
+}
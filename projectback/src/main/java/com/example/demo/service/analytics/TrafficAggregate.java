@@ -0,0 +1,127 @@
+package com.example.demo.service.analytics;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.example.demo.service.DTO.DetectionJson;
+
+/**
+ * Acumulador parcial de tráfico: totales por tipo, volumen por carril y tipo, patrón horario
+ * y suma/cantidad de velocidades por carril. Dos acumuladores se combinan con {@link #merge},
+ * por lo que cada hilo puede agregar su partición por separado.
+ * No es thread-safe: cada instancia pertenece a un único hilo hasta que se combina.
+ */
+public final class TrafficAggregate {
+
+    private long detections;
+    private final Map<String, Long> totals = new HashMap<>();
+    private final Map<String, Map<String, Long>> byLane = new HashMap<>();
+    private final long[] hourly = new long[24];
+    private final Map<String, SpeedStats> speedByLane = new HashMap<>();
+
+    public void accept(DetectionJson detection) {
+        detections++;
+
+        long vehicles = 0;
+        if (detection.getObjects_total() != null) {
+            for (Map.Entry<String, Integer> entry : detection.getObjects_total().entrySet()) {
+                Integer count = entry.getValue();
+                if (count != null && count > 0) {
+                    totals.merge(entry.getKey(), count.longValue(), Long::sum);
+                    vehicles += count;
+                }
+            }
+        }
+
+        int hour = DetectionTimes.hourOf(detection.getDate());
+        if (hour >= 0) {
+            hourly[hour] += vehicles;
+        }
+
+        if (detection.getObjects_by_lane() != null) {
+            detection.getObjects_by_lane().forEach((lane, vehiclesByType) -> {
+                if (vehiclesByType != null) {
+                    Map<String, Long> laneCounts = byLane.computeIfAbsent(lane, k -> new HashMap<>());
+                    vehiclesByType.forEach((type, count) -> {
+                        if (count != null && count > 0) {
+                            laneCounts.merge(type, count.longValue(), Long::sum);
+                        }
+                    });
+                }
+            });
+        }
+
+        if (detection.getAvg_speed_by_lane() != null) {
+            detection.getAvg_speed_by_lane().forEach((lane, speed) -> {
+                if (speed != null && speed > 0) {
+                    speedByLane.computeIfAbsent(lane, k -> new SpeedStats()).add(speed, 1);
+                }
+            });
+        }
+    }
+
+    /**
+     * Combina otro parcial dentro de este y lo devuelve
+     */
+    public TrafficAggregate merge(TrafficAggregate other) {
+        detections += other.detections;
+        other.totals.forEach((type, count) -> totals.merge(type, count, Long::sum));
+        other.byLane.forEach((lane, counts) -> {
+            Map<String, Long> laneCounts = byLane.computeIfAbsent(lane, k -> new HashMap<>());
+            counts.forEach((type, count) -> laneCounts.merge(type, count, Long::sum));
+        });
+        for (int h = 0; h < hourly.length; h++) {
+            hourly[h] += other.hourly[h];
+        }
+        other.speedByLane.forEach((lane, stats) ->
+            speedByLane.computeIfAbsent(lane, k -> new SpeedStats()).add(stats.sum, stats.count));
+        return this;
+    }
+
+    public long getDetections() {
+        return detections;
+    }
+
+    public Map<String, Long> getTotals() {
+        return totals;
+    }
+
+    public Map<String, Map<String, Long>> getByLane() {
+        return byLane;
+    }
+
+    public long[] getHourly() {
+        return hourly;
+    }
+
+    public Map<String, SpeedStats> getSpeedByLane() {
+        return speedByLane;
+    }
+
+    /**
+     * Suma y cantidad de muestras de velocidad; el promedio exacto se obtiene al final
+     * (combinar promedios de promedios daría un resultado incorrecto)
+     */
+    public static final class SpeedStats {
+
+        private double sum;
+        private long count;
+
+        public void add(double speedSum, long samples) {
+            sum += speedSum;
+            count += samples;
+        }
+
+        public double getSum() {
+            return sum;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double mean() {
+            return count == 0 ? 0.0 : sum / count;
+        }
+    }
+}
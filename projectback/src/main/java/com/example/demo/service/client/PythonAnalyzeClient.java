@@ -0,0 +1,160 @@
+package com.example.demo.service.client;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.service.DTO.DetectionJson;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Cliente asíncrono del servicio Python de análisis. Un único {@link HttpClient} reutiliza las conexiones;
+ * cada petición lleva un lote ({@code [objects_total, ...]}) y la respuesta es un arreglo de resultados en
+ * el mismo orden. Las peticiones simultáneas están acotadas y un circuit breaker corta las llamadas
+ * mientras el servicio está caído.
+ */
+@Component
+public class PythonAnalyzeClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(PythonAnalyzeClient.class);
+    private static final TypeReference<List<Map<String, Double>>> RESULTS = new TypeReference<>() {
+    };
+
+    private final ObjectMapper objectMapper;
+    private final URI analyzeUri;
+    private final Duration timeout;
+    private final int maxInFlight;
+    private final Semaphore inFlight;
+    private final CircuitBreaker breaker;
+    private final HttpClient httpClient;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder detections = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder shortCircuited = new LongAdder();
+    private final LongAdder latencyNanos = new LongAdder();
+
+    public PythonAnalyzeClient(ObjectMapper objectMapper,
+                               @Value("${app.python.analyze-url:http://localhost:5000/analyze}") String analyzeUrl,
+                               @Value("${app.python.max-in-flight:4}") int maxInFlight,
+                               @Value("${app.python.timeout-ms:2000}") long timeoutMillis,
+                               @Value("${app.python.breaker.failure-threshold:5}") int failureThreshold,
+                               @Value("${app.python.breaker.open-ms:30000}") long openMillis) {
+        this.objectMapper = objectMapper;
+        this.analyzeUri = URI.create(analyzeUrl.trim());
+        this.timeout = Duration.ofMillis(Math.max(1, timeoutMillis));
+        this.maxInFlight = Math.max(1, maxInFlight);
+        this.inFlight = new Semaphore(this.maxInFlight);
+        this.breaker = new CircuitBreaker(failureThreshold, openMillis);
+        // HTTP/1.1 explícito: el servicio Python no habla h2c y así se evita el intento de upgrade
+        this.httpClient = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(this.timeout)
+            .build();
+        logger.info("🐍 Cliente de análisis Python en {} ({} peticiones simultáneas)", analyzeUri, this.maxInFlight);
+    }
+
+    /**
+     * Envía el lote en una sola petición. El futuro falla de inmediato, sin tocar la red, si ya hay
+     * demasiadas peticiones en curso o si el circuito está abierto.
+     */
+    public CompletableFuture<List<Map<String, Double>>> analyze(List<DetectionJson> batch) {
+        if (batch.isEmpty()) {
+            return CompletableFuture.completedFuture(List.of());
+        }
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(batch.stream().map(DetectionJson::getObjects_total).toList());
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (!inFlight.tryAcquire()) {
+            rejected.increment();
+            return CompletableFuture.failedFuture(
+                new RejectedExecutionException("Límite de " + maxInFlight + " peticiones en curso alcanzado"));
+        }
+        if (!breaker.tryAcquire()) {
+            inFlight.release();
+            shortCircuited.increment();
+            return CompletableFuture.failedFuture(new IllegalStateException("Circuito abierto hacia " + analyzeUri));
+        }
+
+        HttpRequest request = HttpRequest.newBuilder(analyzeUri)
+            .timeout(timeout)
+            .header("Content-Type", "application/json")
+            .header("Accept", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+            .build();
+        long start = System.nanoTime();
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+            .thenApply(response -> parse(response, batch.size()))
+            .whenComplete((results, error) -> {
+                inFlight.release();
+                latencyNanos.add(System.nanoTime() - start);
+                requests.increment();
+                if (error == null) {
+                    breaker.onSuccess();
+                    detections.add(batch.size());
+                } else {
+                    breaker.onFailure();
+                    failures.increment();
+                    logger.debug("⚠️ Fallo del servicio de análisis Python: {}", error.getMessage());
+                }
+            });
+    }
+
+    public Map<String, Object> getMetrics() {
+        long total = requests.sum();
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("url", analyzeUri.toString());
+        metrics.put("circuit", breaker.getState().name());
+        metrics.put("inFlight", maxInFlight - inFlight.availablePermits());
+        metrics.put("maxInFlight", maxInFlight);
+        metrics.put("requests", total);
+        metrics.put("detections", detections.sum());
+        metrics.put("failures", failures.sum());
+        metrics.put("rejected", rejected.sum());
+        metrics.put("shortCircuited", shortCircuited.sum());
+        metrics.put("avgLatencyMillis", total == 0 ? 0.0 : Math.round(latencyNanos.sum() / 1e4 / total) / 100.0);
+        return metrics;
+    }
+
+    CircuitBreaker.State getCircuitState() {
+        return breaker.getState();
+    }
+
+    private List<Map<String, Double>> parse(HttpResponse<byte[]> response, int expected) {
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("HTTP " + response.statusCode() + " desde " + analyzeUri);
+        }
+        List<Map<String, Double>> results;
+        try {
+            results = objectMapper.readValue(response.body(), RESULTS);
+        } catch (IOException e) {
+            throw new IllegalStateException("Respuesta inválida desde " + analyzeUri + ": " + e.getMessage(), e);
+        }
+        if (results == null || results.size() != expected) {
+            throw new IllegalStateException("Se esperaban " + expected + " resultados y llegaron "
+                + (results == null ? 0 : results.size()));
+        }
+        return results;
+    }
+}
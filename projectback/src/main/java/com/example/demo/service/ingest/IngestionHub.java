@@ -0,0 +1,134 @@
+package com.example.demo.service.ingest;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.example.demo.service.DTO.DetectionJson;
+
+/**
+ * Reparte las detecciones ingeridas a todos los {@link IngestionListener} registrados
+ * y mantiene la versión de datos, que aumenta en cada carga confirmada.
+ * Los receptores se reinician y rellenan en su sitio: mientras dura la recarga, las lecturas que pasan por
+ * {@link #acquireReadView(long)} esperan, para no ver estructuras vacías o a medio cargar.
+ */
+@Component
+public class IngestionHub {
+
+    private static final Logger logger = LoggerFactory.getLogger(IngestionHub.class);
+
+    private final List<IngestionListener> listeners;
+    private final AtomicLong dataVersion = new AtomicLong();
+    private volatile long lastCommitMillis = System.currentTimeMillis();
+    // Justo: una recarga en espera no queda detrás de un flujo continuo de lecturas
+    private final ReentrantReadWriteLock view = new ReentrantReadWriteLock(true);
+
+    public IngestionHub(List<IngestionListener> listeners) {
+        this.listeners = List.copyOf(listeners);
+        logger.info("🔌 {} receptores de ingesta registrados", this.listeners.size());
+    }
+
+    /**
+     * Publica una carga completa del historial. Si hay una transacción activa se espera a que confirme,
+     * de modo que los receptores nunca ven datos que luego se revierten.
+     */
+    public void publishReload(List<DetectionJson> detections) {
+        List<DetectionJson> ordered = new ArrayList<>(detections);
+        ordered.sort(Comparator.comparing(DetectionJson::getTimestamp_ms,
+            Comparator.nullsFirst(Comparator.naturalOrder())));
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    dispatch(ordered);
+                }
+            });
+        } else {
+            dispatch(ordered);
+        }
+    }
+
+    /**
+     * Versión de la última carga cuyos receptores ya terminaron {@link IngestionListener#onCommit(long)}
+     */
+    public long getDataVersion() {
+        return dataVersion.get();
+    }
+
+    public long getLastCommitMillis() {
+        return lastCommitMillis;
+    }
+
+    /**
+     * Espera a lo sumo {@code maxWaitMillis} a que no haya una recarga en curso y bloquea las siguientes hasta
+     * {@link #releaseReadView()}, que debe llamarse desde el mismo hilo. Devuelve false si se agotó la espera.
+     */
+    public boolean acquireReadView(long maxWaitMillis) {
+        try {
+            return view.readLock().tryLock(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    public void releaseReadView() {
+        view.readLock().unlock();
+    }
+
+    private void dispatch(List<DetectionJson> detections) {
+        view.writeLock().lock();
+        try {
+            replay(detections);
+        } finally {
+            view.writeLock().unlock();
+        }
+    }
+
+    private void replay(List<DetectionJson> detections) {
+        long start = System.nanoTime();
+        for (IngestionListener listener : listeners) {
+            try {
+                listener.onReset();
+            } catch (RuntimeException e) {
+                logger.warn("⚠️ Error reiniciando receptor {}: {}", listener.getClass().getSimpleName(), e.getMessage());
+            }
+        }
+
+        for (DetectionJson detection : detections) {
+            for (IngestionListener listener : listeners) {
+                try {
+                    listener.onDetection(detection);
+                } catch (RuntimeException e) {
+                    logger.debug("⚠️ Error en receptor {} para timestamp {}: {}",
+                                 listener.getClass().getSimpleName(), detection.getTimestamp_ms(), e.getMessage());
+                }
+            }
+        }
+
+        // La versión nueva se publica cuando todos los receptores confirmaron: antes, un ETag o una clave de
+        // coalescencia con la versión nueva podría quedar asociado a datos de la carga anterior
+        long version = dataVersion.get() + 1;
+        for (IngestionListener listener : listeners) {
+            try {
+                listener.onCommit(version);
+            } catch (RuntimeException e) {
+                logger.warn("⚠️ Error confirmando receptor {}: {}", listener.getClass().getSimpleName(), e.getMessage());
+            }
+        }
+        lastCommitMillis = System.currentTimeMillis();
+        dataVersion.set(version);
+        logger.info("🔌 {} detecciones publicadas a {} receptores en {} ms (versión {})",
+                    detections.size(), listeners.size(), (System.nanoTime() - start) / 1_000_000, version);
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.demo.service.ingest;
+
+import com.example.demo.service.DTO.DetectionJson;
+
+/**
+ * Receptor de las detecciones que ingiere {@link com.example.demo.service.JsonLoader}.
+ * Cada carga reemplaza el historial completo, así que los receptores reciben primero {@link #onReset()},
+ * luego cada detección en orden de timestamp y por último {@link #onCommit(long)}.
+ * Las llamadas se hacen desde un único hilo a la vez; las lecturas concurrentes corren por cuenta de cada receptor.
+ */
+public interface IngestionListener {
+
+    default void onReset() {
+    }
+
+    void onDetection(DetectionJson detection);
+
+    default void onCommit(long dataVersion) {
+    }
+}
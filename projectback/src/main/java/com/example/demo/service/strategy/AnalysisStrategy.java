@@ -1,7 +1,24 @@
 package com.example.demo.service.strategy;
 
+import java.util.List;
+
 import com.example.demo.service.DTO.DetectionJson;
 
 public interface AnalysisStrategy {
     void analyze(DetectionJson detection);
-}
\ No newline at end of file
+
+    /**
+     * Analiza un lote de detecciones; por defecto una a una. Las estrategias con costo fijo por llamada
+     * (por ejemplo, una petición HTTP) pueden sobrescribirlo para procesar el lote de una vez.
+     */
+    default void analyzeBatch(List<DetectionJson> batch) {
+        batch.forEach(this::analyze);
+    }
+
+    /**
+     * Verdadero si los lotes deben procesarse uno tras otro en el orden de ingesta
+     */
+    default boolean requiresOrdering() {
+        return false;
+    }
+}
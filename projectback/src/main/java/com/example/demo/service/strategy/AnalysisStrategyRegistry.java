@@ -0,0 +1,113 @@
+package com.example.demo.service.strategy;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Registro de estrategias resuelto una sola vez al arrancar. Cada bean {@code <nombre>Strategy} se
+ * registra como {@code <nombre>} y cada entrada de {@code app.analysis.composites} ({@code nombre=a+b})
+ * como una {@link CompositeStrategy}. El mapa es inmutable; habilitar o deshabilitar solo cambia
+ * el indicador del {@link StrategyHandle}.
+ */
+@Component
+public class AnalysisStrategyRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(AnalysisStrategyRegistry.class);
+    private static final String BEAN_SUFFIX = "Strategy";
+
+    private final Map<String, StrategyHandle> handles;
+
+    public AnalysisStrategyRegistry(Map<String, AnalysisStrategy> beans,
+                                    @Value("${app.analysis.composites:}") List<String> composites,
+                                    @Value("${app.analysis.strategies:}") List<String> enabled) {
+        Set<String> enabledNames = new HashSet<>();
+        enabled.stream().filter(name -> name != null && !name.isBlank()).forEach(name -> enabledNames.add(name.trim()));
+
+        Map<String, StrategyHandle> resolved = new LinkedHashMap<>();
+        beans.forEach((beanName, strategy) -> {
+            String name = beanName.endsWith(BEAN_SUFFIX)
+                ? beanName.substring(0, beanName.length() - BEAN_SUFFIX.length())
+                : beanName;
+            resolved.put(name, new StrategyHandle(name, strategy, List.of(), enabledNames.contains(name)));
+        });
+
+        for (String composite : composites) {
+            if (composite == null || composite.isBlank()) {
+                continue;
+            }
+            String[] definition = composite.split("=", 2);
+            String name = definition[0].trim();
+            if (definition.length != 2 || name.isEmpty()) {
+                throw new IllegalArgumentException("Estrategia compuesta inválida (se espera nombre=a+b): " + composite);
+            }
+            if (resolved.containsKey(name)) {
+                throw new IllegalArgumentException("Nombre de estrategia repetido: " + name);
+            }
+            List<String> partNames = new ArrayList<>();
+            List<AnalysisStrategy> parts = new ArrayList<>();
+            for (String part : definition[1].split("\\+")) {
+                StrategyHandle handle = resolved.get(part.trim());
+                if (handle == null) {
+                    throw new IllegalArgumentException("Parte desconocida '" + part.trim() + "' en la estrategia " + name);
+                }
+                partNames.add(handle.getName());
+                parts.add(handle.getStrategy());
+            }
+            resolved.put(name, new StrategyHandle(name, new CompositeStrategy(parts), partNames,
+                enabledNames.contains(name)));
+        }
+
+        enabledNames.stream()
+            .filter(name -> !resolved.containsKey(name))
+            .findFirst()
+            .ifPresent(name -> {
+                throw new IllegalArgumentException("Estrategia desconocida en app.analysis.strategies: " + name);
+            });
+
+        this.handles = Collections.unmodifiableMap(resolved);
+        logger.info("🧩 Estrategias registradas: {} (habilitadas: {})", handles.keySet(), enabledNames);
+    }
+
+    public Collection<StrategyHandle> getHandles() {
+        return handles.values();
+    }
+
+    public StrategyHandle getHandle(String name) {
+        StrategyHandle handle = name == null ? null : handles.get(name.trim());
+        if (handle == null) {
+            throw new IllegalArgumentException("Estrategia desconocida: " + name);
+        }
+        return handle;
+    }
+
+    public AnalysisStrategy getStrategy(String name) {
+        return getHandle(name).getStrategy();
+    }
+
+    /**
+     * Habilita o deshabilita una estrategia para el pipeline de ingesta; surte efecto en la siguiente detección
+     */
+    public Map<String, Object> setEnabled(String name, boolean enabled) {
+        StrategyHandle handle = getHandle(name);
+        handle.setEnabled(enabled);
+        logger.info("🧩 Estrategia {} {}", handle.getName(), enabled ? "habilitada" : "deshabilitada");
+        return handle.describe();
+    }
+
+    public List<Map<String, Object>> describe() {
+        List<Map<String, Object>> descriptions = new ArrayList<>();
+        handles.values().forEach(handle -> descriptions.add(handle.describe()));
+        return descriptions;
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.demo.service.strategy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.example.demo.service.DTO.DetectionJson;
+
+/**
+ * Varias estrategias fusionadas en una sola pasada: cada detección del lote se recorre una vez
+ * y se entrega a todas las partes simples antes de pasar a la siguiente. Las partes que sobrescriben
+ * {@link AnalysisStrategy#analyzeBatch(List)} reciben el lote entero, respetando el orden configurado.
+ */
+public class CompositeStrategy implements AnalysisStrategy {
+
+    private final AnalysisStrategy[] parts;
+    // Tramos consecutivos de la configuración: o una parte por lotes, o varias simples fusionadas
+    private final AnalysisStrategy[][] stages;
+    private final boolean[] batched;
+    private final boolean ordered;
+
+    public CompositeStrategy(List<AnalysisStrategy> parts) {
+        this.parts = parts.toArray(AnalysisStrategy[]::new);
+        this.stages = stages(parts);
+        this.batched = new boolean[stages.length];
+        for (int i = 0; i < stages.length; i++) {
+            batched[i] = stages[i].length == 1 && overridesBatch(stages[i][0]);
+        }
+        this.ordered = parts.stream().anyMatch(AnalysisStrategy::requiresOrdering);
+    }
+
+    @Override
+    public void analyze(DetectionJson detection) {
+        for (AnalysisStrategy part : parts) {
+            part.analyze(detection);
+        }
+    }
+
+    @Override
+    public void analyzeBatch(List<DetectionJson> batch) {
+        for (int i = 0; i < stages.length; i++) {
+            if (batched[i]) {
+                stages[i][0].analyzeBatch(batch);
+                continue;
+            }
+            for (DetectionJson detection : batch) {
+                for (AnalysisStrategy part : stages[i]) {
+                    part.analyze(detection);
+                }
+            }
+        }
+    }
+
+    @Override
+    public boolean requiresOrdering() {
+        return ordered;
+    }
+
+    private static AnalysisStrategy[][] stages(List<AnalysisStrategy> parts) {
+        List<AnalysisStrategy[]> stages = new ArrayList<>();
+        List<AnalysisStrategy> simple = new ArrayList<>();
+        for (AnalysisStrategy part : parts) {
+            if (overridesBatch(part)) {
+                if (!simple.isEmpty()) {
+                    stages.add(simple.toArray(AnalysisStrategy[]::new));
+                    simple.clear();
+                }
+                stages.add(new AnalysisStrategy[] {part});
+            } else {
+                simple.add(part);
+            }
+        }
+        if (!simple.isEmpty()) {
+            stages.add(simple.toArray(AnalysisStrategy[]::new));
+        }
+        return stages.toArray(AnalysisStrategy[][]::new);
+    }
+
+    private static boolean overridesBatch(AnalysisStrategy part) {
+        try {
+            return part.getClass().getMethod("analyzeBatch", List.class).getDeclaringClass() != AnalysisStrategy.class;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+}
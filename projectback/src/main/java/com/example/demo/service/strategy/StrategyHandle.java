@@ -0,0 +1,54 @@
+package com.example.demo.service.strategy;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Estrategia ya resuelta del registro. El nombre, la instancia y sus partes no cambian;
+ * solo el indicador de habilitada, que se lee sin bloqueo en cada detección.
+ */
+public final class StrategyHandle {
+
+    private final String name;
+    private final AnalysisStrategy strategy;
+    private final List<String> parts;
+    private volatile boolean enabled;
+
+    StrategyHandle(String name, AnalysisStrategy strategy, List<String> parts, boolean enabled) {
+        this.name = name;
+        this.strategy = strategy;
+        this.parts = List.copyOf(parts);
+        this.enabled = enabled;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public AnalysisStrategy getStrategy() {
+        return strategy;
+    }
+
+    public boolean isComposite() {
+        return !parts.isEmpty();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    Map<String, Object> describe() {
+        Map<String, Object> description = new LinkedHashMap<>();
+        description.put("name", name);
+        description.put("type", isComposite() ? "composite" : "strategy");
+        description.put("parts", parts);
+        description.put("ordered", strategy.requiresOrdering());
+        description.put("enabled", enabled);
+        return description;
+    }
+}
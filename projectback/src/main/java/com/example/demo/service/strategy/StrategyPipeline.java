@@ -0,0 +1,271 @@
+package com.example.demo.service.strategy;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.service.DTO.DetectionJson;
+import com.example.demo.service.ingest.IngestionListener;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Etapa de ingesta que ejecuta las estrategias habilitadas del {@link AnalysisStrategyRegistry} sobre cada detección.
+ * Las detecciones se agrupan en lotes por estrategia y cada lote corre en un executor acotado con timeout;
+ * si el executor está saturado el lote se descarta y se cuenta, de modo que la carga principal nunca espera.
+ * Las estrategias que exigen orden procesan sus lotes de a uno, en el orden de ingesta.
+ */
+@Component
+public class StrategyPipeline implements IngestionListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(StrategyPipeline.class);
+
+    private final List<StrategyRunner> runners = new ArrayList<>();
+    private final int batchSize;
+    private final int queueCapacity;
+    private final long timeoutMillis;
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService watchdog;
+
+    public StrategyPipeline(AnalysisStrategyRegistry registry,
+                            @Value("${app.analysis.pipeline.threads:2}") int threads,
+                            @Value("${app.analysis.pipeline.queue-capacity:64}") int queueCapacity,
+                            @Value("${app.analysis.pipeline.batch-size:100}") int batchSize,
+                            @Value("${app.analysis.pipeline.timeout-ms:5000}") long timeoutMillis) {
+        registry.getHandles().forEach(handle -> runners.add(new StrategyRunner(handle)));
+        this.batchSize = Math.max(1, batchSize);
+        this.queueCapacity = Math.max(1, queueCapacity);
+        this.timeoutMillis = Math.max(1, timeoutMillis);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(Math.max(1, threads), Math.max(1, threads), 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(this.queueCapacity), runnable -> {
+                Thread thread = new Thread(runnable, "Strategy-Pipeline-" + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }, new ThreadPoolExecutor.AbortPolicy());
+        this.watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Strategy-Pipeline-Watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        logger.info("🧪 Pipeline de estrategias con {} hilos, lotes de {} y timeout de {} ms",
+            threads, this.batchSize, this.timeoutMillis);
+    }
+
+    @Override
+    public void onReset() {
+        // Los lotes ya enviados terminan; solo se descarta lo que aún no se había agrupado
+        runners.forEach(runner -> runner.buffer = new ArrayList<>(batchSize));
+    }
+
+    @Override
+    public void onDetection(DetectionJson detection) {
+        for (StrategyRunner runner : runners) {
+            if (!runner.handle.isEnabled()) {
+                continue;
+            }
+            runner.buffer.add(detection);
+            if (runner.buffer.size() >= batchSize) {
+                submit(runner);
+            }
+        }
+    }
+
+    @Override
+    public void onCommit(long dataVersion) {
+        for (StrategyRunner runner : runners) {
+            if (!runner.buffer.isEmpty()) {
+                submit(runner);
+            }
+        }
+    }
+
+    /**
+     * Métricas por estrategia: lotes, detecciones procesadas, fallidas, vencidas y descartadas, y throughput
+     */
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> strategies = new LinkedHashMap<>();
+        for (StrategyRunner runner : runners) {
+            long processed = runner.processed.sum();
+            long busyNanos = runner.busyNanos.sum();
+            long batches = runner.batches.sum();
+            Map<String, Object> metrics = new LinkedHashMap<>();
+            metrics.put("enabled", runner.handle.isEnabled());
+            metrics.put("ordered", runner.ordered);
+            metrics.put("batches", batches);
+            metrics.put("processed", processed);
+            metrics.put("failed", runner.failed.sum());
+            metrics.put("timedOut", runner.timedOut.sum());
+            metrics.put("dropped", runner.dropped.sum());
+            metrics.put("avgBatchMillis", batches == 0 ? 0.0 : Math.round(busyNanos / 1e4 / batches) / 100.0);
+            metrics.put("throughputPerSecond", busyNanos == 0 ? 0.0 : Math.round(processed * 1e11 / busyNanos) / 100.0);
+            strategies.put(runner.name, metrics);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("threads", executor.getMaximumPoolSize());
+        result.put("activeThreads", executor.getActiveCount());
+        result.put("queuedBatches", executor.getQueue().size());
+        result.put("queueCapacity", queueCapacity);
+        result.put("batchSize", batchSize);
+        result.put("timeoutMs", timeoutMillis);
+        result.put("strategies", strategies);
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+        watchdog.shutdownNow();
+    }
+
+    private void submit(StrategyRunner runner) {
+        List<DetectionJson> batch = runner.buffer;
+        runner.buffer = new ArrayList<>(batchSize);
+        if (!runner.ordered) {
+            launch(runner, batch);
+            return;
+        }
+        synchronized (runner) {
+            if (runner.pending.size() >= queueCapacity) {
+                runner.dropped.add(batch.size());
+                return;
+            }
+            runner.pending.addLast(batch);
+            if (!runner.active) {
+                launchNext(runner);
+            }
+        }
+    }
+
+    /**
+     * Lanza el siguiente lote pendiente de una estrategia ordenada (con el monitor del runner tomado)
+     */
+    private void launchNext(StrategyRunner runner) {
+        List<DetectionJson> batch = runner.pending.pollFirst();
+        runner.active = batch != null;
+        if (batch != null) {
+            launch(runner, batch);
+        }
+    }
+
+    private void launch(StrategyRunner runner, List<DetectionJson> batch) {
+        BatchTask task = new BatchTask(runner, batch);
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            runner.dropped.add(batch.size());
+            logger.debug("⚠️ Lote de {} detecciones descartado para {}: executor saturado", batch.size(), runner.name);
+            if (runner.ordered) {
+                launchNext(runner);
+            }
+        }
+    }
+
+    private static final class StrategyRunner {
+
+        private final StrategyHandle handle;
+        private final String name;
+        private final AnalysisStrategy strategy;
+        private final boolean ordered;
+        // Solo lo toca el hilo de ingesta
+        private List<DetectionJson> buffer = new ArrayList<>();
+        // Estrategias ordenadas: lotes en espera y si hay uno en curso (protegidos por el monitor del runner)
+        private final Deque<List<DetectionJson>> pending = new ArrayDeque<>();
+        private boolean active;
+
+        private final LongAdder batches = new LongAdder();
+        private final LongAdder processed = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder timedOut = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+        private final LongAdder busyNanos = new LongAdder();
+
+        StrategyRunner(StrategyHandle handle) {
+            this.handle = handle;
+            this.name = handle.getName();
+            this.strategy = handle.getStrategy();
+            this.ordered = strategy.requiresOrdering();
+        }
+    }
+
+    private final class BatchTask extends FutureTask<Void> {
+
+        private final StrategyRunner runner;
+        private final List<DetectionJson> batch;
+        private volatile ScheduledFuture<?> timeout;
+
+        BatchTask(StrategyRunner runner, List<DetectionJson> batch) {
+            super(() -> {
+                long start = System.nanoTime();
+                try {
+                    runner.strategy.analyzeBatch(batch);
+                    runner.processed.add(batch.size());
+                } catch (RuntimeException e) {
+                    if (!Thread.currentThread().isInterrupted()) {
+                        runner.failed.add(batch.size());
+                        logger.debug("⚠️ Error en estrategia {}: {}", runner.name, e.getMessage());
+                    }
+                } finally {
+                    runner.batches.increment();
+                    runner.busyNanos.add(System.nanoTime() - start);
+                    // Aquí y no en done(): tras un timeout, done() corre en el watchdog mientras la estrategia
+                    // puede seguir ejecutándose si ignora la interrupción, y el siguiente lote se solaparía
+                    if (runner.ordered) {
+                        synchronized (runner) {
+                            launchNext(runner);
+                        }
+                    }
+                }
+            }, null);
+            this.runner = runner;
+            this.batch = batch;
+        }
+
+        /**
+         * El plazo corre desde que el lote empieza a ejecutarse: el tiempo en la cola del executor no cuenta
+         */
+        @Override
+        public void run() {
+            try {
+                timeout = watchdog.schedule(() -> {
+                    if (cancel(true)) {
+                        runner.timedOut.add(batch.size());
+                        logger.debug("⏱️ Lote de {} detecciones vencido para {}", batch.size(), runner.name);
+                    }
+                }, timeoutMillis, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // Apagado en curso: el lote corre sin plazo y el executor lo interrumpirá
+                logger.debug("⚠️ Watchdog detenido; lote de {} sin timeout para {}", batch.size(), runner.name);
+            }
+            super.run();
+        }
+
+        @Override
+        protected void done() {
+            ScheduledFuture<?> pendingTimeout = timeout;
+            if (pendingTimeout != null) {
+                pendingTimeout.cancel(false);
+            }
+        }
+    }
+}
@@ -1,14 +1,44 @@
 package com.example.demo.service.strategy.impl;
 
+import java.util.Map;
+
+import com.example.demo.service.AxleTable;
 import com.example.demo.service.strategy.AnalysisStrategy;
 import com.example.demo.service.DTO.DetectionJson;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Anota cada detección con sus ejes estimados y su carga equivalente (ESAL) según la {@link AxleTable}.
+ * Los acumulados por carril y día los mantiene {@link com.example.demo.service.AxleLoadService} en la ingesta.
+ */
 @Component
+@RequiredArgsConstructor
 public class AxleCountStrategy implements AnalysisStrategy {
+
+    private static final Logger logger = LoggerFactory.getLogger(AxleCountStrategy.class);
+
+    private final AxleTable axleTable;
+
     @Override
     public void analyze(DetectionJson detection) {
-        // Lógica de conteo de ejes
-        System.out.println("Contando ejes en: " + detection.getDate());
+        if (detection.getObjects_total() == null) {
+            return;
+        }
+        long axles = 0;
+        double esal = 0.0;
+        for (Map.Entry<String, Integer> entry : detection.getObjects_total().entrySet()) {
+            if (entry.getValue() != null && entry.getValue() > 0) {
+                AxleTable.Entry row = axleTable.get(entry.getKey());
+                axles += (long) entry.getValue() * row.axles();
+                esal += entry.getValue() * row.esal();
+            }
+        }
+
+        detection.mergeAnalysisResults(Map.of("axles", (double) axles, "esal", esal));
+        logger.debug("🔧 Ejes estimados en {}: {}", detection.getDate(), axles);
     }
-}
\ No newline at end of file
+}
@@ -1,25 +1,63 @@
 package com.example.demo.service.strategy.impl;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
 import com.example.demo.service.strategy.AnalysisStrategy;
+import com.example.demo.service.client.PythonAnalyzeClient;
 import com.example.demo.service.DTO.DetectionJson;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.http.ResponseEntity;
 
+/**
+ * Envía las detecciones al servicio Python en lotes de hasta {@code app.python.max-batch-size}
+ * y fusiona cada resultado en {@link DetectionJson#getAnalysisResults()}.
+ */
 @Component
 public class VehicleDetectionStrategy implements AnalysisStrategy {
+
+    private final PythonAnalyzeClient client;
+    private final int maxBatchSize;
+
+    public VehicleDetectionStrategy(PythonAnalyzeClient client,
+                                    @Value("${app.python.max-batch-size:50}") int maxBatchSize) {
+        this.client = client;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+    }
+
     @Override
     public void analyze(DetectionJson detection) {
-        // Usar RestTemplate para llamar a la API de Python
-        RestTemplate restTemplate = new RestTemplate();
-        String pythonApiUrl = "http://localhost:5000/analyze";
-        
-        ResponseEntity<String> response = restTemplate.postForEntity(
-            pythonApiUrl,
-            detection.getObjects_total(),
-            String.class
-        );
-        
-        System.out.println("Respuesta de Python: " + response.getBody());
+        analyzeBatch(List.of(detection));
+    }
+
+    /**
+     * Las peticiones de cada tramo salen a la vez y la E/S es asíncrona; solo se espera al final
+     * para que el pipeline mida el lote completo y pueda vencerlo por timeout.
+     */
+    @Override
+    public void analyzeBatch(List<DetectionJson> batch) {
+        List<CompletableFuture<Void>> requests = new ArrayList<>();
+        for (int from = 0; from < batch.size(); from += maxBatchSize) {
+            List<DetectionJson> chunk = batch.subList(from, Math.min(batch.size(), from + maxBatchSize));
+            requests.add(client.analyze(chunk).thenAccept(results -> {
+                for (int i = 0; i < chunk.size(); i++) {
+                    // Se fusiona: otras estrategias pueden estar anotando la misma detección en paralelo
+                    chunk.get(i).mergeAnalysisResults(results.get(i));
+                }
+            }));
+        }
+
+        CompletableFuture<Void> all = CompletableFuture.allOf(requests.toArray(CompletableFuture[]::new));
+        try {
+            all.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            requests.forEach(request -> request.cancel(true));
+            throw new IllegalStateException("Análisis interrumpido", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Fallo del servicio de análisis: " + e.getCause().getMessage(), e.getCause());
+        }
     }
-}
\ No newline at end of file
+}
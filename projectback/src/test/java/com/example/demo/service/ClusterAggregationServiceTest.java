@@ -0,0 +1,191 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.config.AppConfig;
+import com.example.demo.service.DTO.AggregateSnapshot;
+import com.example.demo.service.DTO.DetectionJson;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Varios nodos en localhost: dos pares sirven su snapshot con HttpServer del JDK y un tercero está caído.
+ */
+class ClusterAggregationServiceTest {
+
+    private final ObjectMapper objectMapper = new AppConfig().objectMapper();
+    private final List<HttpServer> servers = new ArrayList<>();
+
+    @AfterEach
+    void stopServers() {
+        servers.forEach(server -> server.stop(0));
+    }
+
+    @Test
+    void mergesPeerSnapshotsExactly() throws IOException {
+        // Nodo local: 3 autos a 10 km/h
+        Node local = node("local");
+        local.ingest(detection("2025-05-22 08:00:10", "lane_1", "car", 3, 10.0));
+
+        // Par A: 1 bus a 50 km/h; par B: 2 autos a 40 y 60 km/h en dos detecciones
+        Node peerA = node("peer-a");
+        peerA.ingest(detection("2025-05-22 09:00:10", "lane_1", "bus", 1, 50.0));
+        Node peerB = node("peer-b");
+        peerB.ingest(detection("2025-05-22 09:05:10", "lane_1", "car", 1, 40.0));
+        peerB.ingest(detection("2025-05-22 09:05:20", "lane_1", "car", 1, 60.0));
+
+        String down = "http://127.0.0.1:" + freePort();
+        List<String> peers = List.of(serve(peerA.snapshot()), serve(peerB.snapshot()), down);
+        ClusterAggregationService cluster = new ClusterAggregationService(local.snapshots(), objectMapper, peers, 2000);
+
+        Map<String, Object> summary = cluster.getClusterSummary(true);
+
+        assertEquals(List.of("local", "peer-a", "peer-b"), summary.get("nodes"));
+        assertEquals(Map.of("car", 5L, "bus", 1L), summary.get("total"));
+        assertEquals(4L, summary.get("detections"));
+
+        // Promedio exacto: (10 + 50 + 40 + 60) / 4 = 40; el promedio de promedios por nodo daría 36,67
+        @SuppressWarnings("unchecked")
+        Map<String, Map<String, Object>> speeds = (Map<String, Map<String, Object>>) summary.get("speedByLane");
+        assertEquals(4L, speeds.get("lane_1").get("samples"));
+        assertEquals(40.0, speeds.get("lane_1").get("avg"));
+        AggregateSnapshot.LaneSpeed merged = cluster.getClusterSnapshot(true).snapshot().getSpeedByLane().get("lane_1");
+        assertEquals(10.0 + 50.0 + 40.0 + 60.0, merged.getSum());
+        assertEquals(4L, merged.getCount());
+        double p50 = (Double) speeds.get("lane_1").get("p50");
+        assertTrue(p50 >= 10.0 && p50 <= 50.0, "p50 fuera de rango: " + p50);
+
+        @SuppressWarnings("unchecked")
+        Map<String, Long> hourly = (Map<String, Long>) summary.get("hourly");
+        assertEquals(Map.of("08:00", 3L, "09:00", 3L), hourly);
+
+        @SuppressWarnings("unchecked")
+        List<AggregateSnapshot.PeakInterval> peaks = (List<AggregateSnapshot.PeakInterval>) summary.get("topIntervals");
+        assertEquals("2025-05-22 08:00:00", peaks.get(0).getStart());
+        assertEquals("2025-05-22 08:00:59", peaks.get(0).getEnd());
+        assertEquals(3L, peaks.get(0).getVehicles());
+
+        @SuppressWarnings("unchecked")
+        Map<String, String> failed = (Map<String, String>) summary.get("failedNodes");
+        assertEquals(List.of(down), List.copyOf(failed.keySet()));
+    }
+
+    @Test
+    void topIntervalsComeFromMergedMinuteCounts() throws IOException {
+        // 09:05 tiene 2 vehículos en cada par: 4 en total, más que los 3 de 08:00 en el nodo local.
+        // Concatenar el top-K de cada nodo pondría primero a 08:00
+        Node local = node("local");
+        local.ingest(detection("2025-05-22 08:00:10", "lane_1", "car", 3, 10.0));
+        Node peerA = node("peer-a");
+        peerA.ingest(detection("2025-05-22 09:05:10", "lane_1", "car", 2, 40.0));
+        Node peerB = node("peer-b");
+        peerB.ingest(detection("2025-05-22 09:05:40", "lane_2", "bus", 2, 30.0));
+        peerB.ingest(detection("2025-05-22 07:00:00", "lane_2", "car", 1, 30.0));
+
+        ClusterAggregationService cluster = new ClusterAggregationService(local.snapshots(), objectMapper,
+            List.of(serve(peerA.snapshot()), serve(peerB.snapshot())), 2000);
+        AggregateSnapshot merged = cluster.getClusterSnapshot(true).snapshot();
+
+        assertEquals(Map.of("2025-05-22 07:00:00", 1L, "2025-05-22 08:00:00", 3L, "2025-05-22 09:05:00", 4L),
+            merged.getMinuteVolumes());
+        assertEquals(List.of(
+                new AggregateSnapshot.PeakInterval("2025-05-22 09:05:00", "2025-05-22 09:05:59", 4L),
+                new AggregateSnapshot.PeakInterval("2025-05-22 08:00:00", "2025-05-22 08:00:59", 3L),
+                new AggregateSnapshot.PeakInterval("2025-05-22 07:00:00", "2025-05-22 07:00:59", 1L)),
+            merged.getTopIntervals());
+    }
+
+    @Test
+    void minuteVolumesKeepOnlyThePeakWindow() {
+        // Ventana de 1 h: 07:00 queda fuera al llegar 08:30, y 07:10 llega tarde y ya no entra
+        SpeedHistogramService histograms = new SpeedHistogramService(24);
+        Node node = new Node(new AggregateSnapshotService("local", 5, 1, histograms), histograms);
+        node.ingest(detection("2025-05-22 07:00:10", "lane_1", "car", 9, 10.0));
+        node.ingest(detection("2025-05-22 07:45:10", "lane_1", "car", 2, 10.0));
+        node.ingest(detection("2025-05-22 08:30:10", "lane_1", "car", 1, 10.0));
+        node.ingest(detection("2025-05-22 07:10:10", "lane_1", "car", 5, 10.0));
+
+        AggregateSnapshot snapshot = node.snapshot();
+        assertEquals(Map.of("2025-05-22 07:45:00", 2L, "2025-05-22 08:30:00", 1L), snapshot.getMinuteVolumes());
+        assertEquals("2025-05-22 07:45:00", snapshot.getTopIntervals().get(0).getStart());
+        // Los totales siguen cubriendo todo el historial
+        assertEquals(Map.of("car", 17L), snapshot.getTotals());
+    }
+
+    @Test
+    void aggregatorWithoutLocalDataOnlyMergesPeers() throws IOException {
+        Node peer = node("peer-a");
+        peer.ingest(detection("2025-05-22 09:00:10", "lane_2", "truck", 2, 30.0));
+
+        ClusterAggregationService cluster = new ClusterAggregationService(node("aggregator").snapshots(), objectMapper,
+            List.of(serve(peer.snapshot()) + "/"), 2000);
+
+        AggregateSnapshot merged = cluster.getClusterSnapshot(false).snapshot();
+        assertEquals(List.of("peer-a"), merged.getNodes());
+        assertEquals(Map.of("truck", 2L), merged.getByLane().get("lane_2"));
+        assertEquals(30.0, merged.getSpeedByLane().get("lane_2").getSum());
+    }
+
+    private static Node node(String nodeId) {
+        SpeedHistogramService histograms = new SpeedHistogramService(24);
+        return new Node(new AggregateSnapshotService(nodeId, 5, 168, histograms), histograms);
+    }
+
+    private String serve(AggregateSnapshot snapshot) throws IOException {
+        byte[] body = objectMapper.writeValueAsBytes(snapshot);
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext(ClusterAggregationService.SNAPSHOT_PATH, exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        servers.add(server);
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static DetectionJson detection(String date, String lane, String type, int count, double speed) {
+        DetectionJson detection = new DetectionJson();
+        detection.setDate(date);
+        detection.setTimestamp_ms(0L);
+        detection.setObjects_total(Map.of(type, count));
+        detection.setObjects_by_lane(Map.of(lane, Map.of(type, count)));
+        detection.setAvg_speed_by_lane(Map.of(lane, speed));
+        return detection;
+    }
+
+    /**
+     * Un nodo con los receptores de ingesta que alimentan su snapshot
+     */
+    private record Node(AggregateSnapshotService snapshots, SpeedHistogramService histograms) {
+
+        void ingest(DetectionJson detection) {
+            snapshots.onDetection(detection);
+            histograms.onDetection(detection);
+        }
+
+        AggregateSnapshot snapshot() {
+            return snapshots.snapshot();
+        }
+    }
+}
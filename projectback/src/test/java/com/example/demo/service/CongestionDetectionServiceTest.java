@@ -0,0 +1,96 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import com.example.demo.service.DTO.DetectionJson;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+
+/**
+ * Cada transición de congestión va a DEBUG y cada carga deja un único resumen en INFO con los episodios
+ * detectados y despejados en esa carga.
+ */
+class CongestionDetectionServiceTest {
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger(CongestionDetectionService.class);
+    private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+    private Level previousLevel;
+
+    @BeforeEach
+    void captureLogs() {
+        previousLevel = logger.getLevel();
+        logger.setLevel(Level.DEBUG);
+        appender.start();
+        logger.addAppender(appender);
+    }
+
+    @AfterEach
+    void releaseLogs() {
+        logger.detachAppender(appender);
+        logger.setLevel(previousLevel);
+    }
+
+    @Test
+    void transitionsAtDebugAndOneSummaryPerLoad() {
+        // alpha 1 y una muestra mínima: el estado sigue a la última velocidad
+        CongestionDetectionService service = new CongestionDetectionService(1.0, 15.0, 20.0, 1.0, 1, 500);
+        // Solo interesa la ingesta, no la línea de configuración del constructor
+        appender.list.clear();
+
+        service.onReset();
+        service.onDetection(detection("2025-05-22 08:00:00", "lane_1", 10.0));
+        service.onDetection(detection("2025-05-22 08:01:00", "lane_1", 30.0));
+        service.onDetection(detection("2025-05-22 08:02:00", "lane_1", 10.0));
+        service.onDetection(detection("2025-05-22 08:02:00", "lane_2", 50.0));
+        service.onCommit(7);
+
+        List<String> debug = messages(Level.DEBUG);
+        assertEquals(3, debug.size(), "una línea DEBUG por transición: " + debug);
+        assertEquals(2, debug.stream().filter(message -> message.contains("Congestión detectada en lane_1")).count());
+        assertEquals(1, debug.stream().filter(message -> message.contains("Congestión despejada en lane_1")).count());
+
+        List<String> info = messages(Level.INFO);
+        assertEquals(1, info.size(), "un único resumen INFO por carga: " + info);
+        assertTrue(info.get(0).contains("(versión 7): 2 episodios detectados, 1 despejados; congestionados ahora: [lane_1]"),
+            info.get(0));
+
+        // Los contadores son por carga: una recarga sin transiciones resume en cero
+        appender.list.clear();
+        service.onReset();
+        service.onDetection(detection("2025-05-22 09:00:00", "lane_2", 50.0));
+        service.onCommit(8);
+
+        assertEquals(List.of(), messages(Level.DEBUG));
+        List<String> reloaded = messages(Level.INFO);
+        assertEquals(1, reloaded.size());
+        assertTrue(reloaded.get(0).contains("(versión 8): 0 episodios detectados, 0 despejados; congestionados ahora: ninguno"),
+            reloaded.get(0));
+    }
+
+    private List<String> messages(Level level) {
+        return appender.list.stream()
+            .filter(event -> event.getLevel() == level)
+            .map(ILoggingEvent::getFormattedMessage)
+            .toList();
+    }
+
+    private static DetectionJson detection(String date, String lane, double speed) {
+        DetectionJson detection = new DetectionJson();
+        detection.setDate(date);
+        detection.setObjects_by_lane(Map.of(lane, Map.of("car", 5)));
+        detection.setAvg_speed_by_lane(Map.of(lane, speed));
+        return detection;
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.service.DTO.DetectionJson;
+
+/**
+ * Group-by sobre el almacén columnar: conteos y velocidades por dimensión, filtro de tiempo,
+ * publicación solo al confirmar la carga y validación de la consulta.
+ */
+class DetectionQueryServiceTest {
+
+    @Test
+    void countsVehiclesByLaneAndType() {
+        DetectionQueryService service = loaded();
+
+        assertEquals(Set.of(
+                Map.of("lane", "lane_1", "type", "car", "count", 3L),
+                Map.of("lane", "lane_1", "type", "bus", "count", 1L),
+                Map.of("lane", "lane_2", "type", "truck", "count", 3L),
+                Map.of("lane", "lane_2", "type", "car", "count", 4L)),
+            rows(service.query("lane,type", "count", null, null)));
+        assertEquals(Set.of(Map.of("source", "detections.json", "count", 11L)),
+            rows(service.query("source", null, null, null)));
+    }
+
+    @Test
+    void speedMeasuresByDayAndLane() {
+        DetectionQueryService service = loaded();
+
+        assertEquals(Set.of(
+                Map.of("day", "2025-05-22", "lane", "lane_1", "speed_avg", 40.0, "speed_min", 30.0, "speed_max", 50.0),
+                Map.of("day", "2025-05-22", "lane", "lane_2", "speed_avg", 20.0, "speed_min", 20.0, "speed_max", 20.0),
+                Map.of("day", "2025-05-23", "lane", "lane_2", "speed_avg", 40.0, "speed_min", 40.0, "speed_max", 40.0)),
+            rows(service.query("day,lane", "speed_avg,speed_min,speed_max", null, null)));
+    }
+
+    @Test
+    void timeRangeFiltersRows() {
+        DetectionQueryService service = loaded();
+
+        assertEquals(Set.of(Map.of("lane", "lane_2", "count", 4L)),
+            rows(service.query("lane", "count", "2025-05-23 00:00:00", null)));
+        assertEquals(Set.of(Map.of("hour", 8, "count", 7L)),
+            rows(service.query("hour", "count", null, "2025-05-22 23:59:59")));
+    }
+
+    @Test
+    void queriesSeeOnlyCommittedLoads() {
+        DetectionQueryService service = loaded();
+
+        // Recarga a medio camino: se sigue respondiendo con la carga anterior
+        service.onReset();
+        service.onDetection(detection("2025-05-24 10:00:00", "lane_3", Map.of("car", 9), 60.0));
+        assertEquals(Set.of(Map.of("count", 11L)), rows(service.query(null, "count", null, null)));
+
+        service.onCommit(2);
+        assertEquals(Set.of(Map.of("lane", "lane_3", "count", 9L)), rows(service.query("lane", "count", null, null)));
+    }
+
+    @Test
+    void rejectsInvalidQueries() {
+        DetectionQueryService service = loaded();
+
+        assertThrows(IllegalArgumentException.class, () -> service.query("weather", "count", null, null));
+        assertThrows(IllegalArgumentException.class, () -> service.query("lane", "speed_p101", null, null));
+        assertThrows(IllegalArgumentException.class, () -> service.query("type", "speed_avg", null, null));
+        assertThrows(IllegalArgumentException.class,
+            () -> service.query("lane", "count", "2025-05-23 00:00:00", "2025-05-22 00:00:00"));
+    }
+
+    private static DetectionQueryService loaded() {
+        DetectionQueryService service = new DetectionQueryService("/data/detections.json");
+        service.onReset();
+        service.onDetection(detection("2025-05-22 08:00:10", "lane_1", Map.of("car", 2, "bus", 1), 30.0));
+        service.onDetection(detection("2025-05-22 08:30:00", "lane_1", Map.of("car", 1), 50.0));
+        service.onDetection(detection("2025-05-22 08:30:00", "lane_2", Map.of("truck", 3), 20.0));
+        service.onDetection(detection("2025-05-23 09:00:00", "lane_2", Map.of("car", 4), 40.0));
+        service.onCommit(1);
+        return service;
+    }
+
+    private static DetectionJson detection(String date, String lane, Map<String, Integer> vehicles, double speed) {
+        DetectionJson detection = new DetectionJson();
+        detection.setDate(date);
+        detection.setObjects_by_lane(Map.of(lane, vehicles));
+        detection.setAvg_speed_by_lane(Map.of(lane, speed));
+        return detection;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Set<Map<String, Object>> rows(Map<String, Object> result) {
+        return new HashSet<>((List<Map<String, Object>>) result.get("rows"));
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import com.example.demo.config.AppConfig;
+import com.example.demo.entity.Detection;
+import com.example.demo.repository.DetectionRepository;
+import com.example.demo.service.DTO.DetectionJson;
+import com.example.demo.service.ingest.IngestionHub;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Solo las detecciones que quedaron en la tabla llegan a los receptores de ingesta.
+ */
+class JsonLoaderTest {
+
+    private static final String UNCONVERTIBLE = "2025-05-22 10:00:00";
+
+    private final ObjectMapper objectMapper = new AppConfig().objectMapper();
+    private final DetectionRepository repository = mock(DetectionRepository.class);
+    private final IngestionHub ingestionHub = mock(IngestionHub.class);
+    private final CalendarService calendarService = mock(CalendarService.class);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void publishesOnlyDetectionsThatWereSaved() throws IOException {
+        // 24 detecciones: una falla al convertirse y de las 23 restantes el segundo lote (3) falla al guardarse
+        List<Map<String, Object>> detections = new ArrayList<>();
+        for (int i = 0; i < 24; i++) {
+            Map<String, Object> detection = new LinkedHashMap<>();
+            detection.put("timestamp_ms", i * 1_000L);
+            detection.put("date", i == 5 ? UNCONVERTIBLE : String.format("2025-05-22 08:00:%02d", i));
+            detection.put("objects_total", Map.of("car", 1));
+            detections.add(detection);
+        }
+        Path file = tempDir.resolve("detections.json");
+        Files.write(file, objectMapper.writeValueAsBytes(Map.of("detections", detections)));
+
+        when(calendarService.classify(anyString())).thenAnswer(invocation -> {
+            if (UNCONVERTIBLE.equals(invocation.getArgument(0))) {
+                throw new IllegalStateException("fecha no clasificable");
+            }
+            return null;
+        });
+        AtomicInteger calls = new AtomicInteger();
+        AtomicLong ids = new AtomicLong();
+        when(repository.saveAll(anyList())).thenAnswer(invocation -> {
+            if (calls.incrementAndGet() == 2) {
+                throw new DataIntegrityViolationException("lote rechazado");
+            }
+            List<Detection> batch = invocation.getArgument(0);
+            batch.forEach(entity -> entity.setId(ids.incrementAndGet()));
+            return batch;
+        });
+
+        new JsonLoader(repository, objectMapper, ingestionHub, calendarService).loadJsonAndSaveToDb(file.toString());
+
+        ArgumentCaptor<List<DetectionJson>> published = ArgumentCaptor.forClass(List.class);
+        verify(ingestionHub).publishReload(published.capture());
+        assertEquals(20, published.getValue().size());
+        published.getValue().forEach(detection -> {
+            assertNotNull(detection.getId());
+            assertFalse(UNCONVERTIBLE.equals(detection.getDate()));
+        });
+        // El lote fallido contenía las tres últimas detecciones
+        assertFalse(published.getValue().stream().anyMatch(d -> d.getTimestamp_ms() >= 21_000L));
+    }
+}
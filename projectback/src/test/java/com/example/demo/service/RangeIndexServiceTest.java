@@ -0,0 +1,75 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.service.DTO.DetectionJson;
+import com.example.demo.service.analytics.DetectionTimes;
+
+/**
+ * Rangos del árbol: invertidos se rechazan y los que quedan fuera de los datos dan conteos en cero
+ * con las etiquetas pedidas.
+ */
+class RangeIndexServiceTest {
+
+    private static final long TEN = DetectionTimes.toEpochMillis("2025-05-22 10:00:00");
+    private static final long TEN_FIVE = DetectionTimes.toEpochMillis("2025-05-22 10:05:00");
+
+    @Test
+    void rejectsInvertedRange() {
+        RangeIndexService service = loaded();
+
+        assertThrows(IllegalArgumentException.class, () -> service.getTree(TEN_FIVE, TEN));
+    }
+
+    @Test
+    void rangeOutsideDataGivesEmptyTreeWithRequestedLabels() {
+        RangeIndexService service = loaded();
+        long before = TEN - 3_600_000L;
+        long after = TEN_FIVE + 3_600_000L;
+
+        for (long[] range : new long[][] {{before, before + 60_000L}, {after, after + 60_000L}}) {
+            Map<String, Object> tree = service.getTree(range[0], range[1]);
+
+            assertEquals(0L, tree.get("count"));
+            assertEquals(DetectionTimes.format(range[0]), tree.get("from"));
+            assertEquals(DetectionTimes.format(range[1]), tree.get("to"));
+            List<?> children = (List<?>) tree.get("children");
+            assertEquals(0L, ((Map<?, ?>) children.get(0)).get("count"));
+            assertEquals(0L, ((Map<?, ?>) children.get(1)).get("count"));
+        }
+    }
+
+    @Test
+    void rangeOverlappingDataIsClampedToIt() {
+        RangeIndexService service = loaded();
+
+        Map<String, Object> tree = service.getTree(TEN - 3_600_000L, TEN + 60_000L);
+
+        assertEquals(3L, tree.get("count"));
+        assertEquals("2025-05-22 10:00:00", tree.get("from"));
+        assertEquals(7L, service.getTree(null, null).get("count"));
+    }
+
+    private static RangeIndexService loaded() {
+        RangeIndexService service = new RangeIndexService(60, 168);
+        service.onReset();
+        service.onDetection(detection("2025-05-22 10:00:00", 3));
+        service.onDetection(detection("2025-05-22 10:05:00", 4));
+        service.onCommit(1);
+        return service;
+    }
+
+    private static DetectionJson detection(String date, int cars) {
+        DetectionJson detection = new DetectionJson();
+        detection.setDate(date);
+        detection.setObjects_total(Map.of("car", cars));
+        detection.setObjects_by_lane(Map.of("lane_1", Map.of("car", cars)));
+        return detection;
+    }
+}
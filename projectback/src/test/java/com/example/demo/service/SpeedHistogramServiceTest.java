@@ -0,0 +1,53 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.service.DTO.DetectionJson;
+import com.example.demo.service.analytics.DetectionTimes;
+import com.example.demo.service.analytics.SpeedHistogram;
+
+/**
+ * La retención por horas se mide en horas de reloj desde la más reciente, no en horas con datos.
+ */
+class SpeedHistogramServiceTest {
+
+    @Test
+    void evictsByHourTimestampNotByCountOfHoursWithData() {
+        SpeedHistogramService service = new SpeedHistogramService(3);
+        service.onDetection(detection("2025-05-22 08:10:00", 30.0));
+        service.onDetection(detection("2025-05-22 09:10:00", 40.0));
+        // Dos horas sin datos no deben alargar la ventana: con 3 horas retenidas quedan 10:00, 11:00 y 12:00
+        service.onDetection(detection("2025-05-22 12:10:00", 50.0));
+        // Llega tarde y queda fuera de la ventana: solo cuenta en el histórico completo
+        service.onDetection(detection("2025-05-22 07:30:00", 60.0));
+
+        assertEquals(1L, samples(service, "2025-05-22 00:00:00", "2025-05-22 23:59:59"));
+        assertEquals(4L, service.getHistograms("lane_1", null, null).get("lane_1").getTotal());
+    }
+
+    @Test
+    void keepsEveryHourInsideTheWindow() {
+        SpeedHistogramService service = new SpeedHistogramService(3);
+        service.onDetection(detection("2025-05-22 10:10:00", 30.0));
+        service.onDetection(detection("2025-05-22 12:50:00", 40.0));
+        service.onDetection(detection("2025-05-22 11:20:00", 50.0));
+
+        assertEquals(3L, samples(service, "2025-05-22 00:00:00", "2025-05-22 23:59:59"));
+    }
+
+    private static long samples(SpeedHistogramService service, String from, String to) {
+        Map<String, SpeedHistogram> histograms = service.getHistograms("lane_1", DetectionTimes.toEpochMillis(from), DetectionTimes.toEpochMillis(to));
+        return histograms.containsKey("lane_1") ? histograms.get("lane_1").getTotal() : 0L;
+    }
+
+    private static DetectionJson detection(String date, double speed) {
+        DetectionJson detection = new DetectionJson();
+        detection.setDate(date);
+        detection.setAvg_speed_by_lane(Map.of("lane_1", speed));
+        return detection;
+    }
+}
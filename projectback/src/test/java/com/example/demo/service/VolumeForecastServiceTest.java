@@ -0,0 +1,60 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.service.DTO.DetectionJson;
+
+/**
+ * El último minuto abierto de una carga debe llegar al modelo al confirmarse la carga.
+ */
+class VolumeForecastServiceTest {
+
+    private final VolumeForecastService service = new VolumeForecastService(0.5, 0.5, 0.5, 1440, 60);
+
+    @Test
+    void commitFlushesTheLastOpenMinute() {
+        service.onReset();
+        service.onDetection(detection("2025-05-22 14:58:10", 3));
+        service.onDetection(detection("2025-05-22 14:58:40", 2));
+        service.onDetection(detection("2025-05-22 14:59:05", 4));
+
+        assertEquals(1L, observedMinutes());
+
+        service.onCommit(1);
+        assertEquals(2L, observedMinutes());
+        // Al nivel inicial de 5 se le suma 0.5·(4 - 5) y la tendencia 0.5·(-0.5); el pronóstico es 4.5 - 0.25
+        assertEquals(4.25, forecastAt(1));
+
+        // Un segundo commit o detecciones tardías del minuto ya cerrado no lo observan de nuevo
+        service.onDetection(detection("2025-05-22 14:59:30", 10));
+        service.onCommit(2);
+        assertEquals(2L, observedMinutes());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object laneForecast(String key) {
+        Map<String, Object> lanes = (Map<String, Object>) service.getForecast("lane_1", 1).get("lanes");
+        return ((Map<String, Object>) lanes.get("lane_1")).get(key);
+    }
+
+    private long observedMinutes() {
+        return (Long) laneForecast("observedMinutes");
+    }
+
+    @SuppressWarnings("unchecked")
+    private double forecastAt(int step) {
+        return (Double) ((Map<String, Object>) ((List<Object>) laneForecast("points")).get(step - 1)).get("vehicles");
+    }
+
+    private static DetectionJson detection(String date, int cars) {
+        DetectionJson detection = new DetectionJson();
+        detection.setDate(date);
+        detection.setObjects_by_lane(Map.of("lane_1", Map.of("car", cars)));
+        return detection;
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.demo.service.analytics;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Ida y vuelta del formato binario: se decodifica como lo haría un cliente con DataView y se compara con la entrada.
+ */
+class ColumnarBinaryFormatTest {
+
+    private static final long BASE = 1_747_944_000_000L;
+
+    @Test
+    void roundTripsHeaderNamesDeltasAndColumns() {
+        long[] times = {BASE, BASE + 1_000, BASE + 61_000};
+        Map<String, double[]> columns = new LinkedHashMap<>();
+        columns.put("lane_1", new double[] {10.5, 20.25, 30.125});
+        columns.put("carril_ñ", new double[] {1, 2, 3});
+
+        byte[] encoded = ColumnarBinaryFormat.encode(times, times.length, columns, false, false);
+        Decoded decoded = decode(encoded);
+
+        assertEquals(0, decoded.flags);
+        assertEquals(List.of("lane_1", "carril_ñ"), decoded.names);
+        assertArrayEquals(times, decoded.times);
+        assertArrayEquals(new float[] {10.5f, 20.25f, 30.125f}, decoded.columns.get(0));
+        assertArrayEquals(new float[] {1, 2, 3}, decoded.columns.get(1));
+        // Nombres: 12 + (1 + 6) + (1 + 9) = 29 bytes, alineados a 32; tiempos 8 + 2·4 = 16; valores 2·3·4 = 24
+        assertEquals(32, decoded.timesOffset);
+        assertEquals(32 + 16 + 24, encoded.length);
+    }
+
+    @Test
+    void switchesToWideDeltasWhenAGapOverflowsInt32() {
+        long[] times = {BASE, BASE + 5_000_000_000L};
+        Map<String, double[]> columns = Map.of("car", new double[] {1.4, 2.6});
+
+        byte[] encoded = ColumnarBinaryFormat.encode(times, times.length, columns, true, false);
+        Decoded decoded = decode(encoded);
+
+        assertEquals(0b11, decoded.flags);
+        assertArrayEquals(times, decoded.times);
+        // Conteos redondeados al entero
+        assertArrayEquals(new float[] {1, 3}, decoded.columns.get(0));
+        // Nombres 12 + 4 = 16; tiempos 8 + 8 = 16; valores 2·4 = 8
+        assertEquals(40, encoded.length);
+    }
+
+    @Test
+    void skipsRowsWithUnknownTimeAndHonoursLength() {
+        long[] times = {BASE, DetectionTimes.UNKNOWN, BASE + 2_000, BASE + 3_000};
+        Map<String, double[]> columns = Map.of("speed", new double[] {1.234, 99, 5.678, 7});
+
+        Decoded decoded = decode(ColumnarBinaryFormat.encode(times, 3, columns, false, true));
+
+        assertArrayEquals(new long[] {BASE, BASE + 2_000}, decoded.times);
+        assertArrayEquals(new float[] {1.23f, 5.68f}, decoded.columns.get(0));
+    }
+
+    @Test
+    void encodesAnEmptySeries() {
+        Decoded decoded = decode(ColumnarBinaryFormat.encode(new long[0], 0, Map.of("car", new double[0]), true, false));
+
+        assertEquals(0, decoded.times.length);
+        assertEquals(List.of("car"), decoded.names);
+        assertEquals(0, decoded.columns.get(0).length);
+    }
+
+    private static Decoded decode(byte[] encoded) {
+        ByteBuffer buffer = ByteBuffer.wrap(encoded).order(ByteOrder.LITTLE_ENDIAN);
+        byte[] magic = new byte[4];
+        buffer.get(magic);
+        assertEquals("TCOL", new String(magic, StandardCharsets.US_ASCII));
+        assertEquals(1, buffer.get());
+        Decoded decoded = new Decoded();
+        decoded.flags = buffer.get();
+        int seriesCount = buffer.getShort() & 0xFFFF;
+        int rowCount = buffer.getInt();
+
+        for (int s = 0; s < seriesCount; s++) {
+            byte[] name = new byte[buffer.get() & 0xFF];
+            buffer.get(name);
+            decoded.names.add(new String(name, StandardCharsets.UTF_8));
+        }
+        while (buffer.position() % 8 != 0) {
+            assertEquals(0, buffer.get(), "el relleno debe ser cero");
+        }
+
+        decoded.timesOffset = buffer.position();
+        decoded.times = new long[rowCount];
+        long time = buffer.getLong();
+        for (int i = 0; i < rowCount; i++) {
+            if (i > 0) {
+                time += (decoded.flags & 0b10) != 0 ? buffer.getLong() : buffer.getInt();
+            }
+            decoded.times[i] = time;
+        }
+        while (buffer.position() % 4 != 0) {
+            assertEquals(0, buffer.get(), "el relleno debe ser cero");
+        }
+
+        for (int s = 0; s < seriesCount; s++) {
+            float[] column = new float[rowCount];
+            for (int i = 0; i < rowCount; i++) {
+                column[i] = buffer.getFloat();
+            }
+            decoded.columns.add(column);
+        }
+        assertEquals(encoded.length, buffer.position(), "no deben sobrar bytes");
+        return decoded;
+    }
+
+    private static final class Decoded {
+        private int flags;
+        private int timesOffset;
+        private long[] times;
+        private final List<String> names = new ArrayList<>();
+        private final List<float[]> columns = new ArrayList<>();
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.demo.service.analytics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Nivel, tendencia y estacionalidad contra las ecuaciones aditivas calculadas a mano (alpha = beta = gamma = 0.5,
+ * estación de 2 buckets).
+ */
+class HoltWintersForecasterTest {
+
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    void updatesLevelTrendAndSeasonForKnownSeries() {
+        HoltWintersForecaster forecaster = new HoltWintersForecaster(0.5, 0.5, 0.5, 2);
+
+        // t=0: nivel 10, tendencia 0, estación [0, 0]
+        forecaster.observe(0, 10);
+        assertEquals(10.0, forecaster.forecast(1), EPSILON);
+
+        // t=1: nivel 0.5·14 + 0.5·10 = 12, tendencia 0.5·2 = 1, estación[1] = 0.5·(14 - 12) = 1
+        forecaster.observe(1, 14);
+        // t=2: nivel 0.5·12 + 0.5·13 = 12.5, tendencia 0.5·0.5 + 0.5·1 = 0.75, estación[0] = 0.5·(12 - 12.5) = -0.25
+        forecaster.observe(2, 12);
+
+        assertEquals(12.5 + 0.75 + 1, forecaster.forecast(1), EPSILON);
+        assertEquals(12.5 + 2 * 0.75 - 0.25, forecaster.forecast(2), EPSILON);
+        assertEquals(2, forecaster.getLastIndex());
+        assertEquals(3, forecaster.getObservations());
+        assertTrue(forecaster.isSeasonWarm());
+    }
+
+    @Test
+    void fillsGapsWithZerosUpToOneSeason() {
+        HoltWintersForecaster forecaster = new HoltWintersForecaster(0.5, 0.5, 0.5, 2);
+        forecaster.observe(0, 10);
+
+        // Del 1 al 99 solo se rellenan los 2 últimos buckets (una estación) antes de observar el 100
+        forecaster.observe(100, 10);
+
+        assertEquals(100, forecaster.getLastIndex());
+        assertEquals(4, forecaster.getObservations());
+    }
+
+    @Test
+    void rejectsOutOfOrderBuckets() {
+        HoltWintersForecaster forecaster = new HoltWintersForecaster(0.3, 0.1, 0.1, 4);
+        forecaster.observe(5, 1);
+
+        assertThrows(IllegalArgumentException.class, () -> forecaster.observe(5, 1));
+        assertThrows(IllegalArgumentException.class, () -> new HoltWintersForecaster(1.5, 0.1, 0.1, 4));
+        assertTrue(Double.isNaN(new HoltWintersForecaster(0.3, 0.1, 0.1, 4).forecast(1)));
+    }
+}
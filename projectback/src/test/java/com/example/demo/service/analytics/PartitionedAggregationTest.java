@@ -0,0 +1,82 @@
+package com.example.demo.service.analytics;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.service.DTO.DetectionJson;
+
+/**
+ * La agregación fork-join debe dar lo mismo que un único {@link TrafficAggregate} secuencial sobre el mismo rango,
+ * con cualquier número de particiones y con límites que caen a mitad de una partición.
+ */
+class PartitionedAggregationTest {
+
+    private static final int DETECTIONS = 20_000;
+
+    @Test
+    void matchesSequentialAggregate() {
+        List<DetectionJson> rows = generate(DETECTIONS);
+        PartitionedAggregation.PartitionLoader loader = (from, to) -> {
+            List<DetectionJson> partition = new ArrayList<>();
+            for (DetectionJson row : rows) {
+                if (row.getTimestamp_ms() >= from && row.getTimestamp_ms() < to) {
+                    partition.add(row);
+                }
+            }
+            return partition;
+        };
+
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            long[][] ranges = {{0, DETECTIONS * 1_000L}, {1_500, 17_321_500}};
+            for (long[] range : ranges) {
+                TrafficAggregate sequential = new TrafficAggregate();
+                loader.load(range[0], range[1]).forEach(sequential::accept);
+
+                for (int partitions : new int[] {1, 7, 64}) {
+                    TrafficAggregate parallel = PartitionedAggregation.aggregate(pool, loader, range[0], range[1], partitions);
+                    assertSameAggregate(sequential, parallel);
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void assertSameAggregate(TrafficAggregate expected, TrafficAggregate actual) {
+        assertEquals(expected.getDetections(), actual.getDetections());
+        assertEquals(expected.getTotals(), actual.getTotals());
+        assertEquals(expected.getByLane(), actual.getByLane());
+        assertArrayEquals(expected.getHourly(), actual.getHourly());
+        assertEquals(expected.getSpeedByLane().keySet(), actual.getSpeedByLane().keySet());
+        expected.getSpeedByLane().forEach((lane, stats) -> {
+            assertEquals(stats.getCount(), actual.getSpeedByLane().get(lane).getCount());
+            assertEquals(stats.getSum(), actual.getSpeedByLane().get(lane).getSum(), 1e-6);
+        });
+    }
+
+    private static List<DetectionJson> generate(int count) {
+        List<DetectionJson> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int cars = i % 17;
+            int trucks = i % 5;
+            DetectionJson detection = new DetectionJson();
+            detection.setTimestamp_ms(i * 1_000L);
+            detection.setDate(String.format("2025-05-22 %02d:%02d:%02d", (i / 3600) % 24, (i / 60) % 60, i % 60));
+            detection.setObjects_total(Map.of("car", cars, "truck", trucks));
+            detection.setObjects_by_lane(Map.of(
+                "lane_1", Map.of("car", cars / 2, "truck", trucks),
+                "lane_2", Map.of("car", cars - cars / 2)));
+            detection.setAvg_speed_by_lane(Map.of("lane_1", 20.0 + i % 30, "lane_2", 35.5));
+            rows.add(detection);
+        }
+        return rows;
+    }
+}
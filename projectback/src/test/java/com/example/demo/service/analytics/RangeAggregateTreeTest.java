@@ -0,0 +1,90 @@
+package com.example.demo.service.analytics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Sumas (Fenwick) y máximos (árbol de segmentos) contra un recorrido directo del arreglo.
+ */
+class RangeAggregateTreeTest {
+
+    @Test
+    void matchesBruteForceAfterAddsGrowthAndShifts() {
+        Random random = new Random(42);
+        RangeAggregateTree tree = new RangeAggregateTree(4);
+        long[] expected = new long[0];
+
+        for (int step = 0; step < 400; step++) {
+            int operation = random.nextInt(10);
+            if (operation == 0) {
+                int count = 1 + random.nextInt(5);
+                tree.prepend(count);
+                long[] shifted = new long[expected.length + count];
+                System.arraycopy(expected, 0, shifted, count, expected.length);
+                expected = shifted;
+            } else if (operation == 1 && expected.length > 0) {
+                int count = 1 + random.nextInt(expected.length);
+                tree.discard(count);
+                long[] shifted = new long[expected.length - count];
+                System.arraycopy(expected, count, shifted, 0, shifted.length);
+                expected = shifted;
+            } else {
+                // Índices más allá de la capacidad fuerzan la duplicación
+                int index = random.nextInt(expected.length + 20);
+                long delta = 1 + random.nextInt(50);
+                tree.add(index, delta);
+                if (index >= expected.length) {
+                    expected = Arrays.copyOf(expected, index + 1);
+                }
+                expected[index] += delta;
+            }
+            assertRangesMatch(tree, expected, random);
+        }
+    }
+
+    @Test
+    void clampsRangesOutsideTheTree() {
+        RangeAggregateTree tree = new RangeAggregateTree(8);
+        tree.add(0, 3);
+        tree.add(7, 5);
+
+        assertEquals(8, tree.sum(-10, 100));
+        assertEquals(5, tree.max(-10, 100));
+        assertEquals(0, tree.sum(5, 2));
+        assertEquals(0, tree.max(1, 6));
+    }
+
+    @Test
+    void discardKeepsCapacityAndDropsOldestBuckets() {
+        RangeAggregateTree tree = new RangeAggregateTree(8);
+        tree.add(1, 10);
+        tree.add(6, 4);
+
+        tree.discard(2);
+
+        assertEquals(8, tree.capacity());
+        assertEquals(4, tree.sum(0, 7));
+        assertEquals(4, tree.max(4, 4));
+        tree.discard(100);
+        assertEquals(0, tree.sum(0, 7));
+    }
+
+    private static void assertRangesMatch(RangeAggregateTree tree, long[] expected, Random random) {
+        for (int query = 0; query < 20 && expected.length > 0; query++) {
+            int from = random.nextInt(expected.length);
+            int to = from + random.nextInt(expected.length - from);
+            long sum = 0;
+            long max = 0;
+            for (int i = from; i <= to; i++) {
+                sum += expected[i];
+                max = Math.max(max, expected[i]);
+            }
+            assertEquals(sum, tree.sum(from, to), "suma de [" + from + ", " + to + "]");
+            assertEquals(max, tree.max(from, to), "máximo de [" + from + ", " + to + "]");
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.demo.service.analytics;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.service.analytics.SeriesDownsampler.Aggregation;
+import com.example.demo.service.analytics.SeriesDownsampler.Series;
+
+/**
+ * Validación de parámetros, buckets de tiempo y LTTB, incluidos los bordes (serie vacía, pocos puntos).
+ */
+class SeriesDownsamplerTest {
+
+    // Múltiplo exacto de un minuto; Bogotá tiene un desfase de horas enteras, así que los buckets quedan alineados
+    private static final long BASE = 1_747_999_980_000L;
+    private static final long SECOND = 1_000L;
+
+    @Test
+    void validateRejectsInvalidParameters() {
+        assertThrows(IllegalArgumentException.class, () -> SeriesDownsampler.validate(2, null, null));
+        assertThrows(IllegalArgumentException.class, () -> SeriesDownsampler.validate(null, null, "spline"));
+        assertThrows(IllegalArgumentException.class, () -> SeriesDownsampler.validate(null, "diez", null));
+        assertThrows(IllegalArgumentException.class, () -> SeriesDownsampler.validate(null, "0m", null));
+        assertDoesNotThrow(() -> SeriesDownsampler.validate(null, null, null));
+        assertDoesNotThrow(() -> SeriesDownsampler.validate(3, "5m", "LTTB"));
+        assertDoesNotThrow(() -> SeriesDownsampler.validate(100, " ", "bucket"));
+    }
+
+    @Test
+    void emptySeriesStaysEmpty() {
+        Series empty = new Series(new long[0], new double[][] {new double[0]}, 0);
+
+        assertEquals(0, SeriesDownsampler.downsample(empty, 3, null, "lttb", Aggregation.SUM).length());
+        assertEquals(0, SeriesDownsampler.downsample(empty, 3, "1m", "bucket", Aggregation.SUM).length());
+        assertEquals(0, SeriesDownsampler.bucketize(empty, 60 * SECOND, Aggregation.MEAN).length());
+    }
+
+    @Test
+    void maxPointsAboveLengthReturnsTheInput() {
+        Series input = series(new double[] {1, 2, 3, 4});
+
+        assertSame(input, SeriesDownsampler.downsample(input, 10, null, "lttb", Aggregation.SUM));
+        assertSame(input, SeriesDownsampler.downsample(input, 4, null, "bucket", Aggregation.SUM));
+    }
+
+    @Test
+    void lttbIgnoresThresholdsBelowThreeOrAboveLength() {
+        Series input = series(new double[] {1, 5, 2, 8, 3});
+
+        assertSame(input, SeriesDownsampler.lttb(input, 2));
+        assertSame(input, SeriesDownsampler.lttb(input, 5));
+        assertSame(input, SeriesDownsampler.lttb(input, 50));
+    }
+
+    @Test
+    void lttbKeepsEndpointsAndThePeak() {
+        Series reduced = SeriesDownsampler.lttb(series(new double[] {0, 0, 0, 10, 0, 0, 0}), 3);
+
+        assertEquals(3, reduced.length());
+        assertArrayEquals(new long[] {BASE, BASE + 3 * SECOND, BASE + 6 * SECOND}, reduced.times());
+        assertArrayEquals(new double[] {0, 10, 0}, reduced.values()[0]);
+    }
+
+    @Test
+    void bucketsSumCountsAndAveragePositiveSpeeds() {
+        long[] times = {BASE, BASE + 20 * SECOND, DetectionTimes.UNKNOWN, BASE + 40 * SECOND, BASE + 70 * SECOND};
+        double[] values = {2, 0, 99, 4, 6};
+        Series input = new Series(times, new double[][] {values}, times.length);
+
+        Series sum = SeriesDownsampler.bucketize(input, 60 * SECOND, Aggregation.SUM);
+        assertEquals(2, sum.length());
+        assertArrayEquals(new long[] {BASE, BASE + 60 * SECOND}, Arrays.copyOf(sum.times(), 2));
+        assertArrayEquals(new double[] {6, 6}, Arrays.copyOf(sum.values()[0], 2));
+
+        // El cero no cuenta como muestra de velocidad: (2 + 4) / 2
+        Series mean = SeriesDownsampler.bucketize(input, 60 * SECOND, Aggregation.MEAN);
+        assertArrayEquals(new double[] {3, 6}, Arrays.copyOf(mean.values()[0], 2));
+    }
+
+    @Test
+    void automaticBucketNeverExceedsMaxPoints() {
+        double[] values = new double[1000];
+        Arrays.fill(values, 1);
+        Series reduced = SeriesDownsampler.downsample(series(values), 7, null, null, Aggregation.SUM);
+
+        assertTrue(reduced.length() <= 7, "quedaron " + reduced.length() + " puntos");
+        double total = 0;
+        for (int i = 0; i < reduced.length(); i++) {
+            total += reduced.values()[0][i];
+        }
+        assertEquals(1000, total);
+    }
+
+    private static Series series(double[] values) {
+        long[] times = new long[values.length];
+        for (int i = 0; i < values.length; i++) {
+            times[i] = BASE + i * SECOND;
+        }
+        return new Series(times, new double[][] {values}, values.length);
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.demo.service.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.config.AppConfig;
+import com.example.demo.service.DTO.DetectionJson;
+import com.example.demo.service.strategy.impl.VehicleDetectionStrategy;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Servicio Python simulado con HttpServer del JDK: responde, falla o se queda esperando según el caso.
+ */
+class PythonAnalyzeClientTest {
+
+    private final ObjectMapper objectMapper = new AppConfig().objectMapper();
+    private final AtomicInteger hits = new AtomicInteger();
+    private final ExecutorService serverThreads = Executors.newCachedThreadPool();
+    private HttpServer server;
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+        serverThreads.shutdownNow();
+    }
+
+    @Test
+    void batchesDetectionsIntoOneRequestPerChunk() throws IOException {
+        // Devuelve el total de vehículos de cada detección recibida
+        String url = serve(exchange -> {
+            List<Map<String, Integer>> totals = objectMapper.readValue(exchange.getRequestBody(), new TypeReference<>() {
+            });
+            List<Map<String, Double>> results = new ArrayList<>();
+            totals.forEach(total -> results.add(Map.of("vehicles",
+                (double) total.values().stream().mapToInt(Integer::intValue).sum())));
+            respond(exchange, 200, objectMapper.writeValueAsBytes(results));
+        });
+        VehicleDetectionStrategy strategy = new VehicleDetectionStrategy(client(url, 4, 5), 2);
+
+        List<DetectionJson> batch = List.of(detection(1), detection(2), detection(3));
+        strategy.analyzeBatch(batch);
+
+        assertEquals(2, hits.get());
+        assertEquals(Map.of("vehicles", 1.0), batch.get(0).getAnalysisResults());
+        assertEquals(Map.of("vehicles", 2.0), batch.get(1).getAnalysisResults());
+        assertEquals(Map.of("vehicles", 3.0), batch.get(2).getAnalysisResults());
+    }
+
+    @Test
+    void opensCircuitAfterConsecutiveFailures() throws IOException {
+        String url = serve(exchange -> respond(exchange, 500, new byte[0]));
+        PythonAnalyzeClient client = client(url, 4, 2);
+
+        for (int i = 0; i < 2; i++) {
+            ExecutionException error = assertThrows(ExecutionException.class,
+                () -> client.analyze(List.of(detection(1))).get(5, TimeUnit.SECONDS));
+            assertTrue(error.getCause().getMessage().contains("HTTP 500"));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, client.getCircuitState());
+
+        // Con el circuito abierto la llamada falla sin llegar al servidor
+        ExecutionException error = assertThrows(ExecutionException.class,
+            () -> client.analyze(List.of(detection(1))).get(5, TimeUnit.SECONDS));
+        assertTrue(error.getCause() instanceof IllegalStateException);
+        assertEquals(2, hits.get());
+        assertEquals(1L, client.getMetrics().get("shortCircuited"));
+    }
+
+    @Test
+    void rejectsRequestsBeyondInFlightLimit() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        String url = serve(exchange -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, 200, objectMapper.writeValueAsBytes(List.of(Map.of("vehicles", 1.0))));
+        });
+        PythonAnalyzeClient client = client(url, 1, 5);
+
+        CompletableFuture<List<Map<String, Double>>> first = client.analyze(List.of(detection(1)));
+        ExecutionException error = assertThrows(ExecutionException.class,
+            () -> client.analyze(List.of(detection(1))).get(5, TimeUnit.SECONDS));
+        assertTrue(error.getCause() instanceof RejectedExecutionException);
+
+        release.countDown();
+        assertEquals(List.of(Map.of("vehicles", 1.0)), first.get(5, TimeUnit.SECONDS));
+        assertEquals(1L, client.getMetrics().get("rejected"));
+    }
+
+    private PythonAnalyzeClient client(String url, int maxInFlight, int failureThreshold) {
+        return new PythonAnalyzeClient(objectMapper, url, maxInFlight, 3000, failureThreshold, 60_000);
+    }
+
+    private String serve(HttpHandler handler) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(serverThreads);
+        server.createContext("/analyze", exchange -> {
+            hits.incrementAndGet();
+            handler.handle(exchange);
+        });
+        server.start();
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/analyze";
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static DetectionJson detection(int cars) {
+        DetectionJson detection = new DetectionJson();
+        detection.setDate("2025-05-22 14:58:52");
+        detection.setTimestamp_ms(0L);
+        detection.setObjects_total(Map.of("car", cars));
+        return detection;
+    }
+}
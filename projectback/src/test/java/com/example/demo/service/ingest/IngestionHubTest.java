@@ -0,0 +1,81 @@
+package com.example.demo.service.ingest;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.service.DTO.DetectionJson;
+
+/**
+ * La versión de datos cambia solo cuando todos los receptores confirmaron la carga, y las lecturas no entran
+ * mientras los receptores se reinician y rellenan.
+ */
+class IngestionHubTest {
+
+    @Test
+    void versionAdvancesAfterEveryListenerCommitted() {
+        List<Long> seenDuringCommit = new ArrayList<>();
+        IngestionHub[] hub = new IngestionHub[1];
+        IngestionListener observer = new IngestionListener() {
+            @Override
+            public void onDetection(DetectionJson detection) {
+            }
+
+            @Override
+            public void onCommit(long dataVersion) {
+                seenDuringCommit.add(dataVersion);
+                seenDuringCommit.add(hub[0].getDataVersion());
+            }
+        };
+        hub[0] = new IngestionHub(List.of(observer, observer));
+
+        hub[0].publishReload(List.of(new DetectionJson()));
+
+        // Cada receptor recibe la versión nueva, pero los lectores siguen viendo la anterior hasta el final
+        assertEquals(List.of(1L, 0L, 1L, 0L), seenDuringCommit);
+        assertEquals(1L, hub[0].getDataVersion());
+    }
+
+    @Test
+    void readersAreHeldOffDuringReplay() {
+        List<Boolean> admittedDuringReplay = new ArrayList<>();
+        IngestionHub[] hub = new IngestionHub[1];
+        IngestionListener observer = new IngestionListener() {
+            @Override
+            public void onReset() {
+                admittedDuringReplay.add(tryReadFromOtherThread(hub[0]));
+            }
+
+            @Override
+            public void onDetection(DetectionJson detection) {
+                admittedDuringReplay.add(tryReadFromOtherThread(hub[0]));
+            }
+
+            @Override
+            public void onCommit(long dataVersion) {
+                admittedDuringReplay.add(tryReadFromOtherThread(hub[0]));
+            }
+        };
+        hub[0] = new IngestionHub(List.of(observer));
+
+        hub[0].publishReload(List.of(new DetectionJson(), new DetectionJson()));
+
+        assertEquals(List.of(false, false, false, false), admittedDuringReplay);
+        assertTrue(tryReadFromOtherThread(hub[0]));
+    }
+
+    private static boolean tryReadFromOtherThread(IngestionHub hub) {
+        return CompletableFuture.supplyAsync(() -> {
+            if (!hub.acquireReadView(50)) {
+                return false;
+            }
+            hub.releaseReadView();
+            return true;
+        }).join();
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.demo.service.strategy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.service.DTO.DetectionJson;
+
+/**
+ * Una estrategia ordenada que ignora la interrupción sigue corriendo después de su timeout:
+ * el siguiente lote no puede empezar hasta que termine.
+ */
+class StrategyPipelineTest {
+
+    @Test
+    void orderedBatchesNeverOverlapAfterTimeout() throws InterruptedException {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<Long> order = new CopyOnWriteArrayList<>();
+        AnalysisStrategy stubborn = new AnalysisStrategy() {
+            @Override
+            public void analyze(DetectionJson detection) {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                order.add(detection.getTimestamp_ms());
+                // Sigue hasta recibir la interrupción del timeout, la descarta y aún trabaja un poco más
+                long limit = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+                while (!Thread.interrupted() && System.nanoTime() < limit) {
+                    Thread.onSpinWait();
+                }
+                long until = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(50);
+                while (System.nanoTime() < until) {
+                    Thread.interrupted();
+                }
+                running.decrementAndGet();
+            }
+
+            @Override
+            public boolean requiresOrdering() {
+                return true;
+            }
+        };
+        AnalysisStrategyRegistry registry = new AnalysisStrategyRegistry(
+            Map.of("stubbornStrategy", stubborn), List.of(), List.of("stubborn"));
+        StrategyPipeline pipeline = new StrategyPipeline(registry, 3, 16, 1, 20);
+        try {
+            for (long ts = 1; ts <= 3; ts++) {
+                DetectionJson detection = new DetectionJson();
+                detection.setTimestamp_ms(ts);
+                pipeline.onDetection(detection);
+            }
+
+            long deadline = System.currentTimeMillis() + 5000;
+            while (order.size() < 3 || running.get() > 0) {
+                assertTrue(System.currentTimeMillis() < deadline, "los lotes no terminaron a tiempo");
+                Thread.sleep(10);
+            }
+
+            assertEquals(1, maxRunning.get());
+            assertEquals(List.of(1L, 2L, 3L), order);
+            Map<?, ?> metrics = (Map<?, ?>) ((Map<?, ?>) pipeline.getMetrics().get("strategies")).get("stubborn");
+            assertEquals(3L, metrics.get("timedOut"));
+        } finally {
+            pipeline.shutdown();
+        }
+    }
+}